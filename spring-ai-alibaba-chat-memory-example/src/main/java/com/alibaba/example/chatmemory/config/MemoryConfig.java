@@ -19,12 +19,24 @@ package com.alibaba.example.chatmemory.config;
 import com.alibaba.cloud.ai.memory.jdbc.MysqlChatMemoryRepository;
 import com.alibaba.cloud.ai.memory.jdbc.SQLiteChatMemoryRepository;
 import com.alibaba.cloud.ai.memory.redis.RedissonRedisChatMemoryRepository;
+import com.alibaba.example.chatmemory.repository.AppendOnlyJdbcChatMemoryRepository;
+import com.alibaba.example.chatmemory.repository.TieredChatMemoryRepository;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PreDestroy;
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.util.StringUtils;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPoolConfig;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * @author yuluo
@@ -34,6 +46,13 @@ import org.springframework.jdbc.datasource.DriverManagerDataSource;
 @Configuration
 public class MemoryConfig {
 
+	private static final String SQLITE_DB = "spring-ai-alibaba-chat-memory-example/src/main/resources/chat-memory.db";
+
+	/**
+	 * 与各 Controller 中 MessageWindowChatMemory 的窗口大小保持一致
+	 */
+	private static final int MAX_MESSAGES = 100;
+
 	@Value("${spring.ai.memory.redis.host}")
 	private String redisHost;
 	@Value("${spring.ai.memory.redis.port}")
@@ -42,6 +61,18 @@ public class MemoryConfig {
 	private String redisPassword;
 	@Value("${spring.ai.memory.redis.timeout}")
 	private int redisTimeout;
+	/**
+	 * 是否使用进程内缓存 + Redis 的两级仓库。
+	 * 开启后改用新的 Redis key 布局，已有对话需要按 application.yml 中的说明迁移
+	 */
+	@Value("${spring.ai.memory.redis.tiered.enabled:false}")
+	private boolean tiered;
+	@Value("${spring.ai.memory.redis.tiered.maximum-size:10000}")
+	private long tieredMaximumSize;
+	@Value("${spring.ai.memory.redis.tiered.expire-after-access:30m}")
+	private Duration tieredExpireAfterAccess;
+	@Value("${spring.ai.memory.redis.tiered.flush-interval:500ms}")
+	private Duration tieredFlushInterval;
 
 	@Value("${spring.ai.chat.memory.repository.jdbc.mysql.jdbc-url}")
 	private String mysqlJdbcUrl;
@@ -52,11 +83,37 @@ public class MemoryConfig {
 	@Value("${spring.ai.chat.memory.repository.jdbc.mysql.driver-class-name}")
 	private String mysqlDriverClassName;
 
+	/**
+	 * 生产模式：使用连接池，并且只追加写入新增消息。
+	 * 开启后改用 ai_chat_memory_log 表，已有对话需要按 application.yml 中的说明迁移
+	 */
+	@Value("${spring.ai.chat.memory.repository.jdbc.pooled:false}")
+	private boolean pooled;
+	@Value("${spring.ai.chat.memory.repository.jdbc.maximum-pool-size:10}")
+	private int maximumPoolSize;
+
+	private final List<HikariDataSource> pools = new ArrayList<>();
+
+	private JedisPool jedisPool;
+
 	@Bean
-	public SQLiteChatMemoryRepository sqliteChatMemoryRepository() {
+	public ChatMemoryRepository sqliteChatMemoryRepository() {
+		if (pooled) {
+			// WAL 模式下读写互不阻塞；SQLite 同一时刻只有一个写连接，连接池不宜过大
+			HikariConfig config = new HikariConfig();
+			config.setPoolName("chat-memory-sqlite");
+			config.setDriverClassName("org.sqlite.JDBC");
+			config.setJdbcUrl("jdbc:sqlite:" + SQLITE_DB + "?journal_mode=WAL&synchronous=NORMAL&busy_timeout=5000");
+			config.setMaximumPoolSize(Math.min(maximumPoolSize, 4));
+			return AppendOnlyJdbcChatMemoryRepository.builder()
+					.dataSource(pool(config))
+					.dialect(AppendOnlyJdbcChatMemoryRepository.Dialect.SQLITE)
+					.maxMessages(MAX_MESSAGES)
+					.build();
+		}
 		DriverManagerDataSource dataSource = new DriverManagerDataSource();
 		dataSource.setDriverClassName("org.sqlite.JDBC");
-		dataSource.setUrl("jdbc:sqlite:spring-ai-alibaba-chat-memory-example/src/main/resources/chat-memory.db");
+		dataSource.setUrl("jdbc:sqlite:" + SQLITE_DB);
 		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
 		return SQLiteChatMemoryRepository.sqliteBuilder()
 				.jdbcTemplate(jdbcTemplate)
@@ -64,7 +121,25 @@ public class MemoryConfig {
 	}
 
 	@Bean
-	public MysqlChatMemoryRepository mysqlChatMemoryRepository() {
+	public ChatMemoryRepository mysqlChatMemoryRepository() {
+		if (pooled) {
+			HikariConfig config = new HikariConfig();
+			config.setPoolName("chat-memory-mysql");
+			config.setDriverClassName(mysqlDriverClassName);
+			config.setJdbcUrl(mysqlJdbcUrl);
+			config.setUsername(mysqlUsername);
+			config.setPassword(mysqlPassword);
+			config.setMaximumPoolSize(maximumPoolSize);
+			// 将批量插入改写为单条多值 INSERT，并缓存预编译语句
+			config.addDataSourceProperty("rewriteBatchedStatements", "true");
+			config.addDataSourceProperty("cachePrepStmts", "true");
+			config.addDataSourceProperty("useServerPrepStmts", "true");
+			return AppendOnlyJdbcChatMemoryRepository.builder()
+					.dataSource(pool(config))
+					.dialect(AppendOnlyJdbcChatMemoryRepository.Dialect.MYSQL)
+					.maxMessages(MAX_MESSAGES)
+					.build();
+		}
 		DriverManagerDataSource dataSource = new DriverManagerDataSource();
 		dataSource.setDriverClassName(mysqlDriverClassName);
 		dataSource.setUrl(mysqlJdbcUrl);
@@ -77,7 +152,10 @@ public class MemoryConfig {
 	}
 
 	@Bean
-	public RedissonRedisChatMemoryRepository redisChatMemoryRepository() {
+	public ChatMemoryRepository redisChatMemoryRepository() {
+		if (tiered) {
+			return tieredRedisChatMemoryRepository();
+		}
 		return RedissonRedisChatMemoryRepository.builder()
 				.host(redisHost)
 				.port(redisPort)
@@ -86,4 +164,37 @@ public class MemoryConfig {
 				.timeout(redisTimeout)
 				.build();
 	}
+
+	/**
+	 * 进程内缓存 + Redis 的两级仓库，批量写回时只追加新增消息
+	 */
+	private TieredChatMemoryRepository tieredRedisChatMemoryRepository() {
+		JedisPoolConfig poolConfig = new JedisPoolConfig();
+		// 订阅线程独占一个连接，其余用于读取和写回
+		poolConfig.setMaxTotal(8);
+		jedisPool = new JedisPool(poolConfig, redisHost, redisPort, redisTimeout,
+				StringUtils.hasText(redisPassword) ? redisPassword : null);
+		return TieredChatMemoryRepository.builder()
+				.jedisPool(jedisPool)
+				.maximumSize(tieredMaximumSize)
+				.expireAfterAccess(tieredExpireAfterAccess)
+				.flushInterval(tieredFlushInterval)
+				.build();
+	}
+
+	private HikariDataSource pool(HikariConfig config) {
+		// 不在启动时建立连接，数据库不可用时也不影响其他仓库的 Bean 创建
+		config.setInitializationFailTimeout(-1);
+		HikariDataSource dataSource = new HikariDataSource(config);
+		pools.add(dataSource);
+		return dataSource;
+	}
+
+	@PreDestroy
+	public void close() {
+		pools.forEach(HikariDataSource::close);
+		if (jedisPool != null) {
+			jedisPool.close();
+		}
+	}
 }
@@ -16,11 +16,12 @@
 
 package com.alibaba.example.chatmemory.controller;
 
-import com.alibaba.cloud.ai.memory.jdbc.MysqlChatMemoryRepository;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.client.advisor.MessageChatMemoryAdvisor;
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
 import org.springframework.ai.chat.memory.MessageWindowChatMemory;
 import org.springframework.ai.chat.messages.Message;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -42,7 +43,7 @@ public class MysqlMemoryController {
     private final int MAX_MESSAGES = 100;
     private final MessageWindowChatMemory messageWindowChatMemory;
 
-    public MysqlMemoryController(ChatClient.Builder builder, MysqlChatMemoryRepository mysqlChatMemoryRepository) {
+    public MysqlMemoryController(ChatClient.Builder builder, @Qualifier("mysqlChatMemoryRepository") ChatMemoryRepository mysqlChatMemoryRepository) {
         this.messageWindowChatMemory = MessageWindowChatMemory.builder()
                 .chatMemoryRepository(mysqlChatMemoryRepository)
                 .maxMessages(MAX_MESSAGES)
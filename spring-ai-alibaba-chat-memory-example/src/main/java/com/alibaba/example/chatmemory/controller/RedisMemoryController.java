@@ -16,12 +16,12 @@
 
 package com.alibaba.example.chatmemory.controller;
 
-import com.alibaba.cloud.ai.memory.redis.RedissonRedisChatMemoryRepository;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.client.advisor.MessageChatMemoryAdvisor;
-import org.springframework.ai.chat.memory.InMemoryChatMemoryRepository;
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
 import org.springframework.ai.chat.memory.MessageWindowChatMemory;
 import org.springframework.ai.chat.messages.Message;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -43,7 +43,7 @@ public class RedisMemoryController {
     private final int MAX_MESSAGES = 100;
     private final MessageWindowChatMemory messageWindowChatMemory;
 
-    public RedisMemoryController(ChatClient.Builder builder, RedissonRedisChatMemoryRepository redisChatMemoryRepository) {
+    public RedisMemoryController(ChatClient.Builder builder, @Qualifier("redisChatMemoryRepository") ChatMemoryRepository redisChatMemoryRepository) {
         this.messageWindowChatMemory = MessageWindowChatMemory.builder()
                 .chatMemoryRepository(redisChatMemoryRepository)
                 .maxMessages(MAX_MESSAGES)
@@ -0,0 +1,363 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.example.chatmemory.repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.Assert;
+
+/**
+ * 追加写入的 JDBC 对话记忆仓库
+ * <p>
+ * MessageWindowChatMemory 每次 add 都会把整个窗口交给 {@link #saveAll(String, List)}，
+ * 默认的 JDBC 仓库会先删除再全量插入。本仓库只批量插入窗口中新增的消息：
+ * 1. 读取时按自增 id 倒序取最近 maxMessages 条，由 (conversation_id, id) 索引直接定位；
+ * 2. 写入时与最近一次读到的窗口比对，窗口之外被淘汰的历史行保留在表中，不再删除；
+ * 3. 窗口无法与已存储内容对齐时（例如手动改写了历史），在事务中回退为删除后全量写入。
+ * <p>
+ * maxMessages 需要与 MessageWindowChatMemory 的窗口大小保持一致。
+ * <p>
+ * 消息保存在独立的 ai_chat_memory_log 表中（首次访问时创建），不读取默认 JDBC 仓库的 ai_chat_memory 表，
+ * 从默认仓库切换过来时需要先迁移历史数据。
+ *
+ * @author yuluo
+ * @author <a href="mailto:yuluo08290126@gmail.com">yuluo</a>
+ */
+public class AppendOnlyJdbcChatMemoryRepository implements ChatMemoryRepository {
+
+	private static final Logger logger = LoggerFactory.getLogger(AppendOnlyJdbcChatMemoryRepository.class);
+
+	private static final int DEFAULT_MAX_MESSAGES = 100;
+
+	private static final int DEFAULT_CACHED_CONVERSATIONS = 1024;
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final TransactionTemplate transactionTemplate;
+
+	private final Dialect dialect;
+
+	private final String tableName;
+
+	private final int maxMessages;
+
+	/**
+	 * 最近读写过的会话窗口，key 为会话 id，用于在写入时判断哪些消息是新增的
+	 */
+	private final Map<String, StoredWindow> windows;
+
+	private volatile boolean schemaCreated;
+
+	private AppendOnlyJdbcChatMemoryRepository(Builder builder) {
+
+		this.jdbcTemplate = new JdbcTemplate(builder.dataSource);
+		this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(builder.dataSource));
+		this.dialect = builder.dialect;
+		this.tableName = builder.tableName;
+		this.maxMessages = builder.maxMessages;
+		int cachedConversations = builder.cachedConversations;
+		this.windows = Collections.synchronizedMap(new LinkedHashMap<String, StoredWindow>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, StoredWindow> eldest) {
+				return size() > cachedConversations;
+			}
+		});
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	@Override
+	public List<String> findConversationIds() {
+
+		createSchema();
+		return jdbcTemplate.queryForList("SELECT DISTINCT conversation_id FROM " + tableName, String.class);
+	}
+
+	@Override
+	public List<Message> findByConversationId(String conversationId) {
+
+		Assert.hasText(conversationId, "conversationId cannot be null or empty");
+		createSchema();
+		return loadWindow(conversationId).messages();
+	}
+
+	@Override
+	public void saveAll(String conversationId, List<Message> messages) {
+
+		Assert.hasText(conversationId, "conversationId cannot be null or empty");
+		Assert.notNull(messages, "messages cannot be null");
+		Assert.noNullElements(messages, "messages cannot contain null elements");
+		createSchema();
+
+		if (messages.isEmpty()) {
+			deleteByConversationId(conversationId);
+			return;
+		}
+
+		StoredWindow stored = windows.get(conversationId);
+		if (stored == null || stored.lastId() != lastId(conversationId)) {
+			// 其他节点写入过该会话，重新读取窗口
+			stored = loadWindow(conversationId);
+		}
+
+		int overlap = overlap(stored.messages(), messages);
+		boolean appendable = overlap == stored.messages().size()
+				|| (overlap > 0 && messages.size() >= maxMessages);
+
+		if (appendable) {
+			List<Message> added = messages.subList(overlap, messages.size());
+			if (!added.isEmpty()) {
+				transactionTemplate.executeWithoutResult(status -> insert(conversationId, added));
+			}
+		}
+		else {
+			logger.debug("Chat memory window of conversation {} diverged from stored messages, rewriting.", conversationId);
+			transactionTemplate.executeWithoutResult(status -> {
+				jdbcTemplate.update("DELETE FROM " + tableName + " WHERE conversation_id = ?", conversationId);
+				insert(conversationId, messages);
+			});
+		}
+
+		windows.put(conversationId, new StoredWindow(tail(messages), lastId(conversationId)));
+	}
+
+	@Override
+	public void deleteByConversationId(String conversationId) {
+
+		Assert.hasText(conversationId, "conversationId cannot be null or empty");
+		createSchema();
+		jdbcTemplate.update("DELETE FROM " + tableName + " WHERE conversation_id = ?", conversationId);
+		windows.remove(conversationId);
+	}
+
+	private StoredWindow loadWindow(String conversationId) {
+
+		List<Row> rows = jdbcTemplate.query(
+				"SELECT id, type, content FROM (SELECT id, type, content FROM " + tableName
+						+ " WHERE conversation_id = ? ORDER BY id DESC LIMIT ?) recent ORDER BY id",
+				(rs, rowNum) -> new Row(rs.getLong("id"), rs.getString("type"), rs.getString("content")),
+				conversationId, maxMessages);
+
+		List<Message> messages = new ArrayList<>(rows.size());
+		for (Row row : rows) {
+			messages.add(toMessage(row));
+		}
+		StoredWindow window = new StoredWindow(List.copyOf(messages), rows.isEmpty() ? 0L : rows.get(rows.size() - 1).id());
+		windows.put(conversationId, window);
+		return window;
+	}
+
+	private long lastId(String conversationId) {
+
+		Long lastId = jdbcTemplate.queryForObject(
+				"SELECT MAX(id) FROM " + tableName + " WHERE conversation_id = ?", Long.class, conversationId);
+		return lastId != null ? lastId : 0L;
+	}
+
+	private void insert(String conversationId, List<Message> messages) {
+
+		// 同一批消息的时间戳递增，保证按时间排序时与写入顺序一致
+		long now = Instant.now().toEpochMilli();
+		jdbcTemplate.batchUpdate(
+				"INSERT INTO " + tableName + " (conversation_id, content, type, created_at) VALUES (?, ?, ?, ?)",
+				new BatchPreparedStatementSetter() {
+					@Override
+					public void setValues(PreparedStatement ps, int i) throws SQLException {
+						Message message = messages.get(i);
+						ps.setString(1, conversationId);
+						ps.setString(2, message.getText());
+						ps.setString(3, message.getMessageType().name());
+						ps.setTimestamp(4, new Timestamp(now + i));
+					}
+
+					@Override
+					public int getBatchSize() {
+						return messages.size();
+					}
+				});
+	}
+
+	/**
+	 * 已存储窗口的后缀与新窗口前缀的最大重合长度
+	 */
+	private static int overlap(List<Message> stored, List<Message> messages) {
+
+		for (int k = Math.min(stored.size(), messages.size()); k > 0; k--) {
+			int offset = stored.size() - k;
+			boolean matched = true;
+			for (int i = 0; i < k && matched; i++) {
+				matched = sameMessage(stored.get(offset + i), messages.get(i));
+			}
+			if (matched) {
+				return k;
+			}
+		}
+		return 0;
+	}
+
+	private static boolean sameMessage(Message left, Message right) {
+
+		return left.getMessageType() == right.getMessageType() && Objects.equals(left.getText(), right.getText());
+	}
+
+	private List<Message> tail(List<Message> messages) {
+
+		int from = Math.max(0, messages.size() - maxMessages);
+		return List.copyOf(messages.subList(from, messages.size()));
+	}
+
+	private static Message toMessage(Row row) {
+
+		MessageType type = MessageType.valueOf(row.type());
+		return switch (type) {
+			case USER -> new UserMessage(row.content());
+			case ASSISTANT -> new AssistantMessage(row.content());
+			case SYSTEM -> new SystemMessage(row.content());
+			default -> throw new IllegalStateException("Unsupported chat memory message type: " + type);
+		};
+	}
+
+	/**
+	 * 首次访问时建表，避免在 Bean 创建阶段就连接数据库
+	 */
+	private void createSchema() {
+
+		if (schemaCreated) {
+			return;
+		}
+		synchronized (this) {
+			if (!schemaCreated) {
+				doCreateSchema();
+				schemaCreated = true;
+			}
+		}
+	}
+
+	private void doCreateSchema() {
+
+		switch (dialect) {
+			case SQLITE -> {
+				jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + tableName + " ("
+						+ "id INTEGER PRIMARY KEY AUTOINCREMENT, "
+						+ "conversation_id TEXT NOT NULL, "
+						+ "content TEXT NOT NULL, "
+						+ "type TEXT NOT NULL, "
+						+ "created_at TIMESTAMP NOT NULL)");
+				jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_" + tableName + "_conversation ON "
+						+ tableName + " (conversation_id, id)");
+			}
+			case MYSQL -> jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + tableName + " ("
+					+ "id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY, "
+					+ "conversation_id VARCHAR(256) NOT NULL, "
+					+ "content LONGTEXT NOT NULL, "
+					+ "type VARCHAR(100) NOT NULL, "
+					+ "created_at TIMESTAMP(3) NOT NULL, "
+					+ "INDEX idx_" + tableName + "_conversation (conversation_id, id))");
+		}
+	}
+
+	public enum Dialect {
+
+		SQLITE, MYSQL
+
+	}
+
+	private record Row(long id, String type, String content) {
+	}
+
+	private record StoredWindow(List<Message> messages, long lastId) {
+	}
+
+	public static final class Builder {
+
+		private DataSource dataSource;
+
+		private Dialect dialect;
+
+		private String tableName = "ai_chat_memory_log";
+
+		private int maxMessages = DEFAULT_MAX_MESSAGES;
+
+		private int cachedConversations = DEFAULT_CACHED_CONVERSATIONS;
+
+		private Builder() {
+		}
+
+		public Builder dataSource(DataSource dataSource) {
+			this.dataSource = dataSource;
+			return this;
+		}
+
+		public Builder dialect(Dialect dialect) {
+			this.dialect = dialect;
+			return this;
+		}
+
+		public Builder tableName(String tableName) {
+			this.tableName = tableName;
+			return this;
+		}
+
+		public Builder maxMessages(int maxMessages) {
+			this.maxMessages = maxMessages;
+			return this;
+		}
+
+		public Builder cachedConversations(int cachedConversations) {
+			this.cachedConversations = cachedConversations;
+			return this;
+		}
+
+		public AppendOnlyJdbcChatMemoryRepository build() {
+
+			Assert.notNull(dataSource, "dataSource cannot be null");
+			Assert.notNull(dialect, "dialect cannot be null");
+			Assert.isTrue(tableName != null && tableName.matches("[A-Za-z_][A-Za-z0-9_]*"),
+					"tableName must be a valid identifier");
+			Assert.isTrue(maxMessages > 0, "maxMessages must be greater than 0");
+			Assert.isTrue(cachedConversations > 0, "cachedConversations must be greater than 0");
+			return new AppendOnlyJdbcChatMemoryRepository(this);
+		}
+	}
+
+}
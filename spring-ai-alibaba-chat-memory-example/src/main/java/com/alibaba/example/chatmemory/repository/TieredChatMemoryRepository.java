@@ -0,0 +1,511 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.example.chatmemory.repository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPubSub;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Transaction;
+import redis.clients.jedis.params.ScanParams;
+import redis.clients.jedis.resps.ScanResult;
+
+import org.springframework.ai.chat.memory.ChatMemoryRepository;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+import org.springframework.util.Assert;
+
+/**
+ * 两级对话记忆仓库：进程内 Caffeine 缓存（L1） + Redis（L2）
+ * <p>
+ * 1. 读取优先命中 L1，未命中时从 L2 加载，同一会话的并发加载只访问一次 Redis；
+ * 2. 写入只更新 L1 并标记为待写，由后台线程按 flushInterval 批量写回 L2，
+ *    同一会话在一个周期内的多次写入合并为一次；
+ * 3. 写回 L2 后通过 Redis pub/sub 广播失效消息，其他节点丢弃各自 L1 中的旧窗口。
+ * <p>
+ * L2 中每个会话是一个 Redis List。MessageWindowChatMemory 每次写入的都是完整窗口，
+ * 写回时与上次写回的窗口比对，只在一个 pipeline 中 RPUSH 新增消息并 LTRIM 掉被窗口淘汰的消息；
+ * 窗口无法与上次写回的内容对齐时，在事务中删除后全量写入。
+ * <p>
+ * key 布局与 RedissonRedisChatMemoryRepository 不同，两者的数据互不可见，迁移方式见 application.yml。
+ * 同一会话的写回与删除互斥，删除之后不会再被进行中的写回恢复。
+ * 写回之前进程退出会丢失最近一个周期内的写入，关闭时会先同步写回剩余数据。
+ * 会话粘性（sticky session）部署下，绝大多数读取不需要访问 Redis。
+ *
+ * @author yuluo
+ * @author <a href="mailto:yuluo08290126@gmail.com">yuluo</a>
+ */
+public class TieredChatMemoryRepository implements ChatMemoryRepository, AutoCloseable {
+
+	private static final Logger logger = LoggerFactory.getLogger(TieredChatMemoryRepository.class);
+
+	private static final String MESSAGE_SEPARATOR = "\n";
+
+	private static final int LOCK_STRIPES = 64;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	private final JedisPool jedisPool;
+
+	private final String keyPrefix;
+
+	private final String channel;
+
+	private final String nodeId = UUID.randomUUID().toString();
+
+	private final Cache<String, List<Message>> cache;
+
+	/**
+	 * 各会话最近一次写回（或从 L2 读到）的窗口，用于计算新增消息
+	 */
+	private final Cache<String, List<Message>> persisted;
+
+	/**
+	 * 尚未写回 L2 的会话窗口，同一会话只保留最新的一份
+	 */
+	private final Map<String, List<Message>> pending = new ConcurrentHashMap<>();
+
+	/**
+	 * 按会话 id 分段的锁，保证同一会话的写回与删除不会交错
+	 */
+	private final Object[] locks = new Object[LOCK_STRIPES];
+
+	private final ScheduledExecutorService flusher;
+
+	private final InvalidationListener listener = new InvalidationListener();
+
+	private final Thread subscriber;
+
+	private volatile boolean closed;
+
+	private TieredChatMemoryRepository(Builder builder) {
+
+		this.jedisPool = builder.jedisPool;
+		this.keyPrefix = builder.keyPrefix;
+		this.channel = builder.channel;
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(builder.maximumSize)
+				.expireAfterAccess(builder.expireAfterAccess)
+				.build();
+		this.persisted = Caffeine.newBuilder()
+				.maximumSize(builder.maximumSize)
+				.expireAfterAccess(builder.expireAfterAccess)
+				.build();
+		for (int i = 0; i < LOCK_STRIPES; i++) {
+			locks[i] = new Object();
+		}
+
+		this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "chat-memory-write-behind");
+			thread.setDaemon(true);
+			return thread;
+		});
+		long interval = builder.flushInterval.toMillis();
+		this.flusher.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+
+		this.subscriber = new Thread(this::subscribe, "chat-memory-invalidation");
+		this.subscriber.setDaemon(true);
+		this.subscriber.start();
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	@Override
+	public List<String> findConversationIds() {
+
+		Set<String> ids = new LinkedHashSet<>();
+		ScanParams params = new ScanParams().match(keyPrefix + "*").count(500);
+		try (Jedis jedis = jedisPool.getResource()) {
+			String cursor = ScanParams.SCAN_POINTER_START;
+			do {
+				ScanResult<String> result = jedis.scan(cursor, params);
+				for (String key : result.getResult()) {
+					ids.add(key.substring(keyPrefix.length()));
+				}
+				cursor = result.getCursor();
+			}
+			while (!ScanParams.SCAN_POINTER_START.equals(cursor));
+		}
+		ids.addAll(pending.keySet());
+		return new ArrayList<>(ids);
+	}
+
+	@Override
+	public List<Message> findByConversationId(String conversationId) {
+
+		Assert.hasText(conversationId, "conversationId cannot be null or empty");
+		// 待写回的窗口可能已被 L1 淘汰，优先使用
+		List<Message> dirty = pending.get(conversationId);
+		if (dirty != null) {
+			return dirty;
+		}
+		return cache.get(conversationId, this::load);
+	}
+
+	@Override
+	public void saveAll(String conversationId, List<Message> messages) {
+
+		Assert.hasText(conversationId, "conversationId cannot be null or empty");
+		Assert.notNull(messages, "messages cannot be null");
+		Assert.noNullElements(messages, "messages cannot contain null elements");
+
+		List<Message> window = List.copyOf(messages);
+		cache.put(conversationId, window);
+		pending.put(conversationId, window);
+	}
+
+	@Override
+	public void deleteByConversationId(String conversationId) {
+
+		Assert.hasText(conversationId, "conversationId cannot be null or empty");
+		synchronized (lock(conversationId)) {
+			pending.remove(conversationId);
+			cache.invalidate(conversationId);
+			persisted.invalidate(conversationId);
+			try (Jedis jedis = jedisPool.getResource()) {
+				jedis.del(key(conversationId));
+			}
+		}
+		publish(List.of(conversationId));
+	}
+
+	/**
+	 * 将所有待写窗口写回 L2，并通知其他节点失效
+	 */
+	public void flush() {
+
+		if (pending.isEmpty()) {
+			return;
+		}
+
+		List<String> flushed = new ArrayList<>(pending.size());
+		for (String conversationId : List.copyOf(pending.keySet())) {
+			try {
+				if (flush(conversationId)) {
+					flushed.add(conversationId);
+				}
+			}
+			catch (RuntimeException e) {
+				logger.warn("Failed to write chat memory of conversation {} back to redis, will retry: {}",
+						conversationId, e.getMessage());
+			}
+		}
+
+		if (!flushed.isEmpty()) {
+			publish(flushed);
+			logger.debug("Wrote {} chat memory windows back to redis.", flushed.size());
+		}
+	}
+
+	private boolean flush(String conversationId) {
+
+		synchronized (lock(conversationId)) {
+			// 取锁期间会话可能已被删除
+			List<Message> window = pending.get(conversationId);
+			if (window == null) {
+				return false;
+			}
+
+			String key = key(conversationId);
+			try (Jedis jedis = jedisPool.getResource()) {
+				List<Message> stored = persisted.getIfPresent(conversationId);
+				if (stored == null) {
+					stored = read(jedis, key);
+				}
+
+				int overlap = overlap(stored, window);
+				if (window.isEmpty()) {
+					jedis.del(key);
+				}
+				else if (overlap > 0 || stored.isEmpty()) {
+					List<Message> added = window.subList(overlap, window.size());
+					Pipeline pipeline = jedis.pipelined();
+					if (!added.isEmpty()) {
+						pipeline.rpush(key, encode(added));
+					}
+					// 保留与窗口等长的尾部，去掉已被窗口淘汰的消息
+					pipeline.ltrim(key, -window.size(), -1);
+					pipeline.sync();
+				}
+				else {
+					logger.debug("Chat memory window of conversation {} diverged from redis, rewriting.", conversationId);
+					Transaction transaction = jedis.multi();
+					transaction.del(key);
+					transaction.rpush(key, encode(window));
+					transaction.exec();
+				}
+			}
+			persisted.put(conversationId, window);
+			// 写回期间又有新的写入时保留待写标记，留到下个周期
+			pending.remove(conversationId, window);
+			return true;
+		}
+	}
+
+	@Override
+	public void close() {
+
+		closed = true;
+		flusher.shutdown();
+		try {
+			flusher.awaitTermination(5, TimeUnit.SECONDS);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		flush();
+
+		if (listener.isSubscribed()) {
+			listener.unsubscribe();
+		}
+		subscriber.interrupt();
+	}
+
+	private List<Message> load(String conversationId) {
+
+		try (Jedis jedis = jedisPool.getResource()) {
+			List<Message> window = read(jedis, key(conversationId));
+			persisted.put(conversationId, window);
+			return window;
+		}
+	}
+
+	private List<Message> read(Jedis jedis, String key) {
+
+		List<String> values = jedis.lrange(key, 0, -1);
+		List<Message> messages = new ArrayList<>(values.size());
+		for (String value : values) {
+			messages.add(decode(value));
+		}
+		return List.copyOf(messages);
+	}
+
+	/**
+	 * 已写回窗口的后缀与新窗口前缀的最大重合长度
+	 */
+	private static int overlap(List<Message> stored, List<Message> window) {
+
+		for (int k = Math.min(stored.size(), window.size()); k > 0; k--) {
+			int offset = stored.size() - k;
+			boolean matched = true;
+			for (int i = 0; i < k && matched; i++) {
+				Message left = stored.get(offset + i);
+				Message right = window.get(i);
+				matched = left.getMessageType() == right.getMessageType()
+						&& Objects.equals(left.getText(), right.getText());
+			}
+			if (matched) {
+				return k;
+			}
+		}
+		return 0;
+	}
+
+	private String[] encode(List<Message> messages) {
+
+		String[] values = new String[messages.size()];
+		for (int i = 0; i < values.length; i++) {
+			Message message = messages.get(i);
+			try {
+				values[i] = objectMapper.writeValueAsString(
+						Map.of("type", message.getMessageType().name(), "text", Objects.toString(message.getText(), "")));
+			}
+			catch (JsonProcessingException e) {
+				throw new IllegalStateException("Failed to serialize chat memory message", e);
+			}
+		}
+		return values;
+	}
+
+	private Message decode(String value) {
+
+		try {
+			JsonNode node = objectMapper.readTree(value);
+			MessageType type = MessageType.valueOf(node.get("type").asText());
+			String text = node.get("text").asText();
+			return switch (type) {
+				case USER -> new UserMessage(text);
+				case ASSISTANT -> new AssistantMessage(text);
+				case SYSTEM -> new SystemMessage(text);
+				default -> throw new IllegalStateException("Unsupported chat memory message type: " + type);
+			};
+		}
+		catch (JsonProcessingException e) {
+			throw new IllegalStateException("Failed to deserialize chat memory message", e);
+		}
+	}
+
+	private String key(String conversationId) {
+
+		return keyPrefix + conversationId;
+	}
+
+	private Object lock(String conversationId) {
+
+		return locks[(conversationId.hashCode() & Integer.MAX_VALUE) % LOCK_STRIPES];
+	}
+
+	private void flushQuietly() {
+
+		try {
+			flush();
+		}
+		catch (RuntimeException e) {
+			logger.warn("Chat memory write-behind failed: {}", e.getMessage());
+		}
+	}
+
+	private void publish(List<String> conversationIds) {
+
+		String message = nodeId + MESSAGE_SEPARATOR + String.join(MESSAGE_SEPARATOR, conversationIds);
+		try (Jedis jedis = jedisPool.getResource()) {
+			jedis.publish(channel, message);
+		}
+		catch (RuntimeException e) {
+			logger.warn("Failed to publish chat memory invalidation: {}", e.getMessage());
+		}
+	}
+
+	private void subscribe() {
+
+		while (!closed) {
+			try (Jedis jedis = jedisPool.getResource()) {
+				// 断线期间可能错过失效消息，重新订阅前清空 L1
+				cache.invalidateAll();
+				jedis.subscribe(listener, channel);
+			}
+			catch (RuntimeException e) {
+				if (closed) {
+					return;
+				}
+				logger.warn("Chat memory invalidation subscription lost, reconnecting: {}", e.getMessage());
+				try {
+					Thread.sleep(1000);
+				}
+				catch (InterruptedException interrupted) {
+					return;
+				}
+			}
+		}
+	}
+
+	private final class InvalidationListener extends JedisPubSub {
+
+		@Override
+		public void onMessage(String channel, String message) {
+
+			String[] parts = message.split(MESSAGE_SEPARATOR);
+			if (parts.length < 2 || nodeId.equals(parts[0])) {
+				return;
+			}
+			for (int i = 1; i < parts.length; i++) {
+				// 其他节点改写了 L2，下次写回前需要重新读取
+				persisted.invalidate(parts[i]);
+				// 本节点尚未写回的窗口更新，不能被其他节点覆盖
+				if (!pending.containsKey(parts[i])) {
+					cache.invalidate(parts[i]);
+				}
+			}
+		}
+	}
+
+	public static final class Builder {
+
+		private JedisPool jedisPool;
+
+		private String keyPrefix = "spring-ai-alibaba:chat-memory:";
+
+		private String channel = "spring-ai-alibaba:chat-memory:invalidation";
+
+		private long maximumSize = 10_000;
+
+		private Duration expireAfterAccess = Duration.ofMinutes(30);
+
+		private Duration flushInterval = Duration.ofMillis(500);
+
+		private Builder() {
+		}
+
+		public Builder jedisPool(JedisPool jedisPool) {
+			this.jedisPool = jedisPool;
+			return this;
+		}
+
+		public Builder keyPrefix(String keyPrefix) {
+			this.keyPrefix = keyPrefix;
+			return this;
+		}
+
+		public Builder channel(String channel) {
+			this.channel = channel;
+			return this;
+		}
+
+		public Builder maximumSize(long maximumSize) {
+			this.maximumSize = maximumSize;
+			return this;
+		}
+
+		public Builder expireAfterAccess(Duration expireAfterAccess) {
+			this.expireAfterAccess = expireAfterAccess;
+			return this;
+		}
+
+		public Builder flushInterval(Duration flushInterval) {
+			this.flushInterval = flushInterval;
+			return this;
+		}
+
+		public TieredChatMemoryRepository build() {
+
+			Assert.notNull(jedisPool, "jedisPool cannot be null");
+			Assert.hasText(keyPrefix, "keyPrefix cannot be null or empty");
+			Assert.hasText(channel, "channel cannot be null or empty");
+			Assert.isTrue(maximumSize > 0, "maximumSize must be greater than 0");
+			Assert.isTrue(expireAfterAccess != null && !expireAfterAccess.isNegative(),
+					"expireAfterAccess must not be negative");
+			Assert.isTrue(flushInterval != null && flushInterval.toMillis() > 0, "flushInterval must be greater than 0");
+			return new TieredChatMemoryRepository(this);
+		}
+	}
+
+}
@@ -19,6 +19,9 @@ package com.alibaba.cloud.ai.example.evaluation.controller;
 import com.alibaba.cloud.ai.evaluation.AnswerCorrectnessEvaluator;
 import com.alibaba.cloud.ai.evaluation.AnswerFaithfulnessEvaluator;
 import com.alibaba.cloud.ai.evaluation.AnswerRelevancyEvaluator;
+import com.alibaba.cloud.ai.example.evaluation.runner.DatasetEvaluationRunner;
+import com.alibaba.cloud.ai.example.evaluation.runner.EvaluationReport;
+import com.alibaba.cloud.ai.example.evaluation.runner.RagChatResponse;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
@@ -38,12 +41,17 @@ import org.springframework.ai.vectorstore.SearchRequest;
 import org.springframework.ai.vectorstore.SimpleVectorStore;
 import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.util.CollectionUtils;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.Duration;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -59,17 +67,28 @@ public class EvaluationController {
     private static final Logger log = LoggerFactory.getLogger(EvaluationController.class);
     private static final double SIMILARITY_THRESHOLD = 0.5d;
     private static final int TOP_K = 3;
-    private final ChatClient.Builder chatClientBuilder;
     private final ChatClient chatClient;
     private final VectorStore vectorStore;
     private final ObjectMapper objectMapper;
     private final Advisor ragAdvisor;
     private final Advisor loggerAdvisor;
+    // 评估器是无状态的, 只创建一次, 各个接口和数据集评估共用
+    private final Evaluator relevancyEvaluator;
+    private final Evaluator factCheckingEvaluator;
+    private final Evaluator answerRelevancyEvaluator;
+    private final Evaluator answerCorrectnessEvaluator;
+    private final Evaluator answerFaithfulnessEvaluator;
+    private final DatasetEvaluationRunner datasetRunner;
+    private final int defaultConcurrency;
+    private final int maxConcurrency;
 
     public EvaluationController(ChatClient.Builder chatClientBuilder,
                                 EmbeddingModel embeddingModel,
-                                ObjectMapper objectMapper) {
-        this.chatClientBuilder = chatClientBuilder;
+                                ObjectMapper objectMapper,
+                                @Value("${evaluation.runner.concurrency:8}") int defaultConcurrency,
+                                @Value("${evaluation.runner.max-concurrency:32}") int maxConcurrency,
+                                @Value("${evaluation.runner.max-attempts:3}") int maxAttempts,
+                                @Value("${evaluation.runner.initial-backoff:1s}") Duration initialBackoff) {
         this.chatClient = chatClientBuilder.build();
         this.vectorStore = SimpleVectorStore.builder(embeddingModel).build();
         this.objectMapper = objectMapper;
@@ -81,6 +100,29 @@ public class EvaluationController {
                         .build())
                 .build();
         this.loggerAdvisor = SimpleLoggerAdvisor.builder().build();
+        this.relevancyEvaluator = RelevancyEvaluator.builder().chatClientBuilder(chatClientBuilder).build();
+        this.factCheckingEvaluator = FactCheckingEvaluator.builder(chatClientBuilder).build();
+        this.answerRelevancyEvaluator = new AnswerRelevancyEvaluator(chatClientBuilder, objectMapper);
+        this.answerCorrectnessEvaluator = new AnswerCorrectnessEvaluator(chatClientBuilder);
+        this.answerFaithfulnessEvaluator = new AnswerFaithfulnessEvaluator(chatClientBuilder, objectMapper);
+
+        Map<String, DatasetEvaluationRunner.EvaluatorSpec> evaluators = new LinkedHashMap<>();
+        evaluators.put("relevancy", new DatasetEvaluationRunner.EvaluatorSpec(relevancyEvaluator,
+                (sample, rag) -> new EvaluationRequest(sample.query(), rag.documents(), rag.response())));
+        evaluators.put("fact-checking", new DatasetEvaluationRunner.EvaluatorSpec(factCheckingEvaluator,
+                (sample, rag) -> new EvaluationRequest(rag.documents(), rag.response())));
+        // 数据集提供了参考答案时, 以参考答案作为标准答案
+        evaluators.put("answer-relevancy", new DatasetEvaluationRunner.EvaluatorSpec(answerRelevancyEvaluator,
+                (sample, rag) -> new EvaluationRequest(sample.query(),
+                        sample.reference() != null ? List.of(new Document(sample.reference())) : rag.documents(),
+                        rag.response())));
+        evaluators.put("answer-correctness", new DatasetEvaluationRunner.EvaluatorSpec(answerCorrectnessEvaluator,
+                (sample, rag) -> new EvaluationRequest(sample.query(), rag.documents(), rag.response())));
+        evaluators.put("answer-faithfulness", new DatasetEvaluationRunner.EvaluatorSpec(answerFaithfulnessEvaluator,
+                (sample, rag) -> new EvaluationRequest(rag.documents(), rag.response())));
+        this.datasetRunner = new DatasetEvaluationRunner(this::ragChat, evaluators, maxAttempts, initialBackoff);
+        this.defaultConcurrency = defaultConcurrency;
+        this.maxConcurrency = Math.max(1, maxConcurrency);
     }
 
     @PostConstruct
@@ -113,7 +155,6 @@ public class EvaluationController {
         var context = ragChatResponse.documents();
         var response = ragChatResponse.response();
 
-        var evaluator = RelevancyEvaluator.builder().chatClientBuilder(chatClientBuilder).build();
         var evaluationRequest = new EvaluationRequest(
                 // Query
                 query,
@@ -122,7 +163,7 @@ public class EvaluationController {
                 // Response
                 response
         );
-        var pass = evaluate(evaluator, evaluationRequest);
+        var pass = evaluate(relevancyEvaluator, evaluationRequest);
 
         return pass ? response : "暂无数据";
     }
@@ -137,14 +178,13 @@ public class EvaluationController {
         var document = ragChatResponse.documents();
         var claim = ragChatResponse.response();
 
-        var evaluator = FactCheckingEvaluator.builder(chatClientBuilder).build();
         var evaluationRequest = new EvaluationRequest(
                 // Document
                 document,
                 // Claim
                 claim
         );
-        var pass = evaluate(evaluator, evaluationRequest);
+        var pass = evaluate(factCheckingEvaluator, evaluationRequest);
 
         return pass ? claim : "暂无数据";
     }
@@ -158,7 +198,6 @@ public class EvaluationController {
         var truthAnswer = ragChatResponse.documents();
         var studentAnswer = ragChatResponse.response();
 
-        var evaluator = new AnswerRelevancyEvaluator(chatClientBuilder, objectMapper);
         var evaluationRequest = new EvaluationRequest(
                 // QUESTION
                 query,
@@ -167,7 +206,7 @@ public class EvaluationController {
                 // STUDENT ANSWER
                 studentAnswer
         );
-        var pass = evaluate(evaluator, evaluationRequest);
+        var pass = evaluate(answerRelevancyEvaluator, evaluationRequest);
 
         return pass ? studentAnswer : "暂无数据";
     }
@@ -181,7 +220,6 @@ public class EvaluationController {
         var context = ragChatResponse.documents();
         var response = ragChatResponse.response();
 
-        var evaluator = new AnswerCorrectnessEvaluator(chatClientBuilder);
         var evaluationRequest = new EvaluationRequest(
                 // Query
                 query,
@@ -190,7 +228,7 @@ public class EvaluationController {
                 // Response
                 response
         );
-        var pass = evaluate(evaluator, evaluationRequest);
+        var pass = evaluate(answerCorrectnessEvaluator, evaluationRequest);
 
         return pass ? response : "暂无数据";
     }
@@ -204,18 +242,31 @@ public class EvaluationController {
         var facts = ragChatResponse.documents();
         var studentAnswer = ragChatResponse.response();
 
-        var evaluator = new AnswerFaithfulnessEvaluator(chatClientBuilder, objectMapper);
         var evaluationRequest = new EvaluationRequest(
                 // FACTS
                 facts,
                 // STUDENT ANSWER
                 studentAnswer
         );
-        var pass = evaluate(evaluator, evaluationRequest);
+        var pass = evaluate(answerFaithfulnessEvaluator, evaluationRequest);
 
         return pass ? studentAnswer : "暂无数据";
     }
 
+    /**
+     * 数据集评估, 请求体为JSONL, 每行一个样本, 例如 {"query": "中国的首都是哪里?", "reference": "北京"}.
+     * 每个问题只做一次RAG问答, 选中的评估器在同一个回答上并发评估, 返回各评估器的通过率和耗时分位数.
+     * concurrency 会被限制在 1 到 evaluation.runner.max-concurrency 之间
+     */
+    @PostMapping("/dataset")
+    public EvaluationReport dataset(@RequestBody String jsonl,
+                                    @RequestParam(value = "evaluators", required = false) List<String> evaluators,
+                                    @RequestParam(value = "concurrency", required = false) Integer concurrency) {
+        var samples = DatasetEvaluationRunner.parse(jsonl, objectMapper);
+        int requested = concurrency != null ? concurrency : defaultConcurrency;
+        return datasetRunner.run(samples, evaluators, Math.max(1, Math.min(requested, maxConcurrency)));
+    }
+
     private RagChatResponse ragChat(String query) {
         var chatResponse = chatClient
                 .prompt()
@@ -235,7 +286,4 @@ public class EvaluationController {
         log.info("AI模型评估结果: {}", pass);
         return pass;
     }
-
-    private record RagChatResponse(String query, List<Document> documents, String response) {
-    }
 }
@@ -0,0 +1,232 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.example.evaluation.runner;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.evaluation.EvaluationRequest;
+import org.springframework.ai.evaluation.Evaluator;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 数据集评估执行器
+ * 每个问题只做一次RAG问答, 所有评估器在同一个回答上并发评估;
+ * 同时进行的模型调用数不超过 concurrency, 单次调用失败时按指数退避重试.
+ */
+public class DatasetEvaluationRunner {
+    private static final Logger log = LoggerFactory.getLogger(DatasetEvaluationRunner.class);
+    private final Function<String, RagChatResponse> ragChat;
+    private final Map<String, EvaluatorSpec> evaluators;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+
+    /**
+     * 评估器及其评估请求的构造方式
+     */
+    public record EvaluatorSpec(Evaluator evaluator,
+                                BiFunction<EvaluationSample, RagChatResponse, EvaluationRequest> request) {
+    }
+
+    private static final class Stats {
+        private final AtomicInteger evaluated = new AtomicInteger();
+        private final AtomicInteger passed = new AtomicInteger();
+        private final AtomicInteger errors = new AtomicInteger();
+        private final ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+
+        EvaluationReport.EvaluatorStats toReport() {
+            int evaluatedCount = evaluated.get();
+            double passRate = evaluatedCount == 0 ? 0d : (double) passed.get() / evaluatedCount;
+            return new EvaluationReport.EvaluatorStats(evaluatedCount, passed.get(), errors.get(), passRate,
+                    EvaluationReport.Latency.of(new ArrayList<>(latencies)));
+        }
+    }
+
+    public DatasetEvaluationRunner(Function<String, RagChatResponse> ragChat,
+                                   Map<String, EvaluatorSpec> evaluators,
+                                   int maxAttempts,
+                                   Duration initialBackoff) {
+        this.ragChat = ragChat;
+        this.evaluators = evaluators;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoff = initialBackoff;
+    }
+
+    /**
+     * 解析JSONL数据集, 忽略空行
+     */
+    public static List<EvaluationSample> parse(String jsonl, ObjectMapper objectMapper) {
+        List<EvaluationSample> samples = new ArrayList<>();
+        String[] lines = jsonl.split("\\R");
+        for (int i = 0; i < lines.length; i++) {
+            if (!StringUtils.hasText(lines[i])) {
+                continue;
+            }
+            try {
+                EvaluationSample sample = objectMapper.readValue(lines[i], EvaluationSample.class);
+                if (!StringUtils.hasText(sample.query())) {
+                    throw new IllegalArgumentException("第 " + (i + 1) + " 行缺少 query");
+                }
+                samples.add(sample);
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException("第 " + (i + 1) + " 行不是合法的JSON: " + e.getOriginalMessage());
+            }
+        }
+        return samples;
+    }
+
+    /**
+     * 评估数据集
+     *
+     * @param samples        样本
+     * @param evaluatorNames 要运行的评估器, 为空时运行全部评估器
+     * @param concurrency    同时进行的模型调用数
+     */
+    public EvaluationReport run(List<EvaluationSample> samples, Collection<String> evaluatorNames, int concurrency) {
+        List<String> names = evaluatorNames == null || evaluatorNames.isEmpty()
+                ? List.copyOf(evaluators.keySet()) : List.copyOf(evaluatorNames);
+        for (String name : names) {
+            if (!evaluators.containsKey(name)) {
+                throw new IllegalArgumentException("未知的评估器: " + name + ", 可选值: " + evaluators.keySet());
+            }
+        }
+
+        Map<String, Stats> stats = new LinkedHashMap<>();
+        names.forEach(name -> stats.put(name, new Stats()));
+        ConcurrentLinkedQueue<Long> ragLatencies = new ConcurrentLinkedQueue<>();
+        ConcurrentLinkedQueue<EvaluationReport.Failure> failures = new ConcurrentLinkedQueue<>();
+        AtomicInteger failureCount = new AtomicInteger();
+        AtomicInteger ragFailures = new AtomicInteger();
+
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, concurrency));
+        // 限制同时处理中的样本数, 让早提交的样本尽快完成评估, 而不是先把所有问题都问完
+        Semaphore inFlight = new Semaphore(Math.max(1, concurrency) * 2);
+        List<CompletableFuture<Void>> tasks = new ArrayList<>(samples.size());
+        try {
+            for (EvaluationSample sample : samples) {
+                inFlight.acquireUninterruptibly();
+                CompletableFuture<Void> task = CompletableFuture
+                        .supplyAsync(() -> timed(ragLatencies, () -> withRetry(() -> ragChat.apply(sample.query()))),
+                                executor)
+                        .thenCompose(rag -> CompletableFuture.allOf(names.stream()
+                                .map(name -> CompletableFuture.runAsync(() -> evaluate(name, sample, rag,
+                                        stats.get(name), failures, failureCount), executor))
+                                .toArray(CompletableFuture[]::new)))
+                        .exceptionally(e -> {
+                            ragFailures.incrementAndGet();
+                            addFailure(failures, failureCount, sample.query(), "rag", message(e));
+                            return null;
+                        })
+                        .whenComplete((ignored, e) -> inFlight.release());
+                tasks.add(task);
+            }
+            CompletableFuture.allOf(tasks.toArray(CompletableFuture[]::new)).join();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Map<String, EvaluationReport.EvaluatorStats> evaluatorReports = new LinkedHashMap<>();
+        stats.forEach((name, stat) -> evaluatorReports.put(name, stat.toReport()));
+        EvaluationReport report = new EvaluationReport(samples.size(), ragFailures.get(),
+                Duration.ofNanos(System.nanoTime() - start).toMillis(),
+                EvaluationReport.Latency.of(new ArrayList<>(ragLatencies)), evaluatorReports, List.copyOf(failures));
+        log.info("数据集评估完成: 样本数 {}, 耗时 {} ms, RAG失败 {}", report.samples(), report.durationMs(),
+                report.ragFailures());
+        return report;
+    }
+
+    private void evaluate(String name, EvaluationSample sample, RagChatResponse rag, Stats stats,
+                          ConcurrentLinkedQueue<EvaluationReport.Failure> failures, AtomicInteger failureCount) {
+        EvaluatorSpec spec = evaluators.get(name);
+        try {
+            var evaluationResponse = timed(stats.latencies,
+                    () -> withRetry(() -> spec.evaluator().evaluate(spec.request().apply(sample, rag))));
+            stats.evaluated.incrementAndGet();
+            if (evaluationResponse.isPass()) {
+                stats.passed.incrementAndGet();
+            } else {
+                addFailure(failures, failureCount, sample.query(), name, null);
+            }
+        } catch (RuntimeException e) {
+            stats.errors.incrementAndGet();
+            addFailure(failures, failureCount, sample.query(), name, message(e));
+            log.debug("评估器 {} 评估失败: {}", name, sample.query(), e);
+        }
+    }
+
+    private <T> T withRetry(Supplier<T> call) {
+        RuntimeException last = null;
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            try {
+                return call.get();
+            } catch (RuntimeException e) {
+                last = e;
+                if (attempt < maxAttempts) {
+                    sleep(initialBackoff.multipliedBy(1L << (attempt - 1)));
+                }
+            }
+        }
+        throw last;
+    }
+
+    private static <T> T timed(Collection<Long> latencies, Supplier<T> call) {
+        long start = System.nanoTime();
+        T result = call.get();
+        latencies.add(Duration.ofNanos(System.nanoTime() - start).toMillis());
+        return result;
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("评估被中断", e);
+        }
+    }
+
+    private static void addFailure(ConcurrentLinkedQueue<EvaluationReport.Failure> failures, AtomicInteger failureCount,
+                                   String query, String evaluator, String reason) {
+        if (failureCount.incrementAndGet() <= EvaluationReport.MAX_FAILURES) {
+            failures.add(new EvaluationReport.Failure(query, evaluator, reason));
+        }
+    }
+
+    private static String message(Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        return cause.getClass().getSimpleName() + ": " + cause.getMessage();
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.example.evaluation.runner;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 数据集评估报告
+ *
+ * @param samples      样本数
+ * @param ragFailures  重试后RAG问答仍然失败的样本数
+ * @param durationMs   评估总耗时
+ * @param ragLatency   RAG问答耗时
+ * @param evaluators   每个评估器的通过率和耗时
+ * @param failures     未通过或出错的样本, 最多保留 MAX_FAILURES 条
+ */
+public record EvaluationReport(int samples,
+                               int ragFailures,
+                               long durationMs,
+                               Latency ragLatency,
+                               Map<String, EvaluatorStats> evaluators,
+                               List<Failure> failures) {
+
+    public static final int MAX_FAILURES = 100;
+
+    /**
+     * @param evaluated 完成评估的样本数
+     * @param passed    通过的样本数
+     * @param errors    重试后仍然出错的样本数
+     * @param passRate  通过率 passed / evaluated
+     * @param latency   单次评估耗时
+     */
+    public record EvaluatorStats(int evaluated, int passed, int errors, double passRate, Latency latency) {
+    }
+
+    /**
+     * 耗时分位数, 单位毫秒
+     */
+    public record Latency(long p50, long p90, long p99, long max) {
+
+        static Latency of(List<Long> latencies) {
+            if (latencies.isEmpty()) {
+                return new Latency(0, 0, 0, 0);
+            }
+            long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+            return new Latency(percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99),
+                    sorted[sorted.length - 1]);
+        }
+
+        private static long percentile(long[] sorted, double percentile) {
+            int index = (int) Math.ceil(percentile * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+        }
+    }
+
+    /**
+     * @param query     问题
+     * @param evaluator 未通过的评估器, RAG问答失败时为 rag
+     * @param reason    出错原因, 未通过时为空
+     */
+    public record Failure(String query, String evaluator, String reason) {
+    }
+}
@@ -0,0 +1,26 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.example.evaluation.runner;
+
+/**
+ * 评估数据集中的一条样本, 对应JSONL文件中的一行, 例如 {"query": "中国的首都是哪里?", "reference": "北京"}
+ *
+ * @param query     问题
+ * @param reference 参考答案, 可以为空; 不为空时作为 answer-relevancy 评估的标准答案
+ */
+public record EvaluationSample(String query, String reference) {
+}
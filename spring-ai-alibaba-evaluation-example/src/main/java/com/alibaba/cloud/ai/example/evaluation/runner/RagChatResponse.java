@@ -0,0 +1,31 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.example.evaluation.runner;
+
+import org.springframework.ai.document.Document;
+
+import java.util.List;
+
+/**
+ * 一次RAG问答的结果
+ *
+ * @param query     用户问题
+ * @param documents 检索到的上下文
+ * @param response  模型回答
+ */
+public record RagChatResponse(String query, List<Document> documents, String response) {
+}
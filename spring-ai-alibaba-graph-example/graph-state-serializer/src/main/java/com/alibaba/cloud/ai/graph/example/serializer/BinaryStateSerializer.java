@@ -0,0 +1,367 @@
+/*
+ * Copyright 2025-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.alibaba.cloud.ai.graph.example.serializer;
+
+import com.alibaba.cloud.ai.graph.OverAllState;
+import com.alibaba.cloud.ai.graph.serializer.plain_text.PlainTextStateSerializer;
+import com.alibaba.cloud.ai.graph.state.AgentStateFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.AssistantMessage.ToolCall;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.SystemMessage;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.messages.UserMessage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.StreamCorruptedException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 二进制状态序列化器
+ * <p>
+ * 1. 常用类型（字符串、数字、集合、Spring AI 消息）用带类型标记的二进制编码，字符串按长度前缀写入，没有 writeUTF 的 64KB 限制；
+ * 2. 其他类型用 Jackson 编码为 JSON 字节后按长度前缀写入，兼容之前的状态数据类型；
+ * 3. cloneObject 只复制 Map、List、Set 这些可变容器，字符串、数字和消息这些不可变值直接共享，不再经过 JSON 字符串往返。
+ * <p>
+ * 各示例的业务类型可以通过子类扩展：重写 {@link #writeCustom} / {@link #readCustom} 使用
+ * {@link #CUSTOM_TYPE_START} 及之后的类型标记编码，重写 {@link #isImmutable} 声明可以在复制时共享的不可变类型。
+ */
+public class BinaryStateSerializer extends PlainTextStateSerializer {
+
+    private static final byte VERSION = 1;
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte INTEGER = 2;
+    private static final byte LONG = 3;
+    private static final byte DOUBLE = 4;
+    private static final byte FLOAT = 5;
+    private static final byte BOOLEAN = 6;
+    private static final byte MAP = 7;
+    private static final byte LIST = 8;
+    private static final byte SET = 9;
+    private static final byte USER_MESSAGE = 10;
+    private static final byte SYSTEM_MESSAGE = 11;
+    private static final byte ASSISTANT_MESSAGE = 12;
+    private static final byte TOOL_RESPONSE_MESSAGE = 13;
+    private static final byte JSON = 99;
+
+    /**
+     * 子类自定义类型可用的类型标记范围：[CUSTOM_TYPE_START, JSON)
+     */
+    protected static final byte CUSTOM_TYPE_START = 64;
+
+    // 不认识的类型使用的 JSON 编码
+    private final ObjectMapper fallbackMapper;
+
+    public BinaryStateSerializer(AgentStateFactory<OverAllState> stateFactory, ObjectMapper fallbackMapper) {
+        super(stateFactory);
+        this.fallbackMapper = fallbackMapper;
+    }
+
+    @Override
+    public void writeData(Map<String, Object> data, ObjectOutput out) throws IOException {
+        out.writeByte(VERSION);
+        writeValue(data, out);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> readData(ObjectInput in) throws IOException, ClassNotFoundException {
+        byte version = in.readByte();
+        if (version != VERSION) {
+            throw new StreamCorruptedException("Unsupported state format version: " + version);
+        }
+        return (Map<String, Object>) readValue(in);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public OverAllState cloneObject(OverAllState state) throws IOException {
+        return stateFactory().apply((Map<String, Object>) copy(state.data()));
+    }
+
+    /**
+     * 结构共享的复制：可变容器逐层复制，不可变值直接共享，其他类型通过编码再解码复制
+     */
+    private Object copy(Object value) throws IOException {
+        if (value == null || isImmutable(value)) {
+            return value;
+        }
+        if (value instanceof Map<?, ?> map) {
+            Map<Object, Object> copy = new LinkedHashMap<>(capacity(map.size()));
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                copy.put(entry.getKey(), copy(entry.getValue()));
+            }
+            return copy;
+        }
+        if (value instanceof List<?> list) {
+            List<Object> copy = new ArrayList<>(list.size());
+            for (Object element : list) {
+                copy.add(copy(element));
+            }
+            return copy;
+        }
+        if (value instanceof Set<?> set) {
+            Set<Object> copy = new LinkedHashSet<>(capacity(set.size()));
+            for (Object element : set) {
+                copy.add(copy(element));
+            }
+            return copy;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        writeValue(value, new DataOutputStream(bytes));
+        try {
+            return readValue(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        } catch (ClassNotFoundException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * 消息在节点之间只会被追加和读取，不会被修改，可以共享
+     */
+    protected boolean isImmutable(Object value) {
+        return value instanceof String || value instanceof Number || value instanceof Boolean
+                || value instanceof Character || value instanceof Enum<?> || value instanceof Message;
+    }
+
+    /**
+     * 写入自定义类型，包括类型标记；返回 false 时使用 JSON 编码
+     */
+    protected boolean writeCustom(Object value, DataOutput out) throws IOException {
+        return false;
+    }
+
+    /**
+     * 读取 {@link #writeCustom} 写入的值，type 为已经读出的类型标记
+     */
+    protected Object readCustom(byte type, DataInput in) throws IOException, ClassNotFoundException {
+        throw new StreamCorruptedException("Unknown value type: " + type);
+    }
+
+    protected final void writeValue(Object value, DataOutput out) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof String string) {
+            out.writeByte(STRING);
+            writeString(string, out);
+        } else if (value instanceof Integer number) {
+            out.writeByte(INTEGER);
+            out.writeInt(number);
+        } else if (value instanceof Long number) {
+            out.writeByte(LONG);
+            out.writeLong(number);
+        } else if (value instanceof Double number) {
+            out.writeByte(DOUBLE);
+            out.writeDouble(number);
+        } else if (value instanceof Float number) {
+            out.writeByte(FLOAT);
+            out.writeFloat(number);
+        } else if (value instanceof Boolean bool) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean(bool);
+        } else if (value instanceof Map<?, ?> map) {
+            out.writeByte(MAP);
+            out.writeInt(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writeValue(entry.getKey(), out);
+                writeValue(entry.getValue(), out);
+            }
+        } else if (value instanceof List<?> list) {
+            out.writeByte(LIST);
+            writeElements(list, out);
+        } else if (value instanceof Set<?> set) {
+            out.writeByte(SET);
+            writeElements(set, out);
+        } else if (value instanceof UserMessage message && message.getMedia().isEmpty()) {
+            out.writeByte(USER_MESSAGE);
+            writeString(message.getText(), out);
+            writeValue(message.getMetadata(), out);
+        } else if (value instanceof SystemMessage message) {
+            out.writeByte(SYSTEM_MESSAGE);
+            writeString(message.getText(), out);
+            writeValue(message.getMetadata(), out);
+        } else if (value instanceof AssistantMessage message && message.getMedia().isEmpty()) {
+            out.writeByte(ASSISTANT_MESSAGE);
+            writeString(message.getText(), out);
+            writeValue(message.getMetadata(), out);
+            out.writeInt(message.getToolCalls().size());
+            for (ToolCall toolCall : message.getToolCalls()) {
+                writeString(toolCall.id(), out);
+                writeString(toolCall.type(), out);
+                writeString(toolCall.name(), out);
+                writeString(toolCall.arguments(), out);
+            }
+        } else if (value instanceof ToolResponseMessage message) {
+            out.writeByte(TOOL_RESPONSE_MESSAGE);
+            out.writeInt(message.getResponses().size());
+            for (ToolResponseMessage.ToolResponse response : message.getResponses()) {
+                writeString(response.id(), out);
+                writeString(response.name(), out);
+                writeString(response.responseData(), out);
+            }
+            writeValue(message.getMetadata(), out);
+        } else if (!writeCustom(value, out)) {
+            out.writeByte(JSON);
+            writeString(value.getClass().getName(), out);
+            writeBytes(fallbackMapper.writeValueAsBytes(value), out);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    protected final Object readValue(DataInput in) throws IOException, ClassNotFoundException {
+        byte type = in.readByte();
+        switch (type) {
+            case NULL:
+                return null;
+            case STRING:
+                return readString(in);
+            case INTEGER:
+                return in.readInt();
+            case LONG:
+                return in.readLong();
+            case DOUBLE:
+                return in.readDouble();
+            case FLOAT:
+                return in.readFloat();
+            case BOOLEAN:
+                return in.readBoolean();
+            case MAP: {
+                int size = in.readInt();
+                Map<Object, Object> map = new LinkedHashMap<>(capacity(size));
+                for (int i = 0; i < size; i++) {
+                    map.put(readValue(in), readValue(in));
+                }
+                return map;
+            }
+            case LIST: {
+                int size = in.readInt();
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(in));
+                }
+                return list;
+            }
+            case SET: {
+                int size = in.readInt();
+                Set<Object> set = new LinkedHashSet<>(capacity(size));
+                for (int i = 0; i < size; i++) {
+                    set.add(readValue(in));
+                }
+                return set;
+            }
+            case USER_MESSAGE:
+                return UserMessage.builder()
+                    .text(readString(in))
+                    .metadata((Map<String, Object>) readValue(in))
+                    .build();
+            case SYSTEM_MESSAGE:
+                return SystemMessage.builder()
+                    .text(readString(in))
+                    .metadata((Map<String, Object>) readValue(in))
+                    .build();
+            case ASSISTANT_MESSAGE: {
+                String text = readString(in);
+                Map<String, Object> metadata = (Map<String, Object>) readValue(in);
+                int size = in.readInt();
+                List<ToolCall> toolCalls = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    toolCalls.add(new ToolCall(readString(in), readString(in), readString(in), readString(in)));
+                }
+                return AssistantMessage.builder()
+                    .content(text)
+                    .properties(metadata)
+                    .toolCalls(toolCalls)
+                    .build();
+            }
+            case TOOL_RESPONSE_MESSAGE: {
+                int size = in.readInt();
+                List<ToolResponseMessage.ToolResponse> responses = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    responses.add(new ToolResponseMessage.ToolResponse(readString(in), readString(in), readString(in)));
+                }
+                return ToolResponseMessage.builder()
+                    .responses(responses)
+                    .metadata((Map<String, Object>) readValue(in))
+                    .build();
+            }
+            case JSON: {
+                Class<?> valueType = Class.forName(readString(in), false, getClass().getClassLoader());
+                return fallbackMapper.readValue(readBytes(in), valueType);
+            }
+            default:
+                return readCustom(type, in);
+        }
+    }
+
+    private void writeElements(Collection<?> elements, DataOutput out) throws IOException {
+        out.writeInt(elements.size());
+        for (Object element : elements) {
+            writeValue(element, out);
+        }
+    }
+
+    protected static void writeString(String value, DataOutput out) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        writeBytes(value.getBytes(StandardCharsets.UTF_8), out);
+    }
+
+    protected static String readString(DataInput in) throws IOException {
+        byte[] bytes = readBytes(in);
+        return bytes != null ? new String(bytes, StandardCharsets.UTF_8) : null;
+    }
+
+    private static void writeBytes(byte[] bytes, DataOutput out) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    private static int capacity(int size) {
+        return (int) (size / 0.75f) + 1;
+    }
+}
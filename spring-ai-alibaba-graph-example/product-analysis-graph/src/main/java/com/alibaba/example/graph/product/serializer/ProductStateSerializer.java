@@ -13,58 +13,75 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-
 package com.alibaba.example.graph.product.serializer;
 
 import com.alibaba.cloud.ai.graph.OverAllState;
-import com.alibaba.cloud.ai.graph.serializer.plain_text.PlainTextStateSerializer;
+import com.alibaba.cloud.ai.graph.example.serializer.BinaryStateSerializer;
 import com.alibaba.cloud.ai.graph.state.AgentStateFactory;
+import com.alibaba.example.graph.product.model.Product;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.IOException;
-import java.io.ObjectInput;
-import java.io.ObjectOutput;
-import java.util.Map;
+import java.util.List;
 
-// Custom StateSerializer for Product object serialization with type information
-public class ProductStateSerializer extends PlainTextStateSerializer {
+/**
+ * Binary StateSerializer for the product analysis graph.
+ * <p>
+ * Reuses the shared {@link BinaryStateSerializer} codec and adds a binary tag for {@link Product}; other values
+ * that have no tag fall back to Jackson with default typing.
+ */
+public class ProductStateSerializer extends BinaryStateSerializer {
 
-    private final ObjectMapper mapper;
+    private static final byte PRODUCT = CUSTOM_TYPE_START;
 
     public ProductStateSerializer(AgentStateFactory<OverAllState> stateFactory) {
-        super(stateFactory);
-        this.mapper = new ObjectMapper();
-        // Enable default typing to handle custom objects like Product
-        this.mapper.activateDefaultTyping(
-                this.mapper.getPolymorphicTypeValidator(),
+        super(stateFactory, fallbackMapper());
+    }
+
+    private static ObjectMapper fallbackMapper() {
+        ObjectMapper mapper = new ObjectMapper();
+        // Enable default typing to handle custom objects in the fallback encoding
+        mapper.activateDefaultTyping(
+                mapper.getPolymorphicTypeValidator(),
                 ObjectMapper.DefaultTyping.NON_FINAL,
                 JsonTypeInfo.As.PROPERTY
         );
         // Exclude null values from serialization
-        this.mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        return mapper;
     }
 
+    /**
+     * Product is a record, so it can be shared between state copies.
+     */
     @Override
-    public void writeData(Map<String, Object> data, ObjectOutput out) throws IOException {
-        String json = mapper.writeValueAsString(data);
-        out.writeUTF(json);
+    protected boolean isImmutable(Object value) {
+        return super.isImmutable(value) || value instanceof Product;
     }
 
     @Override
-    public Map<String, Object> readData(ObjectInput in) throws IOException {
-        String json = in.readUTF();
-        return mapper.readValue(json, new TypeReference<Map<String, Object>>() {
-        });
+    protected boolean writeCustom(Object value, DataOutput out) throws IOException {
+        if (!(value instanceof Product product)) {
+            return false;
+        }
+        out.writeByte(PRODUCT);
+        writeString(product.slogan(), out);
+        writeString(product.material(), out);
+        writeValue(product.colors(), out);
+        writeString(product.season(), out);
+        return true;
     }
 
     @Override
-    public OverAllState cloneObject(OverAllState state) throws IOException {
-        String json = mapper.writeValueAsString(state.data());
-        Map<String, Object> rawMap = mapper.readValue(json, new TypeReference<Map<String, Object>>() {
-        });
-        return stateFactory().apply(rawMap);
+    @SuppressWarnings("unchecked")
+    protected Object readCustom(byte type, DataInput in) throws IOException, ClassNotFoundException {
+        if (type == PRODUCT) {
+            return new Product(readString(in), readString(in), (List<String>) readValue(in), readString(in));
+        }
+        return super.readCustom(type, in);
     }
 }
@@ -31,9 +31,11 @@ import com.alibaba.cloud.ai.graph.state.AgentStateFactory;
 import com.alibaba.cloud.ai.graph.state.strategy.ReplaceStrategy;
 import com.alibaba.cloud.ai.graph.dispatcher.HumanFeedbackDispatcher;
 import com.alibaba.cloud.ai.graph.dispatcher.SensitiveDispatcher;
+import com.alibaba.cloud.ai.graph.example.serializer.BinaryStateSerializer;
 import com.alibaba.cloud.ai.graph.nodes.ClftNode;
 import com.alibaba.cloud.ai.graph.nodes.HumanFeedbackNode;
 import com.alibaba.cloud.ai.graph.nodes.SensitiveWordDecNode;
+import com.alibaba.cloud.ai.graph.sensitive.SensitiveWordMatcher;
 import com.alibaba.cloud.ai.graph.tools.FieldSaveTool;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -68,6 +70,7 @@ public class SecGraphBuilder {
     public StateGraph secGraph(ChatClient.Builder chatClientBuilder,
                                @Qualifier("classificationVectorStore") VectorStore classificationVectorStore,
                                FieldSaveTool toolBack,
+                               SensitiveWordMatcher sensitiveWordMatcher,
                                ToolCallbackResolver toolCallbackResolver
     ) throws GraphStateException {
         KeyStrategyFactory keyStrategyFactory = new KeyStrategyFactoryBuilder()
@@ -95,11 +98,12 @@ public class SecGraphBuilder {
         module.addDeserializer(ToolResponseMessage.class, new ToolResponseMessageDeserializer());
         mapper.registerModule(module);
 
-        JsonStateSerializerWithTypeInfo serializer = new JsonStateSerializerWithTypeInfo(factory, mapper);
+        // 常用类型二进制编码，其余类型用上面的 mapper 编码
+        BinaryStateSerializer serializer = new BinaryStateSerializer(factory, mapper);
 
         StateGraph stateGraph = new StateGraph(keyStrategyFactory, serializer);
         stateGraph.addEdge(START, "sensitive")
-                .addNode("sensitive", node_async(new SensitiveWordDecNode()))
+                .addNode("sensitive", node_async(new SensitiveWordDecNode(sensitiveWordMatcher)))
                 .addNode("answer", node_async(AnswerNode.builder().answer("您的输入{{field}}包含了敏感内容！").build()))
                 .addEdge("answer", StateGraph.END)
                 .addNode("clft", node_async(new ClftNode(chatClientBuilder, classificationVectorStore, toolBack)))
@@ -19,11 +19,11 @@ package com.alibaba.cloud.ai.graph.nodes;
 
 import com.alibaba.cloud.ai.graph.OverAllState;
 import com.alibaba.cloud.ai.graph.action.NodeAction;
+import com.alibaba.cloud.ai.graph.sensitive.SensitiveWordMatcher;
 import lombok.extern.slf4j.Slf4j;
 
 
 import java.util.Map;
-import java.util.Set;
 
 /**
  * @author yHong
@@ -34,9 +34,16 @@ import java.util.Set;
 public class SensitiveWordDecNode implements NodeAction {
     public static final String OUTPUT_KEY = "is_sensitive";
 
+    private final SensitiveWordMatcher matcher;
+
+    public SensitiveWordDecNode(SensitiveWordMatcher matcher) {
+        this.matcher = matcher;
+    }
+
     @Override
     public Map<String, Object> apply(OverAllState state) throws Exception {
-        Set<String> black = Set.of("暴力", "中国民主党");
-        return Map.of(OUTPUT_KEY, black.contains(state.value("field").orElse("")) ? "yes" : "no");
+        // 字段中任意位置出现敏感词都算敏感
+        String field = String.valueOf(state.value("field").orElse(""));
+        return Map.of(OUTPUT_KEY, matcher.containsAny(field) ? "yes" : "no");
     }
 }
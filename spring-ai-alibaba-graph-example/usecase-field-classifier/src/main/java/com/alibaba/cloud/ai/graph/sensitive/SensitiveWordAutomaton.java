@@ -0,0 +1,200 @@
+/*
+ * Copyright 2025-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.alibaba.cloud.ai.graph.sensitive;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 敏感词 Aho-Corasick 自动机
+ * <p>
+ * 字符 trie 加失败指针，构建后不可变，可以被多个线程同时使用；扫描输入只需要一遍，耗时与词库大小无关。
+ * 每个状态的子节点按字符排序保存在连续数组中，查找转移时二分，内存占用与词库总字符数成正比。
+ * 匹配忽略英文大小写。
+ */
+public final class SensitiveWordAutomaton {
+
+    private static final int ROOT = 0;
+
+    private static final int NO_WORD = -1;
+
+    private final String[] words;
+
+    // 状态 s 的子节点为 childChars/childStates 中 [childStart[s], childStart[s + 1]) 的部分
+    private final int[] childStart;
+
+    private final char[] childChars;
+
+    private final int[] childStates;
+
+    private final int[] fail;
+
+    // 在状态 s 结束的词，没有时为 NO_WORD
+    private final int[] word;
+
+    // 沿失败指针能到达的最近一个有词结束的状态，没有时为 ROOT
+    private final int[] output;
+
+    private SensitiveWordAutomaton(String[] words, int[] childStart, char[] childChars, int[] childStates,
+                                   int[] fail, int[] word, int[] output) {
+        this.words = words;
+        this.childStart = childStart;
+        this.childChars = childChars;
+        this.childStates = childStates;
+        this.fail = fail;
+        this.word = word;
+        this.output = output;
+    }
+
+    /**
+     * 编译词库，空白词和重复词会被忽略
+     */
+    public static SensitiveWordAutomaton compile(Collection<String> terms) {
+        // 1.构建 trie，状态按创建顺序编号
+        List<TreeMap<Character, Integer>> children = new ArrayList<>();
+        List<String> words = new ArrayList<>();
+        List<Integer> wordOf = new ArrayList<>();
+        children.add(new TreeMap<>());
+        wordOf.add(NO_WORD);
+        for (String term : terms) {
+            String normalized = term == null ? "" : term.strip();
+            if (normalized.isEmpty()) {
+                continue;
+            }
+            int state = ROOT;
+            for (int i = 0; i < normalized.length(); i++) {
+                char c = normalize(normalized.charAt(i));
+                Integer next = children.get(state).get(c);
+                if (next == null) {
+                    next = children.size();
+                    children.get(state).put(c, next);
+                    children.add(new TreeMap<>());
+                    wordOf.add(NO_WORD);
+                }
+                state = next;
+            }
+            if (wordOf.get(state) == NO_WORD) {
+                wordOf.set(state, words.size());
+                words.add(normalized);
+            }
+        }
+
+        // 2.压缩为数组
+        int states = children.size();
+        int[] childStart = new int[states + 1];
+        for (int s = 0; s < states; s++) {
+            childStart[s + 1] = childStart[s] + children.get(s).size();
+        }
+        char[] childChars = new char[childStart[states]];
+        int[] childStates = new int[childStart[states]];
+        for (int s = 0; s < states; s++) {
+            int index = childStart[s];
+            for (Map.Entry<Character, Integer> entry : children.get(s).entrySet()) {
+                childChars[index] = entry.getKey();
+                childStates[index] = entry.getValue();
+                index++;
+            }
+        }
+        int[] word = wordOf.stream().mapToInt(Integer::intValue).toArray();
+
+        // 3.按层次遍历计算失败指针和输出指针
+        int[] fail = new int[states];
+        int[] output = new int[states];
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int i = childStart[ROOT]; i < childStart[ROOT + 1]; i++) {
+            queue.add(childStates[i]);
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (int i = childStart[state]; i < childStart[state + 1]; i++) {
+                int child = childStates[i];
+                char c = childChars[i];
+                int f = fail[state];
+                int target;
+                while ((target = find(childStart, childChars, childStates, f, c)) < 0 && f != ROOT) {
+                    f = fail[f];
+                }
+                fail[child] = target >= 0 ? target : ROOT;
+                output[child] = word[fail[child]] != NO_WORD ? fail[child] : output[fail[child]];
+                queue.add(child);
+            }
+        }
+        return new SensitiveWordAutomaton(words.toArray(String[]::new), childStart, childChars, childStates, fail,
+                word, output);
+    }
+
+    /**
+     * 输入中是否包含任意一个敏感词
+     */
+    public boolean containsAny(CharSequence text) {
+        int state = ROOT;
+        for (int i = 0; i < text.length(); i++) {
+            state = next(state, normalize(text.charAt(i)));
+            if (word[state] != NO_WORD || output[state] != ROOT) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 找出输入中出现的所有敏感词，按结束位置排序，重复出现的词只返回一次
+     */
+    public List<String> findAll(CharSequence text) {
+        List<String> found = new ArrayList<>();
+        boolean[] seen = new boolean[words.length];
+        int state = ROOT;
+        for (int i = 0; i < text.length(); i++) {
+            state = next(state, normalize(text.charAt(i)));
+            for (int s = word[state] != NO_WORD ? state : output[state]; s != ROOT; s = output[s]) {
+                if (!seen[word[s]]) {
+                    seen[word[s]] = true;
+                    found.add(words[word[s]]);
+                }
+            }
+        }
+        return found;
+    }
+
+    public int size() {
+        return words.length;
+    }
+
+    private int next(int state, char c) {
+        int target;
+        while ((target = find(childStart, childChars, childStates, state, c)) < 0 && state != ROOT) {
+            state = fail[state];
+        }
+        return target >= 0 ? target : ROOT;
+    }
+
+    private static int find(int[] childStart, char[] childChars, int[] childStates, int state, char c) {
+        int index = Arrays.binarySearch(childChars, childStart[state], childStart[state + 1], c);
+        return index >= 0 ? childStates[index] : -1;
+    }
+
+    private static char normalize(char c) {
+        return c < 128 ? Character.toLowerCase(c) : c;
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2025-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.alibaba.cloud.ai.graph.sensitive;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 敏感词匹配器
+ * <p>
+ * 1. 从 sensitive-words.location 加载词库，每行一个词，空行和 # 开头的行会被忽略；
+ * 2. 词库是本地文件时，每隔 reload-interval 检查一次修改时间，有变化就在后台重新编译，编译完成后整体替换，
+ *    替换前后的查询分别使用完整的旧词库和新词库，加载失败时继续使用旧词库。
+ */
+@Slf4j
+@Component
+public class SensitiveWordMatcher {
+
+    private final Resource resource;
+
+    private final ScheduledExecutorService reloader;
+
+    private volatile SensitiveWordAutomaton automaton;
+
+    private volatile long lastModified;
+
+    public SensitiveWordMatcher(ResourceLoader resourceLoader,
+                                @Value("${sensitive-words.location:classpath:sensitive-words.txt}") String location,
+                                @Value("${sensitive-words.reload-interval:10s}") Duration reloadInterval) throws IOException {
+        this.resource = resourceLoader.getResource(location);
+        this.lastModified = lastModified();
+        this.automaton = SensitiveWordAutomaton.compile(load(resource));
+        log.info("已加载 {} 个敏感词: {}", automaton.size(), location);
+
+        if (resource.isFile() && !reloadInterval.isZero()) {
+            this.reloader = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "sensitive-words-reload");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.reloader.scheduleWithFixedDelay(this::reloadIfModified, reloadInterval.toMillis(),
+                    reloadInterval.toMillis(), TimeUnit.MILLISECONDS);
+        } else {
+            this.reloader = null;
+        }
+    }
+
+    /**
+     * 输入中是否包含敏感词
+     */
+    public boolean containsAny(CharSequence text) {
+        return automaton.containsAny(text);
+    }
+
+    /**
+     * 输入中出现的所有敏感词
+     */
+    public List<String> findAll(CharSequence text) {
+        return automaton.findAll(text);
+    }
+
+    /**
+     * 立即重新加载词库
+     */
+    public void reload() throws IOException {
+        long modified = lastModified();
+        SensitiveWordAutomaton reloaded = SensitiveWordAutomaton.compile(load(resource));
+        automaton = reloaded;
+        lastModified = modified;
+        log.info("已重新加载 {} 个敏感词", reloaded.size());
+    }
+
+    @PreDestroy
+    public void close() {
+        if (reloader != null) {
+            reloader.shutdownNow();
+        }
+    }
+
+    private void reloadIfModified() {
+        try {
+            if (lastModified() != lastModified) {
+                reload();
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("重新加载敏感词失败，继续使用旧词库: {}", e.getMessage());
+        }
+    }
+
+    private long lastModified() throws IOException {
+        return resource.isFile() ? resource.lastModified() : 0L;
+    }
+
+    static List<String> load(Resource resource) throws IOException {
+        List<String> terms = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String term = line.strip();
+                if (!term.isEmpty() && !term.startsWith("#")) {
+                    terms.add(term);
+                }
+            }
+        }
+        return terms;
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2025-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.alibaba.cloud.ai.graph.sensitive;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SensitiveWordAutomatonTests {
+
+    @Test
+    void overlappingTermsAreAllFound() {
+        SensitiveWordAutomaton automaton = SensitiveWordAutomaton.compile(List.of("he", "she", "his", "hers"));
+
+        // "she" 和 "he" 都在下标 3 结束，"hers" 在下标 5 结束
+        assertEquals(List.of("she", "he", "hers"), automaton.findAll("ushers"));
+        assertTrue(automaton.containsAny("ushers"));
+    }
+
+    @Test
+    void suffixTermIsReachedThroughFailureLink() {
+        // 扫描 "abcd" 时停在 trie 的 abc 分支上，"bc" 和 "c" 只能通过失败指针和输出指针找到
+        SensitiveWordAutomaton automaton = SensitiveWordAutomaton.compile(List.of("abcx", "bc", "c"));
+
+        assertEquals(List.of("bc", "c"), automaton.findAll("abcd"));
+        assertTrue(automaton.containsAny("abcd"));
+        assertFalse(automaton.containsAny("abd"));
+    }
+
+    @Test
+    void findAllIsOrderedByEndPositionAndDeduplicated() {
+        SensitiveWordAutomaton automaton = SensitiveWordAutomaton.compile(List.of("身份证", "手机", "手机号", "地址"));
+
+        assertEquals(List.of("地址", "手机", "手机号", "身份证"), automaton.findAll("地址和手机号码，以及身份证、手机"));
+        assertEquals(List.of(), automaton.findAll("普通的文本"));
+    }
+
+    @Test
+    void matchingIgnoresAsciiCaseAndSkipsBlankTerms() {
+        SensitiveWordAutomaton automaton = SensitiveWordAutomaton.compile(Arrays.asList("Password", " ", null, "password"));
+
+        assertEquals(1, automaton.size());
+        assertEquals(List.of("Password"), automaton.findAll("my PASSWORD is"));
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2025-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.alibaba.cloud.ai.graph.sensitive;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 敏感词匹配基准测试：Aho-Corasick 自动机与逐个 contains 的对比
+ * <p>
+ * 运行方式：mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.alibaba.cloud.ai.graph.sensitive.SensitiveWordMatcherBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SensitiveWordMatcherBenchmark {
+
+    // 词库使用常用汉字区间的前 3000 个字
+    private static final char LEXICON_START = 0x4E00;
+
+    private static final int LEXICON_RANGE = 3000;
+
+    // 干净文本使用紧随其后、与词库不相交的 3000 个汉字
+    private static final char CLEAN_START = LEXICON_START + LEXICON_RANGE;
+
+    @Param({"1000", "50000"})
+    private int termCount;
+
+    // 待检测字段的长度，分类图中的字段通常很短
+    @Param({"32", "1024"})
+    private int textLength;
+
+    private List<String> terms;
+
+    private SensitiveWordAutomaton automaton;
+
+    private String cleanText;
+
+    private String dirtyText;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        terms = new ArrayList<>(termCount);
+        for (int i = 0; i < termCount; i++) {
+            terms.add(randomChinese(random, 2 + random.nextInt(4)));
+        }
+        automaton = SensitiveWordAutomaton.compile(terms);
+
+        // 干净文本同样使用汉字，但取自词库之外的区间，保证一定不命中；
+        // 若使用 ASCII，String.contains 会因为编码（LATIN1/UTF16）不同直接返回，对比失真
+        StringBuilder clean = new StringBuilder(textLength);
+        while (clean.length() < textLength) {
+            clean.append((char) (CLEAN_START + random.nextInt(LEXICON_RANGE)));
+        }
+        cleanText = clean.toString();
+        String hit = terms.get(termCount / 2);
+        dirtyText = cleanText.substring(0, textLength - hit.length()) + hit;
+    }
+
+    @Benchmark
+    public boolean automatonClean() {
+        return automaton.containsAny(cleanText);
+    }
+
+    @Benchmark
+    public boolean automatonDirty() {
+        return automaton.containsAny(dirtyText);
+    }
+
+    @Benchmark
+    public boolean naiveClean() {
+        return naiveContains(cleanText);
+    }
+
+    @Benchmark
+    public boolean naiveDirty() {
+        return naiveContains(dirtyText);
+    }
+
+    private boolean naiveContains(String text) {
+        for (String term : terms) {
+            if (text.contains(term)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String randomChinese(Random random, int length) {
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            builder.append((char) (LEXICON_START + random.nextInt(LEXICON_RANGE)));
+        }
+        return builder.toString();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SensitiveWordMatcherBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
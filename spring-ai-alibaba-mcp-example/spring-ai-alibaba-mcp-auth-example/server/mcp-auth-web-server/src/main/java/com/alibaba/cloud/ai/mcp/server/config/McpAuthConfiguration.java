@@ -0,0 +1,39 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.mcp.server.config;
+
+import com.alibaba.cloud.ai.mcp.server.filter.LocalKeyTokenValidator;
+import com.alibaba.cloud.ai.mcp.server.filter.TokenValidator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 默认使用本地配置的 token 集合做验证，声明自定义的 {@link TokenValidator} Bean 即可替换
+ *
+ * @author yingzi
+ */
+@Configuration
+@EnableConfigurationProperties(McpAuthProperties.class)
+public class McpAuthConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public TokenValidator localKeyTokenValidator(McpAuthProperties properties) {
+        return new LocalKeyTokenValidator(properties.tokens());
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.mcp.server.config;
+
+import java.time.Duration;
+import java.util.Set;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * MCP 服务端认证配置
+ *
+ * @param header 携带 token 的请求头
+ * @param tokens 本地允许访问的 token 集合
+ * @param cacheTtl 验证通过的 token 在缓存中保留的时间，过期后重新验证
+ * @param cacheMaximumSize 缓存的 token 数量上限，超出后淘汰最久未使用的 token
+ * @author yingzi
+ */
+@ConfigurationProperties(prefix = McpAuthProperties.AUTH_PREFIX)
+public record McpAuthProperties(@DefaultValue("token-1") String header,
+                                @DefaultValue("yingzi-1") Set<String> tokens,
+                                @DefaultValue("5m") Duration cacheTtl,
+                                @DefaultValue("10000") int cacheMaximumSize) {
+
+    public static final String AUTH_PREFIX = "mcp.server.auth";
+}
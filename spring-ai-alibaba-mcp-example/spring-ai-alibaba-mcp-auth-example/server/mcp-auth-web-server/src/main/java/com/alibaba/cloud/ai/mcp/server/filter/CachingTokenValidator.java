@@ -0,0 +1,88 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.mcp.server.filter;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * 缓存验证通过的 token，缓存按 TTL 过期，超出容量时淘汰最久未使用的 token。
+ * 验证失败的 token 不缓存，避免随机 token 把有效 token 挤出缓存。
+ *
+ * @author yingzi
+ */
+public class CachingTokenValidator implements TokenValidator {
+
+    private static final Mono<Boolean> VALID = Mono.just(true);
+
+    private final TokenValidator delegate;
+
+    private final long ttlNanos;
+
+    /**
+     * token -> 过期时间（System.nanoTime）
+     */
+    private final Map<String, Long> validated;
+
+    public CachingTokenValidator(TokenValidator delegate, Duration ttl, int maximumSize) {
+        this.delegate = delegate;
+        this.ttlNanos = ttl.toNanos();
+        this.validated = new LinkedHashMap<String, Long>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > maximumSize;
+            }
+        };
+    }
+
+    @Override
+    public Mono<Boolean> validate(String token) {
+        if (isCached(token)) {
+            return VALID;
+        }
+        return delegate.validate(token)
+                .doOnNext(valid -> {
+                    if (valid) {
+                        cache(token);
+                    }
+                });
+    }
+
+    private boolean isCached(String token) {
+        long now = System.nanoTime();
+        synchronized (validated) {
+            Long expiresAt = validated.get(token);
+            if (expiresAt == null) {
+                return false;
+            }
+            if (now - expiresAt >= 0) {
+                validated.remove(token);
+                return false;
+            }
+            return true;
+        }
+    }
+
+    private void cache(String token) {
+        long expiresAt = System.nanoTime() + ttlNanos;
+        synchronized (validated) {
+            validated.put(token, expiresAt);
+        }
+    }
+}
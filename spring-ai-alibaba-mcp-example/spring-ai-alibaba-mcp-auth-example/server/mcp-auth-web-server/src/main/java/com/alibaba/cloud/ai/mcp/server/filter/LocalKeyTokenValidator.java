@@ -0,0 +1,44 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.mcp.server.filter;
+
+import java.util.Collection;
+import java.util.Set;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * 基于本地 token 集合的验证，只做一次哈希查找，不产生 I/O
+ *
+ * @author yingzi
+ */
+public class LocalKeyTokenValidator implements TokenValidator {
+
+    private static final Mono<Boolean> VALID = Mono.just(true);
+
+    private static final Mono<Boolean> INVALID = Mono.just(false);
+
+    private final Set<String> tokens;
+
+    public LocalKeyTokenValidator(Collection<String> tokens) {
+        this.tokens = Set.copyOf(tokens);
+    }
+
+    @Override
+    public Mono<Boolean> validate(String token) {
+        return tokens.contains(token) ? VALID : INVALID;
+    }
+}
@@ -15,50 +15,82 @@
  */
 package com.alibaba.cloud.ai.mcp.server.filter;
 
+import com.alibaba.cloud.ai.mcp.server.config.McpAuthProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
 import org.springframework.web.server.ServerWebExchange;
 import org.springframework.web.server.WebFilter;
 import org.springframework.web.server.WebFilterChain;
 import reactor.core.publisher.Mono;
 
 /**
+ * MCP 请求认证过滤器，token 验证委托给 {@link TokenValidator}，验证通过的 token 会被缓存
+ *
  * @author yingzi
  * @since 2025/9/17
  */
 @Component
 public class McpServerFilter implements WebFilter {
 
-    private static final String TOKEN_HEADER = "token-1";
-    private static final String TOKEN_VALUE = "yingzi-1";
-
     private static final Logger logger = LoggerFactory.getLogger(McpServerFilter.class);
 
+    private final String tokenHeader;
+
+    private final TokenValidator tokenValidator;
+
+    public McpServerFilter(McpAuthProperties properties, TokenValidator tokenValidator) {
+        this.tokenHeader = properties.header();
+        this.tokenValidator = new CachingTokenValidator(tokenValidator, properties.cacheTtl(),
+                properties.cacheMaximumSize());
+    }
+
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
         // 获取请求头中的token值
         HttpHeaders headers = exchange.getRequest().getHeaders();
-        // 打印所有请求头信息
-        for (String headerName : headers.keySet()) {
-            logger.info("Header {}: {}", headerName, headers.getFirst(headerName));
+        // 请求头只在 debug 级别打印，避免高并发下的日志开销；携带凭证的请求头只打印掩码
+        if (logger.isDebugEnabled()) {
+            for (String headerName : headers.keySet()) {
+                logger.debug("Header {}: {}", headerName,
+                        isCredentialHeader(headerName) ? "******" : headers.getFirst(headerName));
+            }
         }
 
-        String token = headers.getFirst(TOKEN_HEADER);
-        // 检查token是否存在且值正确
-        if (TOKEN_VALUE.equals(token)) {
-            logger.info("preHandle: 验证通过");
-            logger.info("preHandle: 请求的URL: {}", exchange.getRequest().getURI());
-            logger.info("preHandle: 请求的TOKEN: {}", token);
-            // token验证通过，继续处理请求
-            return chain.filter(exchange);
-        } else {
-            // token验证失败，返回401未授权错误
-            logger.warn("Token验证失败: 请求的URL: {}, 提供的TOKEN: {}", exchange.getRequest().getURI(), token);
-            logger.warn("要求的token为：{}", TOKEN_VALUE);
-            exchange.getResponse().setStatusCode(org.springframework.http.HttpStatus.UNAUTHORIZED);
-            return exchange.getResponse().setComplete();
+        String token = headers.getFirst(tokenHeader);
+        if (!StringUtils.hasText(token)) {
+            return unauthorized(exchange);
         }
+
+        return tokenValidator.validate(token)
+                .defaultIfEmpty(false)
+                .onErrorResume(e -> {
+                    logger.warn("Token验证异常: 请求的URL: {}, {}", exchange.getRequest().getURI(), e.getMessage());
+                    return Mono.just(false);
+                })
+                .flatMap(valid -> {
+                    if (valid) {
+                        logger.debug("preHandle: 验证通过, 请求的URL: {}", exchange.getRequest().getURI());
+                        // token验证通过，继续处理请求
+                        return chain.filter(exchange);
+                    }
+                    return unauthorized(exchange);
+                });
+    }
+
+    private boolean isCredentialHeader(String headerName) {
+        return headerName.equalsIgnoreCase(tokenHeader)
+                || headerName.equalsIgnoreCase(HttpHeaders.AUTHORIZATION)
+                || headerName.equalsIgnoreCase(HttpHeaders.COOKIE);
+    }
+
+    private Mono<Void> unauthorized(ServerWebExchange exchange) {
+        // token验证失败，返回401未授权错误，日志中不输出 token 本身
+        logger.warn("Token验证失败: 请求的URL: {}", exchange.getRequest().getURI());
+        exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
+        return exchange.getResponse().setComplete();
     }
 }
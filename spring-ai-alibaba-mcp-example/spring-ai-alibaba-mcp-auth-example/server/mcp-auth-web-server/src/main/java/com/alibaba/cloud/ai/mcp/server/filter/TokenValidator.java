@@ -0,0 +1,33 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.mcp.server.filter;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * token 验证，实现必须是非阻塞的，远程验证应使用 WebClient 等响应式客户端
+ *
+ * @author yingzi
+ */
+@FunctionalInterface
+public interface TokenValidator {
+
+    /**
+     * @param token 请求头中的 token，不为空
+     * @return token 是否有效，空结果视为无效
+     */
+    Mono<Boolean> validate(String token);
+}
@@ -16,19 +16,35 @@
 
 package com.alibaba.cloud.ai.example.stock.service;
 
+import java.io.IOException;
 import java.io.Serializable;
-import java.time.format.DateTimeFormatter;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 
+import com.fasterxml.jackson.annotation.JsonAlias;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestClient;
 
@@ -36,35 +52,70 @@ import org.springframework.web.client.RestClient;
  * Stock service for retrieving real-time stock information from Eastmoney API.
  * This service provides functionality to fetch stock data including current price,
  * high/low prices, opening price, trading volume, and amount.
+ * <p>
+ * Quotes are cached for a few seconds. Concurrent requests for the same code share
+ * one upstream call, and a batch request fetches all uncached codes in a single call.
  *
  * @author Brian Xiadong
  */
 @Service
 public class StockService {
     private static final Logger logger = LoggerFactory.getLogger(StockService.class);
-    private static final String BASE_URL = "https://push2.eastmoney.com/api/qt/stock/get";
-    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final String BASE_URL = "https://push2.eastmoney.com/api/qt";
+    private static final String SINGLE_FIELDS = "f43,f44,f45,f46,f47,f48,f57,f58";
+    private static final String BATCH_FIELDS = "f2,f5,f6,f12,f14,f15,f16,f17";
+    private static final Duration QUOTE_TTL = Duration.ofSeconds(5);
+    private static final int MAX_CACHED_QUOTES = 4096;
+    private static final int MAX_CODES_PER_REQUEST = 100;
     private static final ObjectMapper objectMapper = new ObjectMapper();
-    
+
     private final RestClient restClient;
 
+    private final Map<String, CachedQuote> quoteCache = new ConcurrentHashMap<>();
+
     public StockService() {
+        // Eastmoney does not always answer with application/json, so accept any content type
+        MappingJackson2HttpMessageConverter converter = new MappingJackson2HttpMessageConverter(objectMapper);
+        converter.setSupportedMediaTypes(List.of(MediaType.ALL));
         this.restClient = RestClient.builder()
                 .baseUrl(BASE_URL)
                 .defaultHeader("Accept", MediaType.APPLICATION_JSON_VALUE)
+                .messageConverters(converters -> converters.add(0, converter))
                 .build();
     }
 
+    /**
+     * Field ids of the single quote endpoint (stock/get), aliased to the ids
+     * of the batch endpoint (ulist.np/get) so both bind to the same record.
+     */
     @JsonIgnoreProperties(ignoreUnknown = true)
     public record StockData(
-            @JsonProperty("f43") Double currentPrice,    // Latest price (in cents)
-            @JsonProperty("f44") Double highPrice,       // Highest price (in cents)
-            @JsonProperty("f45") Double lowPrice,        // Lowest price (in cents)
-            @JsonProperty("f46") Double openPrice,       // Opening price (in cents)
-            @JsonProperty("f47") Double volume,          // Trading volume (in lots)
-            @JsonProperty("f48") Double amount,          // Trading amount (in yuan)
-            @JsonProperty("f57") String code,            // Stock code
-            @JsonProperty("f58") String name) {          // Stock name
+            @JsonProperty("f43") @JsonAlias("f2") @JsonDeserialize(using = QuoteNumberDeserializer.class)
+            Double currentPrice,    // Latest price (in cents)
+            @JsonProperty("f44") @JsonAlias("f15") @JsonDeserialize(using = QuoteNumberDeserializer.class)
+            Double highPrice,       // Highest price (in cents)
+            @JsonProperty("f45") @JsonAlias("f16") @JsonDeserialize(using = QuoteNumberDeserializer.class)
+            Double lowPrice,        // Lowest price (in cents)
+            @JsonProperty("f46") @JsonAlias("f17") @JsonDeserialize(using = QuoteNumberDeserializer.class)
+            Double openPrice,       // Opening price (in cents)
+            @JsonProperty("f47") @JsonAlias("f5") @JsonDeserialize(using = QuoteNumberDeserializer.class)
+            Double volume,          // Trading volume (in lots)
+            @JsonProperty("f48") @JsonAlias("f6") @JsonDeserialize(using = QuoteNumberDeserializer.class)
+            Double amount,          // Trading amount (in yuan)
+            @JsonProperty("f57") @JsonAlias("f12") String code,            // Stock code
+            @JsonProperty("f58") @JsonAlias("f14") String name) {          // Stock name
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record QuoteResponse(@JsonProperty("data") StockData data) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record BatchQuoteResponse(@JsonProperty("data") BatchQuoteData data) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record BatchQuoteData(@JsonProperty("diff") List<StockData> diff) {
     }
 
     @JsonSerialize
@@ -80,63 +131,245 @@ public class StockService {
     ) implements Serializable {
     }
 
+    private record CachedQuote(CompletableFuture<StockInfo> future, long expiresAt) {
+
+        boolean isFresh(long now) {
+            return now < expiresAt;
+        }
+    }
+
     @Tool(name = "getStockInfo", description = "Get real-time stock information for the specified stock code")
     public StockInfo getStockInfo(String stockCode) {
         try {
-            // Validate stock code format
-            if (!stockCode.matches("^[0-9]{6}$")) {
-                throw new IllegalArgumentException("Stock code must be 6 digits");
-            }
-
+            validate(stockCode);
             logger.info("Fetching stock information for {}", stockCode);
-            
-            // Eastmoney API parameters
-            String secid = stockCode.startsWith("6") ? "1." + stockCode : "0." + stockCode;
-            
-            String response = restClient.get()
-                    .uri(uriBuilder -> uriBuilder
-                            .queryParam("secid", secid)
-                            .queryParam("fields", "f43,f44,f45,f46,f47,f48,f57,f58")
-                            .build())
-                    .accept(MediaType.APPLICATION_JSON)
-                    .retrieve()
-                    .body(String.class);
-
-            logger.info("Raw response: {}", response);
-
-            JsonNode root = objectMapper.readTree(response);
-            JsonNode data = root.path("data");
-            
-            if (data.isMissingNode()) {
-                logger.warn("No stock data found");
+
+            StockInfo stockInfo = getQuotes(List.of(stockCode)).get(stockCode);
+            if (stockInfo == null) {
                 throw new IllegalArgumentException("No information found for stock code " + stockCode);
             }
+            return stockInfo;
+        } catch (IllegalArgumentException e) {
+            logger.error("Parameter error: {}", e.getMessage());
+            throw e;
+        } catch (Exception e) {
+            logger.error("Failed to get stock {} information: {}", stockCode, e.getMessage(), e);
+            throw new RuntimeException("Failed to get stock " + stockCode + " information: " + e.getMessage());
+        }
+    }
 
-            StockData stockData = objectMapper.treeToValue(data, StockData.class);
-            logger.info("Parsed data: {}", stockData);
-
-            if (stockData == null || stockData.name() == null) {
-                throw new IllegalArgumentException("Invalid data format for stock code " + stockCode);
+    @Tool(name = "getStockInfos", description = "Get real-time stock information for multiple stock codes in one call. "
+            + "Codes without data are left out of the result")
+    public List<StockInfo> getStockInfos(List<String> stockCodes) {
+        try {
+            if (stockCodes == null || stockCodes.isEmpty()) {
+                throw new IllegalArgumentException("At least one stock code is required");
             }
+            stockCodes.forEach(StockService::validate);
+            logger.info("Fetching stock information for {}", stockCodes);
 
-            // Convert data format
-            return new StockInfo(
-                    stockCode,
-                    stockData.name(),
-                    stockData.currentPrice() / 100.0, // Convert to yuan
-                    stockData.highPrice() / 100.0,    // Convert to yuan
-                    stockData.lowPrice() / 100.0,     // Convert to yuan
-                    stockData.openPrice() / 100.0,    // Convert to yuan
-                    stockData.volume() / 10000.0,     // Convert to 10,000 lots
-                    stockData.amount() / 100000000.0  // Convert to 100 million yuan
-            );
+            Map<String, StockInfo> quotes = getQuotes(stockCodes);
+            List<StockInfo> result = new ArrayList<>(quotes.size());
+            for (String stockCode : new LinkedHashSet<>(stockCodes)) {
+                StockInfo stockInfo = quotes.get(stockCode);
+                if (stockInfo == null) {
+                    logger.warn("No information found for stock code {}", stockCode);
+                } else {
+                    result.add(stockInfo);
+                }
+            }
+            if (result.isEmpty()) {
+                throw new IllegalArgumentException("No information found for stock codes " + stockCodes);
+            }
+            return result;
         } catch (IllegalArgumentException e) {
             logger.error("Parameter error: {}", e.getMessage());
             throw e;
         } catch (Exception e) {
-            logger.error("Failed to get stock {} information: {}", stockCode, e.getMessage(), e);
-            throw new RuntimeException("Failed to get stock " + stockCode + " information: " + e.getMessage());
+            logger.error("Failed to get stocks {} information: {}", stockCodes, e.getMessage(), e);
+            throw new RuntimeException("Failed to get stocks " + stockCodes + " information: " + e.getMessage());
         }
     }
-}
 
+    /**
+     * Resolve quotes through the cache. Codes that are neither cached nor being fetched
+     * by another caller are claimed by this call and fetched together.
+     *
+     * @return quotes by stock code, codes without data are absent
+     */
+    private Map<String, StockInfo> getQuotes(List<String> stockCodes) {
+        long now = System.nanoTime();
+        Map<String, CompletableFuture<StockInfo>> futures = new LinkedHashMap<>();
+        Map<String, CachedQuote> claimed = new LinkedHashMap<>();
+
+        for (String stockCode : stockCodes) {
+            if (futures.containsKey(stockCode)) {
+                continue;
+            }
+            CachedQuote quote = quoteCache.compute(stockCode, (code, existing) -> {
+                if (existing != null && existing.isFresh(now)) {
+                    return existing;
+                }
+                CachedQuote fresh = new CachedQuote(new CompletableFuture<>(), now + QUOTE_TTL.toNanos());
+                claimed.put(code, fresh);
+                return fresh;
+            });
+            futures.put(stockCode, quote.future());
+        }
+
+        if (!claimed.isEmpty()) {
+            evictExpired(now);
+            load(claimed);
+        }
+
+        Map<String, StockInfo> quotes = new HashMap<>(futures.size());
+        for (Map.Entry<String, CompletableFuture<StockInfo>> entry : futures.entrySet()) {
+            try {
+                StockInfo stockInfo = entry.getValue().join();
+                if (stockInfo != null) {
+                    quotes.put(entry.getKey(), stockInfo);
+                }
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        return quotes;
+    }
+
+    private void load(Map<String, CachedQuote> claimed) {
+        List<String> codes = new ArrayList<>(claimed.keySet());
+        try {
+            Map<String, StockInfo> fetched = new HashMap<>(codes.size());
+            if (codes.size() == 1) {
+                StockInfo stockInfo = fetchQuote(codes.get(0));
+                if (stockInfo != null) {
+                    fetched.put(stockInfo.code(), stockInfo);
+                }
+            } else {
+                for (int from = 0; from < codes.size(); from += MAX_CODES_PER_REQUEST) {
+                    fetched.putAll(fetchQuotes(codes.subList(from, Math.min(from + MAX_CODES_PER_REQUEST, codes.size()))));
+                }
+            }
+
+            claimed.forEach((code, quote) -> {
+                StockInfo stockInfo = fetched.get(code);
+                if (stockInfo == null) {
+                    // Do not cache misses, the code may simply be mistyped
+                    quoteCache.remove(code, quote);
+                }
+                quote.future().complete(stockInfo);
+            });
+        } catch (RuntimeException e) {
+            claimed.forEach((code, quote) -> {
+                quoteCache.remove(code, quote);
+                quote.future().completeExceptionally(e);
+            });
+        }
+    }
+
+    private StockInfo fetchQuote(String stockCode) {
+        QuoteResponse response = restClient.get()
+                .uri(uriBuilder -> uriBuilder
+                        .path("/stock/get")
+                        .queryParam("secid", secid(stockCode))
+                        .queryParam("fields", SINGLE_FIELDS)
+                        .build())
+                .accept(MediaType.APPLICATION_JSON)
+                .retrieve()
+                .body(QuoteResponse.class);
+
+        logger.debug("Parsed response for {}: {}", stockCode, response);
+
+        if (response == null || response.data() == null || response.data().name() == null) {
+            return null;
+        }
+        return toStockInfo(stockCode, response.data());
+    }
+
+    private Map<String, StockInfo> fetchQuotes(List<String> stockCodes) {
+        String secids = String.join(",", stockCodes.stream().map(StockService::secid).toList());
+        BatchQuoteResponse response = restClient.get()
+                .uri(uriBuilder -> uriBuilder
+                        .path("/ulist.np/get")
+                        .queryParam("secids", secids)
+                        .queryParam("fields", BATCH_FIELDS)
+                        .build())
+                .accept(MediaType.APPLICATION_JSON)
+                .retrieve()
+                .body(BatchQuoteResponse.class);
+
+        logger.debug("Parsed response for {}: {}", stockCodes, response);
+
+        Map<String, StockInfo> quotes = new HashMap<>(stockCodes.size());
+        if (response == null || response.data() == null || response.data().diff() == null) {
+            return quotes;
+        }
+        for (StockData stockData : response.data().diff()) {
+            if (stockData != null && stockData.code() != null && stockData.name() != null) {
+                quotes.put(stockData.code(), toStockInfo(stockData.code(), stockData));
+            }
+        }
+        return quotes;
+    }
+
+    private void evictExpired(long now) {
+        if (quoteCache.size() > MAX_CACHED_QUOTES) {
+            quoteCache.values().removeIf(quote -> !quote.isFresh(now) && quote.future().isDone());
+        }
+    }
+
+    private static void validate(String stockCode) {
+        // Validate stock code format
+        if (stockCode == null || !stockCode.matches("^[0-9]{6}$")) {
+            throw new IllegalArgumentException("Stock code must be 6 digits");
+        }
+    }
+
+    private static String secid(String stockCode) {
+        // Eastmoney market prefix: 1 for Shanghai, 0 for Shenzhen
+        return stockCode.startsWith("6") ? "1." + stockCode : "0." + stockCode;
+    }
+
+    private static StockInfo toStockInfo(String stockCode, StockData stockData) {
+        // Convert data format
+        return new StockInfo(
+                stockCode,
+                stockData.name(),
+                scale(stockData.currentPrice(), 100.0),   // Convert to yuan
+                scale(stockData.highPrice(), 100.0),      // Convert to yuan
+                scale(stockData.lowPrice(), 100.0),       // Convert to yuan
+                scale(stockData.openPrice(), 100.0),      // Convert to yuan
+                scale(stockData.volume(), 10000.0),       // Convert to 10,000 lots
+                scale(stockData.amount(), 100000000.0)    // Convert to 100 million yuan
+        );
+    }
+
+    private static Double scale(Double value, double divisor) {
+        return value == null ? null : value / divisor;
+    }
+
+    /**
+     * Eastmoney returns "-" instead of a number for suspended stocks, read it as null.
+     */
+    public static class QuoteNumberDeserializer extends StdDeserializer<Double> {
+
+        public QuoteNumberDeserializer() {
+            super(Double.class);
+        }
+
+        @Override
+        public Double deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            if (parser.currentToken().isNumeric()) {
+                return parser.getDoubleValue();
+            }
+            if (parser.currentToken() == JsonToken.VALUE_STRING) {
+                try {
+                    return Double.valueOf(parser.getText());
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2025-2026 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @author brianxiadong
+ */
+package com.alibaba.cloud.ai.mcp.sample.server;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 天气预报缓存
+ * <p>
+ * 1. 经纬度按 0.01 度（约 1 公里）取整分桶，同一个桶和同一天的查询共用一份预报；
+ * 2. OpenMeteo 的预报每小时更新一次，缓存在下一个整点过期；
+ * 3. 同一个桶的并发查询只请求一次上游，请求失败不缓存；
+ * 4. prefetchTopN 大于 0 时，每个整点过后刷新上一小时查询最多的 N 个位置。
+ */
+final class ForecastCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ForecastCache.class);
+
+    // 整点之后稍等片刻再预取，给上游留出发布新预报的时间
+    private static final Duration PREFETCH_DELAY = Duration.ofMinutes(2);
+
+    private static final int MAX_ENTRIES = 10_000;
+
+    private final Function<GeoKey, CompletableFuture<OpenMeteoService.WeatherData>> loader;
+
+    private final int prefetchTopN;
+
+    private final Map<CacheKey, Entry> entries = new ConcurrentHashMap<>();
+
+    private final Map<GeoKey, LongAdder> queryCounts = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService prefetcher;
+
+    /**
+     * 取整后的经纬度，也用作请求上游的坐标
+     */
+    record GeoKey(double latitude, double longitude) {
+
+        static GeoKey of(double latitude, double longitude) {
+            return new GeoKey(Math.round(latitude * 100) / 100.0, Math.round(longitude * 100) / 100.0);
+        }
+    }
+
+    private record CacheKey(GeoKey location, LocalDate day) {
+    }
+
+    private record Entry(CompletableFuture<OpenMeteoService.WeatherData> forecast, Instant expiresAt) {
+
+        boolean isFresh(Instant now) {
+            return now.isBefore(expiresAt);
+        }
+    }
+
+    ForecastCache(Function<GeoKey, CompletableFuture<OpenMeteoService.WeatherData>> loader, int prefetchTopN) {
+        this.loader = loader;
+        this.prefetchTopN = prefetchTopN;
+
+        if (prefetchTopN > 0) {
+            this.prefetcher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "open-meteo-prefetch");
+                thread.setDaemon(true);
+                return thread;
+            });
+            Instant now = Instant.now();
+            long initialDelay = Duration.between(now, nextUpdate(now)).plus(PREFETCH_DELAY).toMillis();
+            this.prefetcher.scheduleAtFixedRate(this::prefetchQuietly, initialDelay,
+                    Duration.ofHours(1).toMillis(), TimeUnit.MILLISECONDS);
+        } else {
+            this.prefetcher = null;
+        }
+    }
+
+    /**
+     * 获取指定位置当天的预报，缓存未命中时加载
+     */
+    CompletableFuture<OpenMeteoService.WeatherData> get(double latitude, double longitude) {
+        GeoKey location = GeoKey.of(latitude, longitude);
+        if (prefetchTopN > 0 && (queryCounts.size() < MAX_ENTRIES || queryCounts.containsKey(location))) {
+            queryCounts.computeIfAbsent(location, key -> new LongAdder()).increment();
+        }
+
+        Instant now = Instant.now();
+        CacheKey key = new CacheKey(location, LocalDate.ofInstant(now, ZoneOffset.UTC));
+        Entry[] claimed = new Entry[1];
+        Entry entry = entries.compute(key, (cacheKey, existing) -> {
+            if (existing != null && existing.isFresh(now)) {
+                return existing;
+            }
+            claimed[0] = new Entry(new CompletableFuture<>(), nextUpdate(now));
+            return claimed[0];
+        });
+
+        if (claimed[0] != null) {
+            evictExpired(now);
+            load(key, claimed[0]);
+        }
+        return entry.forecast();
+    }
+
+    /**
+     * 刷新查询最多的位置，新预报加载成功后才替换旧缓存
+     */
+    void prefetch() {
+        Instant now = Instant.now();
+        List<GeoKey> hottest = queryCounts.entrySet()
+                .stream()
+                .sorted(Comparator.comparingLong((Map.Entry<GeoKey, LongAdder> e) -> e.getValue().sum()).reversed())
+                .limit(prefetchTopN)
+                .map(Map.Entry::getKey)
+                .toList();
+        // 只统计最近一个周期的查询
+        queryCounts.clear();
+        evictExpired(now);
+
+        LocalDate day = LocalDate.ofInstant(now, ZoneOffset.UTC);
+        Instant expiresAt = nextUpdate(now);
+        for (GeoKey location : hottest) {
+            CacheKey key = new CacheKey(location, day);
+            fetch(location).whenComplete((forecast, error) -> {
+                if (error != null) {
+                    logger.warn("Failed to prefetch forecast for {}: {}", location, error.getMessage());
+                    return;
+                }
+                entries.put(key, new Entry(CompletableFuture.completedFuture(forecast), expiresAt));
+            });
+        }
+        logger.debug("Prefetching forecasts for {} locations.", hottest.size());
+    }
+
+    void close() {
+        if (prefetcher != null) {
+            prefetcher.shutdownNow();
+        }
+    }
+
+    private void load(CacheKey key, Entry entry) {
+        fetch(key.location()).whenComplete((forecast, error) -> {
+            if (error != null) {
+                entries.remove(key, entry);
+                entry.forecast().completeExceptionally(error);
+            } else {
+                entry.forecast().complete(forecast);
+            }
+        });
+    }
+
+    private CompletableFuture<OpenMeteoService.WeatherData> fetch(GeoKey location) {
+        try {
+            return loader.apply(location);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private void prefetchQuietly() {
+        try {
+            prefetch();
+        } catch (RuntimeException e) {
+            logger.warn("Forecast prefetch failed: {}", e.getMessage());
+        }
+    }
+
+    private void evictExpired(Instant now) {
+        if (entries.size() > MAX_ENTRIES) {
+            entries.values().removeIf(entry -> !entry.isFresh(now) && entry.forecast().isDone());
+        }
+    }
+
+    private static Instant nextUpdate(Instant now) {
+        return now.truncatedTo(ChronoUnit.HOURS).plus(1, ChronoUnit.HOURS);
+    }
+
+}
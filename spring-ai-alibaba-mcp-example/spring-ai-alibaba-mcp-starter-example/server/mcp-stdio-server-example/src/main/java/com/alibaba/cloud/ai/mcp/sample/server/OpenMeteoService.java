@@ -20,12 +20,17 @@ package com.alibaba.cloud.ai.mcp.sample.server;
 import java.util.List;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.annotation.PreDestroy;
 
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.ai.tool.annotation.ToolParam;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestClient;
 import org.springframework.web.client.RestClientException;
@@ -33,6 +38,7 @@ import org.springframework.web.client.RestClientException;
 /**
  * 利用OpenMeteo的免费天气API提供天气服务
  * 该API无需API密钥，可以直接使用
+ * 预报按位置和日期缓存到下一个整点，见 {@link ForecastCache}
  */
 @Service
 public class OpenMeteoService {
@@ -40,14 +46,33 @@ public class OpenMeteoService {
     // OpenMeteo免费天气API基础URL
     private static final String BASE_URL = "https://api.open-meteo.com/v1";
 
+    // 当前天气和未来7天预报
+    private static final String FORECAST_URI = "/forecast?latitude={latitude}&longitude={longitude}&current=temperature_2m,apparent_temperature,relative_humidity_2m,precipitation,weather_code,wind_speed_10m,wind_direction_10m&daily=temperature_2m_max,temperature_2m_min,precipitation_sum,weather_code,wind_speed_10m_max,wind_direction_10m_dominant&timezone=auto&forecast_days=7";
+
     private final RestClient restClient;
 
+    private final ForecastCache forecastCache;
+
     public OpenMeteoService() {
+        this(0);
+    }
+
+    /**
+     * @param prefetchTopN 每小时预取查询最多的位置数量，0 表示不预取
+     */
+    @Autowired
+    public OpenMeteoService(@Value("${open-meteo.forecast.prefetch-top-n:0}") int prefetchTopN) {
         this.restClient = RestClient.builder()
                 .baseUrl(BASE_URL)
                 .defaultHeader("Accept", "application/json")
                 .defaultHeader("User-Agent", "OpenMeteoClient/1.0")
                 .build();
+        this.forecastCache = new ForecastCache(this::fetchForecast, prefetchTopN);
+    }
+
+    @PreDestroy
+    public void close() {
+        forecastCache.close();
     }
 
     // OpenMeteo天气数据模型
@@ -146,11 +171,7 @@ public class OpenMeteoService {
     @Tool(description = "获取指定经纬度的天气预报")
     public String getWeatherForecastByLocation(double latitude, double longitude) {
         // 获取天气数据（当前和未来7天）
-        var weatherData = restClient.get()
-                .uri("/forecast?latitude={latitude}&longitude={longitude}&current=temperature_2m,apparent_temperature,relative_humidity_2m,precipitation,weather_code,wind_speed_10m,wind_direction_10m&daily=temperature_2m_max,temperature_2m_min,precipitation_sum,weather_code,wind_speed_10m_max,wind_direction_10m_dominant&timezone=auto&forecast_days=7",
-                        latitude, longitude)
-                .retrieve()
-                .body(WeatherData.class);
+        var weatherData = getForecast(latitude, longitude);
 
         // 拼接天气信息
         StringBuilder weatherInfo = new StringBuilder();
@@ -233,12 +254,8 @@ public class OpenMeteoService {
             @ToolParam(description = "经度") double longitude) {
 
         try {
-            // 从天气数据中获取基本信息
-            var weatherData = restClient.get()
-                    .uri("/forecast?latitude={latitude}&longitude={longitude}&current=temperature_2m&timezone=auto",
-                            latitude, longitude)
-                    .retrieve()
-                    .body(WeatherData.class);
+            // 从天气数据中获取基本信息，与天气预报共用缓存
+            var weatherData = getForecast(latitude, longitude);
 
             // 模拟空气质量数据 - 实际情况下应该从真实API获取
             // 根据经纬度生成一些随机但相对合理的数据
@@ -311,6 +328,21 @@ public class OpenMeteoService {
         }
     }
 
+    private WeatherData getForecast(double latitude, double longitude) {
+        try {
+            return forecastCache.get(latitude, longitude).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    private CompletableFuture<WeatherData> fetchForecast(ForecastCache.GeoKey location) {
+        return CompletableFuture.completedFuture(restClient.get()
+                .uri(FORECAST_URI, location.latitude(), location.longitude())
+                .retrieve()
+                .body(WeatherData.class));
+    }
+
     /**
      * 获取欧洲空气质量指数等级
      */
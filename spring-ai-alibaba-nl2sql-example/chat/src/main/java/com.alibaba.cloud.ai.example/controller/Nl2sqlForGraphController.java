@@ -16,13 +16,11 @@
 
 package com.alibaba.cloud.ai.example.controller;
 
-import com.alibaba.cloud.ai.connector.config.DbConfig;
+import com.alibaba.cloud.ai.example.service.SchemaIndex;
 import com.alibaba.cloud.ai.graph.CompiledGraph;
 import com.alibaba.cloud.ai.graph.OverAllState;
 import com.alibaba.cloud.ai.graph.StateGraph;
 import com.alibaba.cloud.ai.graph.exception.GraphStateException;
-import com.alibaba.cloud.ai.request.SchemaInitRequest;
-import com.alibaba.cloud.ai.service.simple.SimpleVectorStoreService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -32,7 +30,6 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.util.Arrays;
 import java.util.Map;
 import java.util.Optional;
 
@@ -51,10 +48,7 @@ public class Nl2sqlForGraphController {
 	private final CompiledGraph compiledGraph;
 
 	@Autowired
-	private SimpleVectorStoreService simpleVectorStoreService;
-
-	@Autowired
-	private DbConfig dbConfig;
+	private SchemaIndex schemaIndex;
 
 	@Autowired
 	public Nl2sqlForGraphController(@Qualifier("nl2sqlGraph") StateGraph stateGraph) throws GraphStateException {
@@ -64,12 +58,8 @@ public class Nl2sqlForGraphController {
 
 	@GetMapping("/search")
 	public String search(@RequestParam String query) throws Exception {
-		// 初始化向量
-		SchemaInitRequest schemaInitRequest = new SchemaInitRequest();
-		schemaInitRequest.setDbConfig(dbConfig);
-		schemaInitRequest
-			.setTables(Arrays.asList("categories", "order_items", "orders", "products", "users", "product_categories"));
-		simpleVectorStoreService.schema(schemaInitRequest);
+		// 表结构没有变化时复用已有的向量
+		schemaIndex.ensureIndexed();
 
 		Optional<OverAllState> invoke = compiledGraph.invoke(Map.of(INPUT_KEY, query));
 		OverAllState overAllState = invoke.get();
@@ -15,17 +15,13 @@
  */
 package com.alibaba.cloud.ai.example.controller;
 
-import com.alibaba.cloud.ai.connector.config.DbConfig;
-import com.alibaba.cloud.ai.request.SchemaInitRequest;
+import com.alibaba.cloud.ai.example.service.SchemaIndex;
 import com.alibaba.cloud.ai.service.simple.SimpleNl2SqlService;
-import com.alibaba.cloud.ai.service.simple.SimpleVectorStoreService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.util.Arrays;
-
 @RestController
 public class SimpleChatController {
 
@@ -34,17 +30,11 @@ public class SimpleChatController {
     private SimpleNl2SqlService simpleNl2SqlService;
 
     @Autowired
-    private SimpleVectorStoreService simpleVectorStoreService;
-
-    @Autowired
-    private DbConfig dbConfig;
+    private SchemaIndex schemaIndex;
 
     @PostMapping("/simpleChat")
     public String simpleNl2Sql(@RequestBody String input) throws Exception {
-        SchemaInitRequest schemaInitRequest = new SchemaInitRequest();
-        schemaInitRequest.setDbConfig(dbConfig);
-        schemaInitRequest.setTables(Arrays.asList("categories","order_items","orders","products","users","product_categories"));
-        simpleVectorStoreService.schema(schemaInitRequest);
+        schemaIndex.ensureIndexed();
         return simpleNl2SqlService.nl2sql(input);
     }
 }
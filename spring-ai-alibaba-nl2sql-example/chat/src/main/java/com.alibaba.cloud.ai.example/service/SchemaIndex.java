@@ -0,0 +1,100 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.example.service;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import com.alibaba.cloud.ai.connector.config.DbConfig;
+import com.alibaba.cloud.ai.example.schema.SchemaFingerprints;
+import com.alibaba.cloud.ai.request.SchemaInitRequest;
+import com.alibaba.cloud.ai.service.simple.SimpleVectorStoreService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 表结构向量索引
+ * <p>
+ * 用 {@link SchemaFingerprints} 计算表结构指纹，只有指纹变化时才重新向量化表结构；
+ * 指纹在 check-interval 内最多检查一次，问答请求不再每次都重新读取表结构和调用 embedding 模型。
+ */
+@Component
+public class SchemaIndex {
+
+	private static final Logger logger = LoggerFactory.getLogger(SchemaIndex.class);
+
+	public static final List<String> TABLES = List.of("categories", "order_items", "orders", "products", "users",
+			"product_categories");
+
+	private final SimpleVectorStoreService simpleVectorStoreService;
+
+	private final DbConfig dbConfig;
+
+	private final Duration checkInterval;
+
+	private volatile String fingerprint;
+
+	private volatile Instant nextCheck = Instant.MIN;
+
+	public SchemaIndex(SimpleVectorStoreService simpleVectorStoreService, DbConfig dbConfig,
+			@Value("${chatBi.schema-index.check-interval:1m}") Duration checkInterval) {
+		this.simpleVectorStoreService = simpleVectorStoreService;
+		this.dbConfig = dbConfig;
+		this.checkInterval = checkInterval;
+	}
+
+	/**
+	 * 确保向量库中的表结构是最新的，表结构没有变化时直接返回
+	 */
+	public void ensureIndexed() throws Exception {
+		if (fingerprint != null && Instant.now().isBefore(nextCheck)) {
+			return;
+		}
+		synchronized (this) {
+			if (fingerprint != null && Instant.now().isBefore(nextCheck)) {
+				return;
+			}
+			String current = computeFingerprint();
+			if (!current.equals(fingerprint)) {
+				logger.info("Schema fingerprint changed ({} -> {}), rebuilding schema vectors.", fingerprint, current);
+				SchemaInitRequest schemaInitRequest = new SchemaInitRequest();
+				schemaInitRequest.setDbConfig(dbConfig);
+				schemaInitRequest.setTables(TABLES);
+				simpleVectorStoreService.schema(schemaInitRequest);
+				fingerprint = current;
+			}
+			nextCheck = Instant.now().plus(checkInterval);
+		}
+	}
+
+	/**
+	 * 下次请求时重新检查表结构
+	 */
+	public void invalidate() {
+		nextCheck = Instant.MIN;
+	}
+
+	private String computeFingerprint() throws SQLException {
+		return SchemaFingerprints.compute(dbConfig, TABLES);
+	}
+
+}
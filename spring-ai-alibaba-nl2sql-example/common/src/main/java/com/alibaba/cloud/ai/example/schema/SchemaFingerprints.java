@@ -0,0 +1,106 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.schema;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HexFormat;
+import java.util.List;
+
+import com.alibaba.cloud.ai.connector.config.DbConfig;
+
+import org.springframework.util.StringUtils;
+
+/**
+ * 表结构指纹
+ * <p>
+ * 由数据库连接信息和 information_schema 中各列的表名、列名、类型计算，表结构变化后指纹随之变化。
+ * chat 和 mcp 示例共用同一份计算逻辑。
+ */
+public final class SchemaFingerprints {
+
+	private static final String COLUMNS_SQL = "SELECT table_name, column_name, data_type, ordinal_position "
+			+ "FROM information_schema.columns WHERE table_schema = ?%s ORDER BY table_name, ordinal_position";
+
+	private SchemaFingerprints() {
+	}
+
+	/**
+	 * 计算表结构指纹
+	 * @param tables 参与计算的表，为空时使用 schema 下的全部表
+	 */
+	public static String compute(DbConfig dbConfig, List<String> tables) throws SQLException {
+		MessageDigest digest = sha256();
+		update(digest, dbConfig.getUrl());
+		update(digest, dbConfig.getSchema());
+		update(digest, dbConfig.getUsername());
+		update(digest, dbConfig.getDialectType());
+		update(digest, String.join(",", tables));
+
+		String tableFilter = tables.isEmpty() ? ""
+				: " AND table_name IN (" + String.join(",", tables.stream().map(table -> "?").toList()) + ")";
+		try (Connection connection = DriverManager.getConnection(dbConfig.getUrl(), dbConfig.getUsername(),
+				dbConfig.getPassword());
+				PreparedStatement statement = connection.prepareStatement(COLUMNS_SQL.formatted(tableFilter))) {
+			statement.setString(1, tableSchema(dbConfig, connection));
+			for (int i = 0; i < tables.size(); i++) {
+				statement.setString(i + 2, tables.get(i));
+			}
+			try (ResultSet resultSet = statement.executeQuery()) {
+				while (resultSet.next()) {
+					for (int column = 1; column <= 4; column++) {
+						update(digest, resultSet.getString(column));
+					}
+				}
+			}
+		}
+		return HexFormat.of().formatHex(digest.digest());
+	}
+
+	/**
+	 * MySQL 通常不配置 schema，此时使用连接的当前数据库
+	 */
+	private static String tableSchema(DbConfig dbConfig, Connection connection) throws SQLException {
+		if (StringUtils.hasText(dbConfig.getSchema())) {
+			return dbConfig.getSchema();
+		}
+		return connection.getSchema() != null ? connection.getSchema() : connection.getCatalog();
+	}
+
+	private static void update(MessageDigest digest, String value) {
+		if (value != null) {
+			digest.update(value.getBytes(StandardCharsets.UTF_8));
+		}
+		// 分隔符，避免 "ab"+"c" 和 "a"+"bc" 得到相同的指纹
+		digest.update((byte) 0);
+	}
+
+	private static MessageDigest sha256() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.service;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import com.alibaba.cloud.ai.connector.config.DbConfig;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 分页返回 SQL 结果，按列编码
+ * <p>
+ * SQL 只执行一次：结果读入内存快照（最多 max-result-rows 行、约 max-result-bytes 字节），后续页都从快照中切分，
+ * 不会重复执行查询，也不会因为数据库返回顺序不稳定而出现重复或遗漏的行。快照在最近使用的 result-cache-size 个之外会被淘汰，
+ * 淘汰后游标失效，需要重新提问。
+ * <p>
+ * 每页大小受 max-rows 和 max-bytes 共同限制。返回的 JSON 按列组织：
+ * {"columns":[...],"types":[...],"values":[[第一列的值...],...],"rows":n,"cursor":"...","truncated":false}，
+ * cursor 不为空时表示还有数据，用它调用下一页；truncated 为 true 表示结果超出快照上限，之后的行没有返回。
+ */
+@Component
+public class ColumnarResultPager {
+
+	private static final ObjectMapper objectMapper = new ObjectMapper();
+
+	private final DbConfig dbConfig;
+
+	private final int maxRows;
+
+	private final int maxBytes;
+
+	private final int maxResultRows;
+
+	private final long maxResultBytes;
+
+	/**
+	 * 需要分页的结果快照，key 为游标中引用的 id，按最近使用淘汰
+	 */
+	private final Map<String, Result> results;
+
+	record Page(List<String> columns, List<String> types, List<List<Object>> values, int rows, String cursor,
+			boolean truncated) {
+	}
+
+	private record Result(List<String> columns, List<String> types, List<Object[]> rows, boolean truncated) {
+	}
+
+	private record Cursor(String resultId, int offset) {
+	}
+
+	public ColumnarResultPager(DbConfig dbConfig, @Value("${chatBi.mcp.max-rows:200}") int maxRows,
+			@Value("${chatBi.mcp.max-bytes:65536}") int maxBytes,
+			@Value("${chatBi.mcp.max-result-rows:10000}") int maxResultRows,
+			@Value("${chatBi.mcp.max-result-bytes:4194304}") long maxResultBytes,
+			@Value("${chatBi.mcp.result-cache-size:32}") int resultCacheSize) {
+		this.dbConfig = dbConfig;
+		this.maxRows = maxRows;
+		this.maxBytes = maxBytes;
+		this.maxResultRows = maxResultRows;
+		this.maxResultBytes = maxResultBytes;
+		this.results = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Result> eldest) {
+				return size() > resultCacheSize;
+			}
+		};
+	}
+
+	/**
+	 * 执行 SQL 并返回第一页
+	 */
+	public String firstPage(SqlPlanCache.Plan plan) throws SQLException, JsonProcessingException {
+		Result result = execute(plan);
+		String resultId = UUID.randomUUID().toString();
+		Page page = page(result, resultId, 0);
+		// 只有一页时不保留快照
+		if (page.cursor() != null) {
+			synchronized (results) {
+				results.put(resultId, result);
+			}
+		}
+		return objectMapper.writeValueAsString(page);
+	}
+
+	/**
+	 * 根据游标返回下一页
+	 */
+	public String nextPage(String cursor) throws JsonProcessingException {
+		Cursor decoded = decode(cursor);
+		Result result;
+		synchronized (results) {
+			result = results.get(decoded.resultId());
+		}
+		if (result == null) {
+			throw new IllegalArgumentException("游标已过期，请重新提问");
+		}
+		if (decoded.offset() < 0 || decoded.offset() > result.rows().size()) {
+			throw new IllegalArgumentException("无效的游标: " + cursor);
+		}
+		return objectMapper.writeValueAsString(page(result, decoded.resultId(), decoded.offset()));
+	}
+
+	private Result execute(SqlPlanCache.Plan plan) throws SQLException {
+		String sql = stripTrailingSemicolon(plan.sql());
+		try (Connection connection = DriverManager.getConnection(dbConfig.getUrl(), dbConfig.getUsername(),
+				dbConfig.getPassword()); PreparedStatement statement = connection.prepareStatement(sql)) {
+			// 多取一行，用于判断结果是否超出快照上限
+			statement.setMaxRows(maxResultRows + 1);
+			statement.setFetchSize(Math.min(maxResultRows + 1, 500));
+			try (ResultSet resultSet = statement.executeQuery()) {
+				return read(resultSet);
+			}
+		}
+	}
+
+	private Result read(ResultSet resultSet) throws SQLException {
+		ResultSetMetaData metaData = resultSet.getMetaData();
+		int columnCount = metaData.getColumnCount();
+		List<String> columns = new ArrayList<>(columnCount);
+		List<String> types = new ArrayList<>(columnCount);
+		for (int column = 1; column <= columnCount; column++) {
+			columns.add(metaData.getColumnLabel(column));
+			types.add(metaData.getColumnTypeName(column));
+		}
+
+		List<Object[]> rows = new ArrayList<>();
+		long bytes = 0;
+		boolean truncated = false;
+		while (resultSet.next()) {
+			if (rows.size() >= maxResultRows || bytes >= maxResultBytes) {
+				truncated = true;
+				break;
+			}
+			Object[] row = new Object[columnCount];
+			for (int column = 1; column <= columnCount; column++) {
+				row[column - 1] = value(resultSet.getObject(column));
+				bytes += estimateSize(row[column - 1]);
+			}
+			rows.add(row);
+		}
+		return new Result(columns, types, rows, truncated);
+	}
+
+	private Page page(Result result, String resultId, int offset) {
+		int columnCount = result.columns().size();
+		List<List<Object>> values = new ArrayList<>(columnCount);
+		for (int column = 0; column < columnCount; column++) {
+			values.add(new ArrayList<>());
+		}
+
+		int end = offset;
+		long bytes = 0;
+		while (end < result.rows().size() && end - offset < maxRows && bytes < maxBytes) {
+			Object[] row = result.rows().get(end);
+			for (int column = 0; column < columnCount; column++) {
+				values.get(column).add(row[column]);
+				bytes += estimateSize(row[column]);
+			}
+			end++;
+		}
+		boolean more = end < result.rows().size();
+		String cursor = more ? encode(new Cursor(resultId, end)) : null;
+		return new Page(result.columns(), result.types(), values, end - offset, cursor, !more && result.truncated());
+	}
+
+	private static Object value(Object value) {
+		if (value == null || value instanceof Number || value instanceof Boolean || value instanceof String) {
+			return value;
+		}
+		return value.toString();
+	}
+
+	private static long estimateSize(Object value) {
+		if (value == null) {
+			return 5;
+		}
+		if (value instanceof String text) {
+			return text.length() * 3L + 3;
+		}
+		return value.toString().length() + 1;
+	}
+
+	private static String stripTrailingSemicolon(String sql) {
+		String trimmed = sql.trim();
+		while (trimmed.endsWith(";")) {
+			trimmed = trimmed.substring(0, trimmed.length() - 1).trim();
+		}
+		return trimmed;
+	}
+
+	private static String encode(Cursor cursor) {
+		String raw = cursor.resultId() + ":" + cursor.offset();
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static Cursor decode(String cursor) {
+		try {
+			String raw = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+			int separator = raw.lastIndexOf(':');
+			return new Cursor(raw.substring(0, separator), Integer.parseInt(raw.substring(separator + 1)));
+		}
+		catch (RuntimeException e) {
+			throw new IllegalArgumentException("无效的游标: " + cursor);
+		}
+	}
+
+}
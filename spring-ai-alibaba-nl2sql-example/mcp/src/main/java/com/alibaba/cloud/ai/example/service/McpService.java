@@ -30,20 +30,36 @@ public class McpService {
 	@Autowired
 	private SimpleNl2SqlService simpleNl2SqlService;
 
+	@Autowired
+	private SchemaFingerprint schemaFingerprint;
+
+	@Autowired
+	private SqlPlanCache sqlPlanCache;
+
+	@Autowired
+	private ColumnarResultPager resultPager;
+
 	/**
 	 * 从数据库中获取问题所需要的数据
-	 * @return 从数据库中获取问题所需要的数据
+	 * @return 按列编码的第一页数据，cursor 不为空时可以用 fetchMore 获取下一页
 	 */
-	@Tool(description = "从数据库中获取问题所需要的数据")
+	@Tool(description = "从数据库中获取问题所需要的数据，结果按列返回，cursor 不为空时调用 fetchMore 获取更多数据")
 	public String nl2Sql(String input) throws Exception {
-		String sql = nl2SqlService.nl2sql(input);
-		return nl2SqlService.executeSql(sql);
+		SqlPlanCache.Plan plan = sqlPlanCache.get("analytic", schemaFingerprint.get(), input,
+				() -> nl2SqlService.nl2sql(input));
+		return resultPager.firstPage(plan);
 	}
 
-	@Tool(description = "使用内存向量库从数据库中获取问题所需要数据")
+	@Tool(description = "使用内存向量库从数据库中获取问题所需要数据，结果按列返回，cursor 不为空时调用 fetchMore 获取更多数据")
 	public String simpleNl2Sql(String input) throws Exception {
-		String sql = simpleNl2SqlService.nl2sql(input);
-		return simpleNl2SqlService.executeSql(sql);
+		SqlPlanCache.Plan plan = sqlPlanCache.get("simple", schemaFingerprint.get(), input,
+				() -> simpleNl2SqlService.nl2sql(input));
+		return resultPager.firstPage(plan);
+	}
+
+	@Tool(description = "根据上一次查询结果中的 cursor 获取下一页数据")
+	public String fetchMore(String cursor) throws Exception {
+		return resultPager.nextPage(cursor);
 	}
 
 }
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.service;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import com.alibaba.cloud.ai.connector.config.DbConfig;
+import com.alibaba.cloud.ai.example.schema.SchemaFingerprints;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 表结构指纹
+ * <p>
+ * 用 {@link SchemaFingerprints} 对 schema 下的全部表计算，表结构变化后指纹随之变化；
+ * 指纹在 check-interval 内最多重新计算一次。
+ */
+@Component
+public class SchemaFingerprint {
+
+	private final DbConfig dbConfig;
+
+	private final Duration checkInterval;
+
+	private volatile String fingerprint;
+
+	private volatile Instant nextCheck = Instant.MIN;
+
+	public SchemaFingerprint(DbConfig dbConfig,
+			@Value("${chatBi.mcp.schema-check-interval:1m}") Duration checkInterval) {
+		this.dbConfig = dbConfig;
+		this.checkInterval = checkInterval;
+	}
+
+	public String get() throws SQLException {
+		if (fingerprint != null && Instant.now().isBefore(nextCheck)) {
+			return fingerprint;
+		}
+		synchronized (this) {
+			if (fingerprint == null || !Instant.now().isBefore(nextCheck)) {
+				fingerprint = compute();
+				nextCheck = Instant.now().plus(checkInterval);
+			}
+			return fingerprint;
+		}
+	}
+
+	private String compute() throws SQLException {
+		return SchemaFingerprints.compute(dbConfig, List.of());
+	}
+
+}
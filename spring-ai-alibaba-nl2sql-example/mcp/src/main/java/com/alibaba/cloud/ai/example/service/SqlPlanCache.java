@@ -0,0 +1,107 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.example.service;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 生成 SQL 的缓存
+ * <p>
+ * 以 (向量库类型, 表结构指纹, 归一化后的问题) 为键缓存 nl2sql 生成的 SQL，相同问题不再重复调用大模型；
+ * 表结构变化后指纹不同，旧的 SQL 自然失效。
+ */
+@Component
+public class SqlPlanCache {
+
+	private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+	private static final Pattern TRAILING_PUNCTUATION = Pattern.compile("[\\p{Punct}？。！，；：\\s]+$");
+
+	/**
+	 * 缓存的 SQL
+	 * @param id SQL 的唯一标识
+	 * @param sql 生成的 SQL
+	 */
+	public record Plan(String id, String sql) {
+	}
+
+	private record Key(String source, String fingerprint, String question) {
+	}
+
+	private final Map<Key, Plan> plans;
+
+	private final Map<Key, Object> locks = new ConcurrentHashMap<>();
+
+	public SqlPlanCache(@Value("${chatBi.mcp.plan-cache-size:500}") int maximumSize) {
+		this.plans = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, Plan> eldest) {
+				return size() > maximumSize;
+			}
+		};
+	}
+
+	/**
+	 * 获取问题对应的 SQL，未命中时调用 generator 生成，同一个问题并发请求时只生成一次
+	 */
+	public Plan get(String source, String fingerprint, String question, Callable<String> generator) throws Exception {
+		Key key = new Key(source, fingerprint, normalize(question));
+		Plan plan = cached(key);
+		if (plan != null) {
+			return plan;
+		}
+		Object lock = locks.computeIfAbsent(key, k -> new Object());
+		try {
+			synchronized (lock) {
+				plan = cached(key);
+				if (plan == null) {
+					plan = new Plan(UUID.randomUUID().toString(), generator.call());
+					synchronized (plans) {
+						plans.put(key, plan);
+					}
+				}
+				return plan;
+			}
+		}
+		finally {
+			locks.remove(key, lock);
+		}
+	}
+
+	private Plan cached(Key key) {
+		synchronized (plans) {
+			return plans.get(key);
+		}
+	}
+
+	/**
+	 * 忽略大小写、多余空白和结尾的标点
+	 */
+	static String normalize(String question) {
+		String normalized = WHITESPACE.matcher(question.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+		return TRAILING_PUNCTUATION.matcher(normalized).replaceAll("");
+	}
+
+}
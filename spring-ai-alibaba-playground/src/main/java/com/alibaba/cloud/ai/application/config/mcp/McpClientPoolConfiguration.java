@@ -0,0 +1,47 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.config.mcp;
+
+import java.io.IOException;
+
+import com.alibaba.cloud.ai.application.mcp.McpClientPool;
+import com.alibaba.cloud.ai.application.mcp.McpServerUtils;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * @author yuluo
+ * @author <a href="mailto:yuluo08290126@gmail.com">yuluo</a>
+ */
+
+@Configuration
+@EnableConfigurationProperties(McpClientPoolProperties.class)
+public class McpClientPoolConfiguration {
+
+	@Bean(destroyMethod = "close")
+	public McpClientPool mcpClientPool(McpClientPoolProperties properties) throws IOException {
+
+		McpClientPool pool = new McpClientPool(McpServerUtils.getMcpServerConfig(), properties);
+		if (properties.prewarm()) {
+			pool.prewarm();
+		}
+		return pool;
+	}
+
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.config.mcp;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * MCP stdio 客户端进程池配置
+ *
+ * @param maxPerKey 每个 (server name, env) 组合最多同时存在的 server 进程数
+ * @param prewarm 是否在启动时为使用配置文件默认 env 的 server 预热进程，默认关闭，进程在首次使用时才启动
+ * @param minIdle 开启预热时，使用配置文件默认 env 的 server 预热并常驻的进程数
+ * @param idleTimeout 空闲超过该时间的进程会被关闭（预热的常驻进程除外）
+ * @param acquireTimeout 等待空闲进程的最长时间
+ * @param requestTimeout 单次 MCP 请求的超时时间
+ * @param healthCheckInterval 空闲进程健康检查（ping）和空闲回收的周期
+ * @param maxRestarts 常驻进程连续启动失败的次数上限，超过后不再自动重启，直到下一次成功创建
+ */
+@ConfigurationProperties(prefix = McpClientPoolProperties.POOL_PREFIX)
+public record McpClientPoolProperties(@DefaultValue("2") int maxPerKey,
+									  @DefaultValue("false") boolean prewarm,
+									  @DefaultValue("0") int minIdle,
+									  @DefaultValue("10m") Duration idleTimeout,
+									  @DefaultValue("30s") Duration acquireTimeout,
+									  @DefaultValue("30s") Duration requestTimeout,
+									  @DefaultValue("1m") Duration healthCheckInterval,
+									  @DefaultValue("3") int maxRestarts) {
+	public static final String POOL_PREFIX = "spring.ai.alibaba.playground.mcp.pool";
+}
@@ -0,0 +1,476 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.config.rag;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+
+/**
+ * 基于 HNSW（Hierarchical Navigable Small World）图索引的进程内向量库
+ * <p>
+ * 与 SimpleVectorStore 的全量余弦扫描不同，检索只访问图中 O(log N) 量级的节点，适合 10 万以上切片的知识库。
+ * <ul>
+ *     <li>m：每个节点在上层保留的邻居数，第 0 层为 2 * m，越大召回越高、内存和构建耗时越大；</li>
+ *     <li>efConstruction：构建时的候选集大小；</li>
+ *     <li>efSearch：检索时的候选集大小，至少为 topK，越大召回越高、延迟越大。</li>
+ * </ul>
+ * 向量在写入前做 L2 归一化，以点积作为相似度；删除为逻辑删除，被删除的节点仍参与图遍历但不会被返回。
+ * metadata 过滤表达式在图检索的候选上后置过滤，过滤后不足 topK 时逐步放大候选集重新检索，
+ * 放大到上限仍不足时说明匹配的文档很少，才退化为对匹配文档的精确扫描。
+ *
+ * @author yuluo
+ * @author <a href="mailto:yuluo08290126@gmail.com">yuluo</a>
+ */
+public class HnswVectorStore implements VectorStore {
+
+	private static final int FILTER_EF_FACTOR = 4;
+
+	/**
+	 * 有过滤条件时候选集最多放大到初始大小的倍数
+	 */
+	private static final int MAX_FILTER_EF_FACTOR = 64;
+
+	private final EmbeddingModel embeddingModel;
+
+	private final int m;
+
+	private final int efConstruction;
+
+	private final int efSearch;
+
+	private final double levelMultiplier;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private final List<float[]> vectors = new ArrayList<>();
+
+	private final List<VectorStoreSnapshot.Entry> entries = new ArrayList<>();
+
+	private final List<Node> nodes = new ArrayList<>();
+
+	private final Map<String, Integer> ordinals = new HashMap<>();
+
+	private final BitSet deleted = new BitSet();
+
+	private int entryPoint = -1;
+
+	private int maxLevel = -1;
+
+	public HnswVectorStore(EmbeddingModel embeddingModel, int m, int efConstruction, int efSearch) {
+		this.embeddingModel = embeddingModel;
+		this.m = Math.max(2, m);
+		this.efConstruction = Math.max(this.m, efConstruction);
+		this.efSearch = Math.max(1, efSearch);
+		this.levelMultiplier = 1d / Math.log(this.m);
+	}
+
+	@Override
+	public void add(List<Document> documents) {
+
+		if (documents.isEmpty()) {
+			return;
+		}
+
+		// embedding 调用在锁外进行，允许多个批次并行
+		List<float[]> embeddings = embeddingModel.embed(documents.stream().map(Document::getText).toList());
+
+		lock.writeLock().lock();
+		try {
+			for (int i = 0; i < documents.size(); i++) {
+				Document document = documents.get(i);
+				float[] vector = embeddings.get(i);
+				normalize(vector);
+
+				int ordinal = nodes.size();
+				Integer previous = ordinals.put(document.getId(), ordinal);
+				if (previous != null) {
+					deleted.set(previous);
+				}
+				vectors.add(vector);
+				entries.add(new VectorStoreSnapshot.Entry(document.getId(), document.getText(), document.getMetadata()));
+				insert(ordinal, vector);
+			}
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public void delete(List<String> idList) {
+
+		lock.writeLock().lock();
+		try {
+			for (String id : idList) {
+				Integer ordinal = ordinals.remove(id);
+				if (ordinal != null) {
+					deleted.set(ordinal);
+				}
+			}
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public void delete(Filter.Expression filterExpression) {
+
+		Predicate<Map<String, Object>> filter = MetadataFilter.of(filterExpression);
+		List<String> ids = new ArrayList<>();
+		lock.readLock().lock();
+		try {
+			ordinals.forEach((id, ordinal) -> {
+				if (filter.test(entries.get(ordinal).metadata())) {
+					ids.add(id);
+				}
+			});
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+		delete(ids);
+	}
+
+	@Override
+	public List<Document> similaritySearch(SearchRequest request) {
+
+		Predicate<Map<String, Object>> filter = request.hasFilterExpression()
+				? MetadataFilter.of(request.getFilterExpression()) : null;
+		float[] query = embeddingModel.embed(request.getQuery());
+		normalize(query);
+
+		lock.readLock().lock();
+		try {
+			if (entryPoint < 0) {
+				return List.of();
+			}
+
+			int current = entryPoint;
+			for (int level = maxLevel; level > 0; level--) {
+				current = greedySearch(query, current, level);
+			}
+
+			// 逻辑删除的节点会占用候选位置，适当放大候选集
+			int ef = Math.max(efSearch, request.getTopK()) + Math.min(deleted.cardinality(), efSearch);
+			if (filter == null) {
+				return collect(sorted(searchLayer(query, current, ef, 0)), request, null);
+			}
+
+			// 有过滤条件时逐步放大候选集，给后置过滤留出余量
+			int maxEf = Math.min(ef * MAX_FILTER_EF_FACTOR, nodes.size());
+			List<Document> results;
+			boolean belowThreshold;
+			while (true) {
+				ef = Math.min(ef * FILTER_EF_FACTOR, maxEf);
+				PriorityQueue<Candidate> found = searchLayer(query, current, ef, 0);
+				results = collect(sorted(found), request, filter);
+				// 候选集已经覆盖到阈值以下时，继续放大也找不到满足阈值的文档
+				belowThreshold = found.peek().score() < request.getSimilarityThreshold();
+				if (results.size() >= request.getTopK() || belowThreshold || ef >= maxEf) {
+					break;
+				}
+			}
+			if (results.size() < request.getTopK() && !belowThreshold && ef < nodes.size()) {
+				// 放大到上限仍不足 topK，说明匹配的文档很少，图检索可能找不全，对匹配的文档精确扫描
+				results = collect(exactScan(query, filter), request, filter);
+			}
+			return results;
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private static List<Candidate> sorted(PriorityQueue<Candidate> found) {
+
+		List<Candidate> sorted = new ArrayList<>(found);
+		sorted.sort(Comparator.comparingDouble(Candidate::score).reversed());
+		return sorted;
+	}
+
+	private List<Document> collect(List<Candidate> sorted, SearchRequest request, Predicate<Map<String, Object>> filter) {
+
+		List<Document> results = new ArrayList<>(request.getTopK());
+		for (Candidate candidate : sorted) {
+			if (results.size() >= request.getTopK()) {
+				break;
+			}
+			if (deleted.get(candidate.node()) || candidate.score() < request.getSimilarityThreshold()) {
+				continue;
+			}
+			VectorStoreSnapshot.Entry entry = entries.get(candidate.node());
+			if (filter != null && !filter.test(entry.metadata())) {
+				continue;
+			}
+			Map<String, Object> metadata = new HashMap<>(entry.metadata());
+			metadata.put("distance", 1.0f - candidate.score());
+			results.add(Document.builder()
+					.id(entry.id())
+					.text(entry.text())
+					.metadata(metadata)
+					.score((double) candidate.score())
+					.build());
+		}
+		return results;
+	}
+
+	private List<Candidate> exactScan(float[] query, Predicate<Map<String, Object>> filter) {
+
+		List<Candidate> candidates = new ArrayList<>();
+		for (int ordinal : ordinals.values()) {
+			if (filter.test(entries.get(ordinal).metadata())) {
+				candidates.add(new Candidate(ordinal, dot(query, vectors.get(ordinal))));
+			}
+		}
+		candidates.sort(Comparator.comparingDouble(Candidate::score).reversed());
+		return candidates;
+	}
+
+	private void insert(int ordinal, float[] vector) {
+
+		int level = (int) (-Math.log(1d - ThreadLocalRandom.current().nextDouble()) * levelMultiplier);
+		Node node = new Node(level, m);
+		nodes.add(node);
+
+		if (entryPoint < 0) {
+			entryPoint = ordinal;
+			maxLevel = level;
+			return;
+		}
+
+		int current = entryPoint;
+		for (int l = maxLevel; l > level; l--) {
+			current = greedySearch(vector, current, l);
+		}
+
+		for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+			PriorityQueue<Candidate> candidates = searchLayer(vector, current, efConstruction, l);
+			List<Candidate> closest = new ArrayList<>(candidates);
+			closest.sort(Comparator.comparingDouble(Candidate::score).reversed());
+
+			for (int neighbor : selectNeighbors(closest, m)) {
+				node.connect(l, neighbor);
+				connectBack(neighbor, ordinal, l);
+			}
+			current = closest.get(0).node();
+		}
+
+		if (level > maxLevel) {
+			maxLevel = level;
+			entryPoint = ordinal;
+		}
+	}
+
+	/**
+	 * 反向连接邻居，超过邻居上限时重新做一次邻居选择
+	 */
+	private void connectBack(int neighbor, int ordinal, int level) {
+
+		Node node = nodes.get(neighbor);
+		if (node.connect(level, ordinal)) {
+			return;
+		}
+
+		float[] base = vectors.get(neighbor);
+		int[] links = node.neighbors[level];
+		List<Candidate> candidates = new ArrayList<>(links.length + 1);
+		candidates.add(new Candidate(ordinal, dot(base, vectors.get(ordinal))));
+		for (int i = 0; i < node.sizes[level]; i++) {
+			candidates.add(new Candidate(links[i], dot(base, vectors.get(links[i]))));
+		}
+		candidates.sort(Comparator.comparingDouble(Candidate::score).reversed());
+
+		int[] selected = selectNeighbors(candidates, links.length);
+		System.arraycopy(selected, 0, links, 0, selected.length);
+		node.sizes[level] = selected.length;
+	}
+
+	/**
+	 * HNSW 论文中的启发式邻居选择：优先保留与已选邻居方向不同的候选，提升图的连通性和召回率，
+	 * 不足 limit 个时再按相似度补齐。
+	 * @param sorted 按相似度降序排列的候选
+	 */
+	private int[] selectNeighbors(List<Candidate> sorted, int limit) {
+
+		int[] selected = new int[Math.min(limit, sorted.size())];
+		BitSet taken = new BitSet(sorted.size());
+		int size = 0;
+		for (int i = 0; i < sorted.size() && size < selected.length; i++) {
+			Candidate candidate = sorted.get(i);
+			float[] vector = vectors.get(candidate.node());
+			boolean diverse = true;
+			for (int j = 0; j < size; j++) {
+				if (dot(vector, vectors.get(selected[j])) > candidate.score()) {
+					diverse = false;
+					break;
+				}
+			}
+			if (diverse) {
+				selected[size++] = candidate.node();
+				taken.set(i);
+			}
+		}
+		for (int i = 0; i < sorted.size() && size < selected.length; i++) {
+			if (!taken.get(i)) {
+				selected[size++] = sorted.get(i).node();
+			}
+		}
+		return selected;
+	}
+
+	private int greedySearch(float[] query, int start, int level) {
+
+		int current = start;
+		float best = dot(query, vectors.get(current));
+		boolean changed = true;
+		while (changed) {
+			changed = false;
+			Node node = nodes.get(current);
+			int[] links = node.neighbors[level];
+			for (int i = 0; i < node.sizes[level]; i++) {
+				float score = dot(query, vectors.get(links[i]));
+				if (score > best) {
+					best = score;
+					current = links[i];
+					changed = true;
+				}
+			}
+		}
+		return current;
+	}
+
+	/**
+	 * 在指定层做 beam search，返回以相似度升序排列的最小堆（堆顶为当前最差结果）
+	 */
+	private PriorityQueue<Candidate> searchLayer(float[] query, int start, int ef, int level) {
+
+		BitSet visited = new BitSet(nodes.size());
+		PriorityQueue<Candidate> candidates = new PriorityQueue<>(Comparator.comparingDouble(Candidate::score).reversed());
+		PriorityQueue<Candidate> results = new PriorityQueue<>(Comparator.comparingDouble(Candidate::score));
+
+		Candidate first = new Candidate(start, dot(query, vectors.get(start)));
+		visited.set(start);
+		candidates.add(first);
+		results.add(first);
+
+		while (!candidates.isEmpty()) {
+			Candidate candidate = candidates.poll();
+			if (results.size() >= ef && candidate.score() < results.peek().score()) {
+				break;
+			}
+
+			Node node = nodes.get(candidate.node());
+			if (level > node.level) {
+				continue;
+			}
+			int[] links = node.neighbors[level];
+			for (int i = 0; i < node.sizes[level]; i++) {
+				int neighbor = links[i];
+				if (visited.get(neighbor)) {
+					continue;
+				}
+				visited.set(neighbor);
+
+				float score = dot(query, vectors.get(neighbor));
+				if (results.size() < ef || score > results.peek().score()) {
+					Candidate next = new Candidate(neighbor, score);
+					candidates.add(next);
+					results.add(next);
+					if (results.size() > ef) {
+						results.poll();
+					}
+				}
+			}
+		}
+
+		return results;
+	}
+
+	private static float dot(float[] a, float[] b) {
+
+		float sum = 0f;
+		for (int i = 0; i < a.length; i++) {
+			sum += a[i] * b[i];
+		}
+		return sum;
+	}
+
+	private static void normalize(float[] vector) {
+
+		double norm = 0d;
+		for (float v : vector) {
+			norm += v * v;
+		}
+		if (norm == 0d) {
+			return;
+		}
+		float scale = (float) (1d / Math.sqrt(norm));
+		for (int i = 0; i < vector.length; i++) {
+			vector[i] *= scale;
+		}
+	}
+
+	private record Candidate(int node, float score) {
+	}
+
+	private static final class Node {
+
+		private final int level;
+
+		private final int[][] neighbors;
+
+		private final int[] sizes;
+
+		Node(int level, int m) {
+			this.level = level;
+			this.neighbors = new int[level + 1][];
+			this.sizes = new int[level + 1];
+			for (int l = 0; l <= level; l++) {
+				// 第 0 层保留 2 * m 个邻居，保证底层图的连通性
+				this.neighbors[l] = new int[l == 0 ? 2 * m : m];
+			}
+		}
+
+		/**
+		 * @return 邻居数未达到上限并成功连接时返回 true
+		 */
+		boolean connect(int level, int neighbor) {
+			if (sizes[level] >= neighbors[level].length) {
+				return false;
+			}
+			neighbors[level][sizes[level]++] = neighbor;
+			return true;
+		}
+	}
+
+}
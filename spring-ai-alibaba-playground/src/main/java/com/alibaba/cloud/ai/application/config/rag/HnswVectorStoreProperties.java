@@ -0,0 +1,34 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.config.rag;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * HNSW 向量库配置，通过环境变量 VECTOR_STORE_TYPE=hnsw 启用
+ *
+ * @param m 每个节点的邻居数
+ * @param efConstruction 构建索引时的候选集大小
+ * @param efSearch 检索时的候选集大小
+ */
+@ConfigurationProperties(prefix = HnswVectorStoreProperties.HNSW_PREFIX)
+public record HnswVectorStoreProperties(@DefaultValue("16") int m,
+										@DefaultValue("200") int efConstruction,
+										@DefaultValue("100") int efSearch) {
+	public static final String HNSW_PREFIX = "spring.ai.alibaba.playground.rag.hnsw";
+}
@@ -0,0 +1,361 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.config.rag;
+
+import java.io.IOException;
+import java.nio.FloatBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+import com.alibaba.cloud.ai.application.exception.SAAAppException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+
+/**
+ * 基于 {@link VectorStoreSnapshot} 的持久化内存向量库
+ * <p>
+ * 与 SimpleVectorStore 相比：
+ * 1. 启动时直接 mmap 快照文件，不需要重新调用 embedding 模型；
+ * 2. 向量保存在堆外（mmap）内存中，堆内只保留 id、text 和 metadata；
+ * 3. 每次 add 都会立即追加到快照文件，进程崩溃不会丢失已经 embedding 的文档；
+ *    新追加的向量在 {@link #flush()} 之前暂存在堆内，flush 后重新 mmap。
+ * <p>
+ * 向量在写入前做 L2 归一化，检索时用点积代替余弦相似度；metadata 过滤表达式在打分前逐条判断。
+ *
+ * @author yuluo
+ * @author <a href="mailto:yuluo08290126@gmail.com">yuluo</a>
+ */
+public class MappedVectorStore implements VectorStore, AutoCloseable {
+
+	private static final Logger logger = LoggerFactory.getLogger(MappedVectorStore.class);
+
+	private final EmbeddingModel embeddingModel;
+
+	private final VectorStoreSnapshot snapshot;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private int dimensions;
+
+	private List<VectorStoreSnapshot.Entry> entries = new ArrayList<>();
+
+	private List<FloatBuffer> segments = new ArrayList<>();
+
+	private int vectorsPerSegment;
+
+	/**
+	 * 已经追加到快照文件、但尚未重新 mmap 的向量，序号紧跟在 mmap 区域之后
+	 */
+	private final List<float[]> tail = new ArrayList<>();
+
+	private final Map<String, Integer> ordinals = new HashMap<>();
+
+	private final Set<Integer> deleted = new HashSet<>();
+
+	public MappedVectorStore(EmbeddingModel embeddingModel, Path snapshotPath) {
+		this.embeddingModel = embeddingModel;
+		this.snapshot = new VectorStoreSnapshot(snapshotPath);
+		reload();
+	}
+
+	/**
+	 * 快照中是否已有数据，用于判断启动时是否可以跳过导入
+	 */
+	public boolean isEmpty() {
+
+		lock.readLock().lock();
+		try {
+			return ordinals.isEmpty();
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	@Override
+	public void add(List<Document> documents) {
+
+		if (documents.isEmpty()) {
+			return;
+		}
+
+		// embedding 调用在锁外进行，允许多个批次并行
+		List<float[]> vectors = embeddingModel.embed(documents.stream().map(Document::getText).toList());
+		List<VectorStoreSnapshot.Entry> added = new ArrayList<>(documents.size());
+		for (int i = 0; i < documents.size(); i++) {
+			Document document = documents.get(i);
+			normalize(vectors.get(i));
+			added.add(new VectorStoreSnapshot.Entry(document.getId(), document.getText(), document.getMetadata()));
+		}
+
+		lock.writeLock().lock();
+		try {
+			if (dimensions == 0) {
+				dimensions = vectors.get(0).length;
+			}
+			snapshot.append(dimensions, added, vectors);
+
+			for (int i = 0; i < added.size(); i++) {
+				Integer previous = ordinals.put(added.get(i).id(), entries.size());
+				if (previous != null) {
+					deleted.add(previous);
+				}
+				entries.add(added.get(i));
+				tail.add(vectors.get(i));
+			}
+		}
+		catch (IOException e) {
+			throw new SAAAppException("Failed to append documents to vector snapshot: " + e.getMessage());
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public void delete(List<String> idList) {
+
+		lock.writeLock().lock();
+		try {
+			List<Integer> removed = new ArrayList<>(idList.size());
+			for (String id : idList) {
+				Integer ordinal = ordinals.remove(id);
+				if (ordinal != null) {
+					deleted.add(ordinal);
+					removed.add(ordinal);
+				}
+			}
+			if (!removed.isEmpty()) {
+				snapshot.appendTombstones(removed);
+			}
+		}
+		catch (IOException e) {
+			throw new SAAAppException("Failed to delete documents from vector snapshot: " + e.getMessage());
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public void delete(Filter.Expression filterExpression) {
+
+		Predicate<Map<String, Object>> filter = MetadataFilter.of(filterExpression);
+		List<String> ids = new ArrayList<>();
+		lock.readLock().lock();
+		try {
+			ordinals.forEach((id, ordinal) -> {
+				if (filter.test(entries.get(ordinal).metadata())) {
+					ids.add(id);
+				}
+			});
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+		delete(ids);
+	}
+
+	@Override
+	public List<Document> similaritySearch(SearchRequest request) {
+
+		Predicate<Map<String, Object>> filter = request.hasFilterExpression()
+				? MetadataFilter.of(request.getFilterExpression()) : null;
+		float[] query = embeddingModel.embed(request.getQuery());
+		normalize(query);
+
+		lock.readLock().lock();
+		try {
+			int topK = request.getTopK();
+			PriorityQueue<ScoredOrdinal> heap = new PriorityQueue<>(topK + 1, Comparator.comparingDouble(ScoredOrdinal::score));
+			int mapped = entries.size() - tail.size();
+			for (int ordinal = 0; ordinal < entries.size(); ordinal++) {
+				if (deleted.contains(ordinal) || (filter != null && !filter.test(entries.get(ordinal).metadata()))) {
+					continue;
+				}
+				float score = ordinal < mapped ? dot(query, ordinal) : dot(query, tail.get(ordinal - mapped));
+				if (score < request.getSimilarityThreshold()) {
+					continue;
+				}
+				if (heap.size() < topK) {
+					heap.add(new ScoredOrdinal(ordinal, score));
+				}
+				else if (score > heap.peek().score()) {
+					heap.poll();
+					heap.add(new ScoredOrdinal(ordinal, score));
+				}
+			}
+
+			List<Document> results = new ArrayList<>(heap.size());
+			while (!heap.isEmpty()) {
+				ScoredOrdinal scored = heap.poll();
+				VectorStoreSnapshot.Entry entry = entries.get(scored.ordinal());
+				Map<String, Object> metadata = new HashMap<>(entry.metadata());
+				metadata.put("distance", 1.0f - scored.score());
+				results.add(0, Document.builder()
+						.id(entry.id())
+						.text(entry.text())
+						.metadata(metadata)
+						.score((double) scored.score())
+						.build());
+			}
+			return results;
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * 将暂存在堆内的新向量移到 mmap 区域；存在删除时顺便压缩快照。
+	 */
+	public void flush() {
+
+		lock.writeLock().lock();
+		try {
+			if (!deleted.isEmpty()) {
+				List<VectorStoreSnapshot.Entry> liveEntries = new ArrayList<>(ordinals.size());
+				List<float[]> liveVectors = new ArrayList<>(ordinals.size());
+				int mapped = entries.size() - tail.size();
+				for (int ordinal = 0; ordinal < entries.size(); ordinal++) {
+					if (deleted.contains(ordinal)) {
+						continue;
+					}
+					liveEntries.add(entries.get(ordinal));
+					liveVectors.add(ordinal < mapped ? copy(ordinal) : tail.get(ordinal - mapped));
+				}
+				snapshot.rewrite(dimensions, liveEntries, liveVectors);
+				logger.debug("Compacted vector snapshot, removed {} deleted documents.", deleted.size());
+			}
+			else if (tail.isEmpty()) {
+				return;
+			}
+			reload();
+		}
+		catch (IOException e) {
+			throw new SAAAppException("Failed to flush vector snapshot: " + e.getMessage());
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public void close() {
+
+		flush();
+	}
+
+	private void reload() {
+
+		entries = new ArrayList<>();
+		segments = new ArrayList<>();
+		tail.clear();
+		ordinals.clear();
+		deleted.clear();
+
+		if (!snapshot.exists()) {
+			return;
+		}
+
+		try {
+			VectorStoreSnapshot.Loaded loaded = snapshot.load();
+			dimensions = loaded.dimensions();
+			entries = loaded.entries();
+			segments = loaded.segments();
+			vectorsPerSegment = segments.isEmpty() ? 0 : segments.get(0).capacity() / dimensions;
+			for (int ordinal = 0; ordinal < entries.size(); ordinal++) {
+				String id = entries.get(ordinal).id();
+				if (loaded.deleted().contains(ordinal)) {
+					deleted.add(ordinal);
+					continue;
+				}
+				Integer previous = ordinals.put(id, ordinal);
+				if (previous != null) {
+					deleted.add(previous);
+				}
+			}
+			logger.debug("Loaded {} documents from vector snapshot.", ordinals.size());
+		}
+		catch (IOException e) {
+			throw new SAAAppException("Failed to load vector snapshot: " + e.getMessage());
+		}
+	}
+
+	private float dot(float[] query, int ordinal) {
+
+		FloatBuffer segment = segments.get(ordinal / vectorsPerSegment);
+		int offset = (ordinal % vectorsPerSegment) * dimensions;
+		float sum = 0f;
+		for (int i = 0; i < dimensions; i++) {
+			sum += query[i] * segment.get(offset + i);
+		}
+		return sum;
+	}
+
+	private static float dot(float[] query, float[] vector) {
+
+		float sum = 0f;
+		for (int i = 0; i < query.length; i++) {
+			sum += query[i] * vector[i];
+		}
+		return sum;
+	}
+
+	private float[] copy(int ordinal) {
+
+		FloatBuffer segment = segments.get(ordinal / vectorsPerSegment);
+		float[] vector = new float[dimensions];
+		segment.get((ordinal % vectorsPerSegment) * dimensions, vector);
+		return vector;
+	}
+
+	private static void normalize(float[] vector) {
+
+		double norm = 0d;
+		for (float v : vector) {
+			norm += v * v;
+		}
+		if (norm == 0d) {
+			return;
+		}
+		float scale = (float) (1d / Math.sqrt(norm));
+		for (int i = 0; i < vector.length; i++) {
+			vector[i] *= scale;
+		}
+	}
+
+	private record ScoredOrdinal(int ordinal, float score) {
+	}
+
+}
@@ -0,0 +1,325 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.config.rag;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.alibaba.cloud.ai.application.exception.SAAAppException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.reader.markdown.MarkdownDocumentReader;
+import org.springframework.ai.reader.markdown.config.MarkdownDocumentReaderConfig;
+import org.springframework.ai.transformer.splitter.TokenTextSplitter;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+
+/**
+ * 并行、分批、可断点续传的 markdown 导入引擎
+ * <p>
+ * 1. 文件的读取、哈希和切分在固定大小的线程池中并行执行；
+ * 2. 每个文件切分后的文档按 batchSize 分批调用 vectorStore.add，同时进行中的批次数量受 maxInFlight 限制；
+ * 3. 当配置了清单文件时，记录每个文件的内容哈希和写入的文档 id，重启时跳过内容未变更的文件，
+ *    变更的文件会先删除旧文档再重新写入。
+ *
+ * @author yuluo
+ * @author <a href="mailto:yuluo08290126@gmail.com">yuluo</a>
+ */
+public class MarkdownIngestionEngine {
+
+	private static final Logger logger = LoggerFactory.getLogger(MarkdownIngestionEngine.class);
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	/**
+	 * 每成功导入多少个文件刷新一次清单，避免进程崩溃后全部重来
+	 */
+	private static final int MANIFEST_FLUSH_INTERVAL = 50;
+
+	private final VectorStore vectorStore;
+
+	private final int parallelism;
+
+	private final int batchSize;
+
+	private final int maxInFlight;
+
+	private final Path manifestPath;
+
+	private final TokenTextSplitter splitter = new TokenTextSplitter(2000, 1024, 10, 10000, true);
+
+	private MarkdownIngestionEngine(Builder builder) {
+		this.vectorStore = Objects.requireNonNull(builder.vectorStore, "vectorStore must not be null");
+		this.parallelism = Math.max(1, builder.parallelism);
+		this.batchSize = Math.max(1, builder.batchSize);
+		this.maxInFlight = Math.max(1, builder.maxInFlight);
+		this.manifestPath = builder.manifestPath;
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * 导入给定的 markdown 资源，阻塞直到所有 embedding 批次完成。
+	 * @param resources markdown 资源，key 为在清单中使用的稳定标识（文件路径或 classpath 路径）
+	 */
+	public IngestionResult ingest(Map<String, Resource> resources) {
+
+		Map<String, ManifestEntry> manifest = loadManifest();
+		AtomicInteger skipped = new AtomicInteger();
+		AtomicInteger documents = new AtomicInteger();
+		AtomicInteger completed = new AtomicInteger();
+		Semaphore inFlight = new Semaphore(maxInFlight);
+
+		ExecutorService readPool = Executors.newFixedThreadPool(parallelism, namedThreadFactory("md-split"));
+		ExecutorService embedPool = Executors.newFixedThreadPool(maxInFlight, namedThreadFactory("md-embed"));
+
+		try {
+			List<CompletableFuture<Void>> files = new ArrayList<>(resources.size());
+			for (Map.Entry<String, Resource> entry : resources.entrySet()) {
+				String key = entry.getKey();
+				CompletableFuture<Void> file = CompletableFuture
+						.supplyAsync(() -> split(key, entry.getValue(), manifest.get(key)), readPool)
+						.thenCompose(chunks -> {
+							if (chunks == null) {
+								skipped.incrementAndGet();
+								return CompletableFuture.completedFuture(null);
+							}
+							documents.addAndGet(chunks.documents().size());
+							return embed(chunks, manifest.get(key), inFlight, embedPool)
+									.thenRun(() -> {
+										manifest.put(key, new ManifestEntry(chunks.hash(), chunks.ids()));
+										if (completed.incrementAndGet() % MANIFEST_FLUSH_INTERVAL == 0) {
+											saveManifest(manifest);
+										}
+									});
+						});
+				files.add(file);
+			}
+
+			CompletableFuture.allOf(files.toArray(new CompletableFuture[0])).join();
+
+			// 清理已从目录中删除的文件对应的文档
+			manifest.entrySet().removeIf(entry -> {
+				if (resources.containsKey(entry.getKey())) {
+					return false;
+				}
+				if (!entry.getValue().ids().isEmpty()) {
+					vectorStore.delete(entry.getValue().ids());
+				}
+				return true;
+			});
+		}
+		finally {
+			readPool.shutdown();
+			embedPool.shutdown();
+			saveManifest(manifest);
+		}
+
+		return new IngestionResult(resources.size(), skipped.get(), documents.get());
+	}
+
+	private FileChunks split(String key, Resource resource, ManifestEntry previous) {
+
+		byte[] content;
+		try (InputStream in = resource.getInputStream()) {
+			content = in.readAllBytes();
+		}
+		catch (IOException e) {
+			throw new SAAAppException("Failed to read markdown file " + key + ": " + e.getMessage());
+		}
+
+		String hash = sha256(content);
+		if (manifestPath != null && previous != null && hash.equals(previous.hash())) {
+			logger.debug("Skip unchanged markdown file: {}", key);
+			return null;
+		}
+
+		ByteArrayResource bytes = new ByteArrayResource(content, key) {
+			@Override
+			public String getFilename() {
+				return resource.getFilename();
+			}
+		};
+		List<Document> docs = splitter.transform(
+				new MarkdownDocumentReader(bytes, MarkdownDocumentReaderConfig.defaultConfig()).get());
+
+		return new FileChunks(hash, docs);
+	}
+
+	private CompletableFuture<Void> embed(FileChunks chunks, ManifestEntry previous,
+			Semaphore inFlight, ExecutorService embedPool) {
+
+		// 文件内容已变更，先删除上一次写入的文档，避免残留过期切片
+		if (manifestPath != null && previous != null && !previous.ids().isEmpty()) {
+			vectorStore.delete(previous.ids());
+		}
+
+		List<Document> docs = chunks.documents();
+		List<CompletableFuture<Void>> batches = new ArrayList<>((docs.size() + batchSize - 1) / batchSize);
+		for (int i = 0; i < docs.size(); i += batchSize) {
+			List<Document> batch = docs.subList(i, Math.min(i + batchSize, docs.size()));
+			inFlight.acquireUninterruptibly();
+			batches.add(CompletableFuture
+					.runAsync(() -> vectorStore.add(batch), embedPool)
+					.whenComplete((v, ex) -> inFlight.release()));
+		}
+
+		return CompletableFuture.allOf(batches.toArray(new CompletableFuture[0]));
+	}
+
+	private Map<String, ManifestEntry> loadManifest() {
+
+		if (manifestPath == null || !Files.exists(manifestPath)) {
+			return new ConcurrentHashMap<>();
+		}
+
+		try {
+			Map<String, ManifestEntry> entries = MAPPER.readValue(manifestPath.toFile(),
+					new TypeReference<Map<String, ManifestEntry>>() {
+					});
+			logger.debug("Loaded ingestion manifest with {} entries from {}", entries.size(), manifestPath);
+			return new ConcurrentHashMap<>(entries);
+		}
+		catch (IOException e) {
+			logger.warn("Failed to read ingestion manifest {}, re-ingesting all files: {}", manifestPath, e.getMessage());
+			return new ConcurrentHashMap<>();
+		}
+	}
+
+	private synchronized void saveManifest(Map<String, ManifestEntry> manifest) {
+
+		if (manifestPath == null) {
+			return;
+		}
+
+		try {
+			Path parent = manifestPath.toAbsolutePath().getParent();
+			if (parent != null) {
+				Files.createDirectories(parent);
+			}
+			Path tmp = manifestPath.resolveSibling(manifestPath.getFileName() + ".tmp");
+			MAPPER.writeValue(tmp.toFile(), manifest);
+			Files.move(tmp, manifestPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch (IOException e) {
+			logger.warn("Failed to write ingestion manifest {}: {}", manifestPath, e.getMessage());
+		}
+	}
+
+	private static String sha256(byte[] content) {
+
+		try {
+			return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static ThreadFactory namedThreadFactory(String prefix) {
+
+		AtomicInteger counter = new AtomicInteger();
+		return runnable -> {
+			Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+	private record FileChunks(String hash, List<Document> documents) {
+
+		List<String> ids() {
+			return documents.stream().map(Document::getId).toList();
+		}
+	}
+
+	public record ManifestEntry(String hash, List<String> ids) {
+	}
+
+	public record IngestionResult(int files, int skipped, int documents) {
+	}
+
+	public static class Builder {
+
+		private VectorStore vectorStore;
+
+		private int parallelism = Runtime.getRuntime().availableProcessors();
+
+		private int batchSize = 25;
+
+		private int maxInFlight = 4;
+
+		private Path manifestPath;
+
+		public Builder vectorStore(VectorStore vectorStore) {
+			this.vectorStore = vectorStore;
+			return this;
+		}
+
+		public Builder parallelism(int parallelism) {
+			this.parallelism = parallelism;
+			return this;
+		}
+
+		public Builder batchSize(int batchSize) {
+			this.batchSize = batchSize;
+			return this;
+		}
+
+		public Builder maxInFlight(int maxInFlight) {
+			this.maxInFlight = maxInFlight;
+			return this;
+		}
+
+		/**
+		 * 设置内容哈希清单路径，为 null 时每次启动都全量导入（适用于纯内存向量库）
+		 */
+		public Builder manifestPath(Path manifestPath) {
+			this.manifestPath = manifestPath;
+			return this;
+		}
+
+		public MarkdownIngestionEngine build() {
+			return new MarkdownIngestionEngine(this);
+		}
+	}
+
+}
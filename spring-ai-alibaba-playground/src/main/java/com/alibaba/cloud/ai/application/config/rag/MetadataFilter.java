@@ -0,0 +1,54 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.application.config.rag;
+
+import java.util.Map;
+import java.util.function.Predicate;
+
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.ai.vectorstore.filter.converter.SimpleVectorStoreFilterExpressionConverter;
+import org.springframework.expression.Expression;
+import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+
+/**
+ * 本地向量库的 metadata 过滤
+ * <p>
+ * 与 SimpleVectorStore 相同：把过滤表达式转换为 SpEL，对每个文档的 metadata 求值。
+ *
+ * @author yuluo
+ * @author <a href="mailto:yuluo08290126@gmail.com">yuluo</a>
+ */
+final class MetadataFilter {
+
+	private static final ExpressionParser PARSER = new SpelExpressionParser();
+
+	private MetadataFilter() {
+	}
+
+	static Predicate<Map<String, Object>> of(Filter.Expression filterExpression) {
+
+		Expression expression = PARSER.parseExpression(
+				new SimpleVectorStoreFilterExpressionConverter().convertExpression(filterExpression));
+		return metadata -> {
+			StandardEvaluationContext context = new StandardEvaluationContext();
+			context.setVariable("metadata", metadata);
+			return Boolean.TRUE.equals(expression.getValue(context, Boolean.class));
+		};
+	}
+
+}
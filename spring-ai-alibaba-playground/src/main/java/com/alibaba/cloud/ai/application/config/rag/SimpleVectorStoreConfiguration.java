@@ -16,6 +16,8 @@
 
 package com.alibaba.cloud.ai.application.config.rag;
 
+import java.nio.file.Paths;
+
 import org.springframework.ai.embedding.EmbeddingModel;
 import org.springframework.ai.vectorstore.SimpleVectorStore;
 import org.springframework.ai.vectorstore.VectorStore;
@@ -23,24 +25,34 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
+@EnableConfigurationProperties({
+		VectorStoreIngestionProperties.class,
+		VectorStoreSnapshotProperties.class,
+		HnswVectorStoreProperties.class
+})
 public class SimpleVectorStoreConfiguration {
 
 	@Value("${spring.ai.alibaba.playground.bailian.enable:false}")
 	private Boolean enable;
 
 	@Bean
-	CommandLineRunner ingestTermOfServiceToVectorStore(VectorStoreDelegate vectorStoreDelegate) {
+	CommandLineRunner ingestTermOfServiceToVectorStore(
+			VectorStoreDelegate vectorStoreDelegate,
+			VectorStoreIngestionProperties ingestionProperties
+	) {
 		return args -> {
 			// 百炼知识库和向量存储初始化
 			// 如果未启用百炼知识库，则默认用向量存储服务
 			if (!enable) {
 				String type = System.getenv("VECTOR_STORE_TYPE");
-				VectorStoreInitializer initializer = new VectorStoreInitializer();
-				initializer.init(vectorStoreDelegate.getVectorStore(type));
+				VectorStore vectorStore = vectorStoreDelegate.getVectorStore(type);
+				VectorStoreInitializer initializer = new VectorStoreInitializer(ingestionProperties);
+				initializer.init(vectorStore, vectorStoreDelegate.isPersistent(vectorStore));
 			}
 		};
 	}
@@ -49,24 +61,43 @@ public class SimpleVectorStoreConfiguration {
 	 * 提供基于内存的向量存储（SimpleVectorStore）
 	 * <p>
 	 * 依赖 EmbeddingModel（自动注入，Alibaba 的嵌入模型）
+	 * 启用快照时使用 MappedVectorStore，向量保存在 mmap 文件中，重启后无需重新 embedding
 	 * @param embeddingModel
 	 * @return
 	 */
 	@Bean
 	public VectorStore simpleVectorStore(
-			@Qualifier("dashscopeEmbeddingModel") EmbeddingModel embeddingModel
+			@Qualifier("dashscopeEmbeddingModel") EmbeddingModel embeddingModel,
+			VectorStoreSnapshotProperties snapshotProperties
 	) {
 
+		if (snapshotProperties.enabled()) {
+			return new MappedVectorStore(embeddingModel, Paths.get(System.getProperty("user.dir"), snapshotProperties.path()));
+		}
+
 		return SimpleVectorStore.builder(embeddingModel).build();
 	}
 
+	/**
+	 * 提供基于 HNSW 图索引的进程内向量存储，适合大规模知识库的近似最近邻检索
+	 */
+	@Bean
+	public VectorStore hnswVectorStore(
+			@Qualifier("dashscopeEmbeddingModel") EmbeddingModel embeddingModel,
+			HnswVectorStoreProperties hnswProperties
+	) {
+
+		return new HnswVectorStore(embeddingModel, hnswProperties.m(), hnswProperties.efConstruction(), hnswProperties.efSearch());
+	}
+
 	@Bean
 	public VectorStoreDelegate vectorStoreDelegate(
 			@Qualifier("simpleVectorStore") VectorStore simpleVectorStore,
+			@Qualifier("hnswVectorStore") VectorStore hnswVectorStore,
 			@Qualifier("analyticdbVectorStore") @Autowired(required = false) VectorStore analyticdbVectorStore
 	) {
 
-		return new VectorStoreDelegate(simpleVectorStore, analyticdbVectorStore);
+		return new VectorStoreDelegate(simpleVectorStore, hnswVectorStore, analyticdbVectorStore);
 	}
 
 }
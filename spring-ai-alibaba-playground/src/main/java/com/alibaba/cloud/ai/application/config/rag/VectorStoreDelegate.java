@@ -24,10 +24,13 @@ public class VectorStoreDelegate {
 
 	private VectorStore simpleVectorStore;
 
+	private VectorStore hnswVectorStore;
+
 	private VectorStore analyticdbVectorStore;
 
-	public VectorStoreDelegate(VectorStore simpleVectorStore, VectorStore analyticdbVectorStore) {
+	public VectorStoreDelegate(VectorStore simpleVectorStore, VectorStore hnswVectorStore, VectorStore analyticdbVectorStore) {
 		this.simpleVectorStore = simpleVectorStore;
+		this.hnswVectorStore = hnswVectorStore;
 		this.analyticdbVectorStore = analyticdbVectorStore;
 	}
 
@@ -37,6 +40,18 @@ public class VectorStoreDelegate {
 			return analyticdbVectorStore;
 		}
 
+		if (Objects.equals(vectorStoreType, "hnsw") && hnswVectorStore != null) {
+			return hnswVectorStore;
+		}
+
 		return simpleVectorStore;
 	}
+
+	/**
+	 * SimpleVectorStore 和 HNSW 索引在重启后数据丢失，需要全量导入；mmap 快照和 AnalyticDB 可以基于哈希清单增量导入
+	 */
+	public boolean isPersistent(VectorStore vectorStore) {
+
+		return vectorStore instanceof MappedVectorStore || (vectorStore != null && vectorStore == analyticdbVectorStore);
+	}
 }
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.config.rag;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * 向量库 markdown 文档导入配置
+ *
+ * @param parallelism 并行读取和切分 markdown 文件的线程数
+ * @param batchSize 每次调用 vectorStore.add 的文档数量（DashScope embedding 单次最多 25 条）
+ * @param maxInFlight 同时进行中的 embedding 批次上限
+ * @param manifest 内容哈希清单文件路径，仅在向量库可持久化时生效，用于重启时跳过未变更的文件
+ */
+@ConfigurationProperties(prefix = VectorStoreIngestionProperties.INGESTION_PREFIX)
+public record VectorStoreIngestionProperties(@DefaultValue("4") int parallelism,
+											 @DefaultValue("25") int batchSize,
+											 @DefaultValue("4") int maxInFlight,
+											 @DefaultValue("rag/.ingest-manifest.json") String manifest) {
+	public static final String INGESTION_PREFIX = "spring.ai.alibaba.playground.rag.ingestion";
+}
@@ -17,21 +17,22 @@
 package com.alibaba.cloud.ai.application.config.rag;
 
 import java.io.IOException;
-import java.net.URISyntaxException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import org.springframework.ai.document.Document;
-import org.springframework.ai.reader.markdown.MarkdownDocumentReader;
-import org.springframework.ai.transformer.splitter.TokenTextSplitter;
 import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 
 /**
  * @author yuluo
@@ -41,53 +42,68 @@ public class VectorStoreInitializer {
 
 	private final Logger logger = LoggerFactory.getLogger(VectorStoreInitializer.class);
 
-	public void init(VectorStore vectorStore) throws Exception {
-		List<MarkdownDocumentReader> markdownDocumentReaderList = loadMarkdownDocuments();
+	private final VectorStoreIngestionProperties properties;
 
-		int size = 0;
-		if (markdownDocumentReaderList.isEmpty()) {
+	public VectorStoreInitializer(VectorStoreIngestionProperties properties) {
+		this.properties = properties;
+	}
+
+	/**
+	 * @param vectorStore 目标向量库
+	 * @param persistent 向量库是否在重启后保留数据，只有可持久化的向量库才会使用哈希清单跳过未变更的文件
+	 */
+	public void init(VectorStore vectorStore, boolean persistent) throws Exception {
+		Map<String, Resource> markdownResources = loadMarkdownDocuments();
+
+		if (markdownResources.isEmpty()) {
 			logger.warn("No markdown documents found in the directory.");
 			return;
 		}
 
+		Path manifestPath = persistent ? Paths.get(System.getProperty("user.dir"), properties.manifest()) : null;
+		if (manifestPath != null && vectorStore instanceof MappedVectorStore mapped && mapped.isEmpty()) {
+			// 快照被清理后清单已失效，需要全量导入
+			Files.deleteIfExists(manifestPath);
+		}
+
+		MarkdownIngestionEngine engine = MarkdownIngestionEngine.builder()
+				.vectorStore(vectorStore)
+				.parallelism(properties.parallelism())
+				.batchSize(properties.batchSize())
+				.maxInFlight(properties.maxInFlight())
+				.manifestPath(manifestPath)
+				.build();
+
 		logger.debug("Start to load markdown documents into vector store......");
-		for (MarkdownDocumentReader markdownDocumentReader : markdownDocumentReaderList) {
-			List<Document> documents = new TokenTextSplitter(2000, 1024, 10, 10000, true).transform(markdownDocumentReader.get());
-			size += documents.size();
-
-			// 拆分 documents 列表为最大 25 个元素的子列表
-			for (int i = 0; i < documents.size(); i += 25) {
-				int end = Math.min(i + 25, documents.size());
-				List<Document> subList = documents.subList(i, end);
-				vectorStore.add(subList);
-			}
+		long start = System.nanoTime();
+		MarkdownIngestionEngine.IngestionResult result = engine.ingest(markdownResources);
+		if (vectorStore instanceof MappedVectorStore mappedVectorStore) {
+			mappedVectorStore.flush();
 		}
-		logger.debug("Load markdown documents into vector store successfully. Load {} documents.", size);
+		logger.debug("Load markdown documents into vector store successfully. Load {} documents from {} files ({} unchanged skipped) in {} ms.",
+				result.documents(), result.files(), result.skipped(), (System.nanoTime() - start) / 1_000_000);
 	}
 
-	private List<MarkdownDocumentReader> loadMarkdownDocuments() throws IOException, URISyntaxException {
-		List<MarkdownDocumentReader> readers;
-		
+	private Map<String, Resource> loadMarkdownDocuments() throws IOException {
+		Map<String, Resource> resources = new LinkedHashMap<>();
+
 		// 首先检查jar包当前运行目录是否存在markdown文件
 		Path currentDirPath = Paths.get(System.getProperty("user.dir"), "rag", "markdown");
-		
+
 		if (Files.exists(currentDirPath) && Files.isDirectory(currentDirPath)) {
 			logger.debug("Found markdown directory in current running directory: {}", currentDirPath);
-			
+
 			try (Stream<Path> paths = Files.walk(currentDirPath)) {
 				List<Path> markdownFiles = paths.filter(Files::isRegularFile)
 						.filter(path -> path.toString().endsWith(".md"))
 						.collect(Collectors.toList());
-				
+
 				if (!markdownFiles.isEmpty()) {
 					logger.debug("Loading {} markdown files from current directory", markdownFiles.size());
-					readers = markdownFiles.stream()
-							.map(path -> {
-								String filePath = path.toAbsolutePath().toString();
-								return new MarkdownDocumentReader("file:" + filePath);
-							})
-							.collect(Collectors.toList());
-					return readers;
+					for (Path path : markdownFiles) {
+						resources.put("file:" + currentDirPath.relativize(path), new FileSystemResource(path));
+					}
+					return resources;
 				} else {
 					logger.debug("No markdown files found in current directory, falling back to resources");
 				}
@@ -95,23 +111,31 @@ public class VectorStoreInitializer {
 		} else {
 			logger.debug("Markdown directory not found in current directory, falling back to resources");
 		}
-		
-		// 如果当前运行目录没有找到，则从resources目录加载
-		Path markdownDir = Paths.get(getClass().getClassLoader().getResource("rag/markdown").toURI());
-		logger.debug("Loading markdown files from resources directory: {}", markdownDir);
-
-		try (Stream<Path> paths = Files.walk(markdownDir)) {
-			readers = paths.filter(Files::isRegularFile)
-					.filter(path -> path.toString().endsWith(".md"))
-					.map(path -> {
-						String fileName = path.getFileName().toString();
-						String classpathPath = "classpath:rag/markdown/" + fileName;
-						return new MarkdownDocumentReader(classpathPath);
-					})
-					.collect(Collectors.toList());
+
+		// 如果当前运行目录没有找到，则从resources目录加载（兼容以 jar 方式运行）
+		PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+		Resource[] roots = resolver.getResources("classpath*:rag/markdown/");
+		Resource[] classpathResources = resolver.getResources("classpath*:rag/markdown/**/*.md");
+		logger.debug("Loading {} markdown files from resources directory", classpathResources.length);
+
+		for (Resource resource : classpathResources) {
+			// 使用相对 rag/markdown/ 的路径作为 key，不同子目录下的同名文件不会互相覆盖
+			resources.put("classpath:rag/markdown/" + relativePath(roots, resource), resource);
 		}
 
-		return readers;
+		return resources;
+	}
+
+	private static String relativePath(Resource[] roots, Resource resource) throws IOException {
+		String uri = resource.getURI().toString();
+		for (Resource root : roots) {
+			String rootUri = root.getURI().toString();
+			if (uri.startsWith(rootUri)) {
+				return uri.substring(rootUri.length());
+			}
+		}
+		// 找不到所属的根目录时退化为完整 URI，保证 key 唯一
+		return uri;
 	}
 
 }
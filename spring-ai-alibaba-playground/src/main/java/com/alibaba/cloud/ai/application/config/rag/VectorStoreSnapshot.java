@@ -0,0 +1,335 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.config.rag;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * 向量库二进制快照格式
+ * <p>
+ * 快照由以下文件组成，其中 {@code <gen>} 为快照的代数：
+ * <ul>
+ *     <li>{@code <name>.gen}：当前代数，只在全量重写完成后通过原子 rename 更新；</li>
+ *     <li>{@code <name>-<gen>.vec}：16 字节文件头（magic、version、dimensions、count）+ 按序号排列的 little-endian float 向量，
+ *     以只读方式 mmap 到堆外内存；</li>
+ *     <li>{@code <name>-<gen>.idx}：每行一个 JSON 的侧边索引，按相同序号保存 id、text 和 metadata；</li>
+ *     <li>{@code <name>-<gen>.del}：已删除文档的序号。按序号而不是 id 记录，
+ *     删除后又以相同 id 重新添加的文档在重启后不会被误删。</li>
+ * </ul>
+ * 追加写入时先写向量再写索引，最后更新文件头中的 count，因此进程崩溃后最多丢失最后一批未提交的数据。
+ * 全量重写时新一代的三个文件全部写完后才切换 {@code <name>.gen}，崩溃时要么仍是完整的旧一代，要么是完整的新一代，
+ * 旧一代的删除序号不会作用到重新编号后的新快照上。
+ * <p>
+ * 没有 {@code <name>.gen} 时为第 0 代，文件名不带代数（{@code <name>.vec} 等），兼容之前生成的快照。
+ *
+ * @author yuluo
+ * @author <a href="mailto:yuluo08290126@gmail.com">yuluo</a>
+ */
+public final class VectorStoreSnapshot {
+
+	private static final int MAGIC = 0x53414156;
+
+	private static final int VERSION = 1;
+
+	private static final int HEADER_BYTES = 16;
+
+	/**
+	 * 单个 mmap 区域的上限，MappedByteBuffer 最大只能映射 2GB
+	 */
+	private static final long MAX_SEGMENT_BYTES = 1L << 30;
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	private final Path basePath;
+
+	private final Path generationFile;
+
+	/**
+	 * 当前代数，快照只由持有它的向量库写入，因此只在构造时从 {@code <name>.gen} 读取一次
+	 */
+	private long generation;
+
+	private Path vectorFile;
+
+	private Path indexFile;
+
+	private Path tombstoneFile;
+
+	public VectorStoreSnapshot(Path basePath) {
+		this.basePath = basePath;
+		this.generationFile = basePath.resolveSibling(basePath.getFileName() + ".gen");
+		try {
+			switchTo(Files.exists(generationFile)
+					? Long.parseLong(Files.readString(generationFile, StandardCharsets.UTF_8).strip()) : 0);
+		}
+		catch (IOException | NumberFormatException e) {
+			throw new IllegalStateException("Failed to read vector snapshot generation: " + generationFile, e);
+		}
+	}
+
+	public boolean exists() {
+		return Files.exists(vectorFile) && Files.exists(indexFile);
+	}
+
+	/**
+	 * 加载快照：向量只做 mmap，不拷贝到堆内；侧边索引逐行解析。
+	 */
+	public Loaded load() throws IOException {
+
+		List<Entry> entries = new ArrayList<>();
+		try (BufferedReader reader = Files.newBufferedReader(indexFile, StandardCharsets.UTF_8)) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (!line.isBlank()) {
+					entries.add(MAPPER.readValue(line, Entry.class));
+				}
+			}
+		}
+
+		Set<Integer> deleted = new HashSet<>();
+		if (Files.exists(tombstoneFile)) {
+			try (BufferedReader reader = Files.newBufferedReader(tombstoneFile, StandardCharsets.UTF_8)) {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					if (!line.isBlank()) {
+						deleted.add(Integer.parseInt(line.strip()));
+					}
+				}
+			}
+		}
+
+		try (FileChannel channel = FileChannel.open(vectorFile, StandardOpenOption.READ)) {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			channel.read(header, 0);
+			header.flip();
+			if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+				throw new IOException("Unsupported vector snapshot format: " + vectorFile);
+			}
+			int dimensions = header.getInt();
+			// 以文件头和索引中较小的数量为准，丢弃未提交完整的尾部数据
+			int count = Math.min(header.getInt(), entries.size());
+			if (entries.size() > count) {
+				entries = new ArrayList<>(entries.subList(0, count));
+				writeIndex(entries);
+			}
+
+			return new Loaded(dimensions, entries, deleted, map(channel, dimensions, count));
+		}
+	}
+
+	/**
+	 * 在快照末尾追加向量和索引，向量需与快照维度一致。
+	 */
+	public void append(int dimensions, List<Entry> entries, List<float[]> vectors) throws IOException {
+
+		if (!exists()) {
+			rewrite(dimensions, entries, vectors);
+			return;
+		}
+
+		try (FileChannel channel = FileChannel.open(vectorFile, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			channel.read(header, 0);
+			header.flip();
+			header.getInt();
+			header.getInt();
+			if (header.getInt() != dimensions) {
+				throw new IOException("Vector dimensions mismatch with snapshot: " + vectorFile);
+			}
+			int count = header.getInt();
+
+			writeVectors(channel, HEADER_BYTES + (long) count * dimensions * Float.BYTES, vectors, dimensions);
+			appendLines(indexFile, entries);
+			channel.force(false);
+			writeHeader(channel, dimensions, count + vectors.size());
+		}
+	}
+
+	/**
+	 * 全量重写快照（用于首次写入和删除后的压缩）：先完整写出下一代的文件，再原子切换代数。
+	 */
+	public void rewrite(int dimensions, List<Entry> entries, List<float[]> vectors) throws IOException {
+
+		Path parent = basePath.toAbsolutePath().getParent();
+		if (parent != null) {
+			Files.createDirectories(parent);
+		}
+
+		long next = generation + 1;
+		Path nextVectors = file(next, ".vec");
+		try (FileChannel channel = FileChannel.open(nextVectors, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			writeHeader(channel, dimensions, vectors.size());
+			writeVectors(channel, HEADER_BYTES, vectors, dimensions);
+			channel.force(false);
+		}
+		try (BufferedWriter writer = Files.newBufferedWriter(file(next, ".idx"), StandardCharsets.UTF_8)) {
+			writeLines(writer, entries);
+		}
+		// 上一次重写在切换前崩溃时可能留下同代数的删除记录
+		Files.deleteIfExists(file(next, ".del"));
+
+		Path tmpGeneration = generationFile.resolveSibling(generationFile.getFileName() + ".tmp");
+		Files.writeString(tmpGeneration, Long.toString(next), StandardCharsets.UTF_8);
+		Files.move(tmpGeneration, generationFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		switchTo(next);
+		deleteOtherGenerations();
+	}
+
+	private void writeIndex(List<Entry> entries) throws IOException {
+
+		Path tmpIndex = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+		try (BufferedWriter writer = Files.newBufferedWriter(tmpIndex, StandardCharsets.UTF_8)) {
+			writeLines(writer, entries);
+		}
+		Files.move(tmpIndex, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private void switchTo(long generation) {
+
+		this.generation = generation;
+		this.vectorFile = file(generation, ".vec");
+		this.indexFile = file(generation, ".idx");
+		this.tombstoneFile = file(generation, ".del");
+	}
+
+	private Path file(long generation, String suffix) {
+
+		String name = basePath.getFileName().toString();
+		return basePath.resolveSibling(generation == 0 ? name + suffix : name + "-" + generation + suffix);
+	}
+
+	/**
+	 * 清理其他代的文件，包括崩溃时遗留的文件。清理失败（例如 Windows 下旧文件仍被 mmap）不影响当前快照，留待下次重写。
+	 */
+	private void deleteOtherGenerations() {
+
+		Path parent = basePath.toAbsolutePath().getParent();
+		String name = basePath.getFileName().toString();
+		Pattern pattern = Pattern.compile(Pattern.quote(name) + "(-\\d+)?\\.(vec|idx|del)");
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(parent)) {
+			for (Path path : files) {
+				Path file = basePath.resolveSibling(path.getFileName());
+				if (pattern.matcher(path.getFileName().toString()).matches() && !file.equals(vectorFile)
+						&& !file.equals(indexFile) && !file.equals(tombstoneFile)) {
+					Files.deleteIfExists(path);
+				}
+			}
+		}
+		catch (IOException ignored) {
+		}
+	}
+
+	/**
+	 * 记录被删除文档的序号，下次加载时生效，直到快照被压缩重写。
+	 */
+	public void appendTombstones(List<Integer> ordinals) throws IOException {
+
+		appendLines(tombstoneFile, ordinals);
+	}
+
+	private static void appendLines(Path file, List<?> values) throws IOException {
+
+		try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+				StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+			writeLines(writer, values);
+		}
+	}
+
+	private static void writeLines(BufferedWriter writer, List<?> values) throws IOException {
+
+		for (Object value : values) {
+			writer.write(MAPPER.writeValueAsString(value));
+			writer.newLine();
+		}
+	}
+
+	private static void writeHeader(FileChannel channel, int dimensions, int count) throws IOException {
+
+		ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+		header.putInt(MAGIC).putInt(VERSION).putInt(dimensions).putInt(count).flip();
+		while (header.hasRemaining()) {
+			channel.write(header, HEADER_BYTES - header.remaining());
+		}
+	}
+
+	private static void writeVectors(FileChannel channel, long position, List<float[]> vectors, int dimensions)
+			throws IOException {
+
+		ByteBuffer buffer = ByteBuffer.allocate(dimensions * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+		for (float[] vector : vectors) {
+			buffer.clear();
+			buffer.asFloatBuffer().put(vector);
+			buffer.limit(dimensions * Float.BYTES);
+			while (buffer.hasRemaining()) {
+				position += channel.write(buffer, position);
+			}
+		}
+	}
+
+	private static List<FloatBuffer> map(FileChannel channel, int dimensions, int count) throws IOException {
+
+		List<FloatBuffer> segments = new ArrayList<>();
+		if (count == 0 || dimensions == 0) {
+			return segments;
+		}
+
+		long vectorBytes = (long) dimensions * Float.BYTES;
+		int vectorsPerSegment = (int) Math.max(1, MAX_SEGMENT_BYTES / vectorBytes);
+		for (int start = 0; start < count; start += vectorsPerSegment) {
+			int size = Math.min(vectorsPerSegment, count - start);
+			segments.add(channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES + start * vectorBytes, size * vectorBytes)
+					.order(ByteOrder.LITTLE_ENDIAN)
+					.asFloatBuffer());
+		}
+
+		return segments;
+	}
+
+	/**
+	 * 侧边索引中的一条记录
+	 */
+	public record Entry(String id, String text, Map<String, Object> metadata) {
+	}
+
+	/**
+	 * 已加载的快照，{@code segments} 中每个 FloatBuffer 依次保存一段连续序号的向量
+	 */
+	public record Loaded(int dimensions, List<Entry> entries, Set<Integer> deleted, List<FloatBuffer> segments) {
+	}
+
+}
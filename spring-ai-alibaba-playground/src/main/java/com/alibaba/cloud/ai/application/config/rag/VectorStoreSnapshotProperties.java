@@ -0,0 +1,32 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.config.rag;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * 内存向量库快照配置
+ *
+ * @param enabled 是否启用 mmap 快照，启用后重启时直接加载快照，不再重新 embedding
+ * @param path 快照文件前缀（相对于运行目录），实际生成 .gen 以及按代数命名的 .vec/.idx/.del 文件
+ */
+@ConfigurationProperties(prefix = VectorStoreSnapshotProperties.SNAPSHOT_PREFIX)
+public record VectorStoreSnapshotProperties(@DefaultValue("false") boolean enabled,
+											@DefaultValue("rag/vector-store") String path) {
+	public static final String SNAPSHOT_PREFIX = "spring.ai.alibaba.playground.rag.snapshot";
+}
@@ -29,7 +29,9 @@ import com.alibaba.cloud.ai.application.mcp.McpServerContainer;
 import com.alibaba.cloud.ai.application.service.SAAMcpService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import reactor.core.publisher.Flux;
 
+import org.springframework.http.MediaType;
 import org.springframework.util.StringUtils;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -65,6 +67,19 @@ public class SAAMcpController {
 		return Result.success(mcpService.chat(prompt));
 	}
 
+	/**
+	 * 内部接口不应该直接被 web 请求！
+	 * 并行执行全部工具调用，每个工具完成后推送一次事件，最后流式推送模型回答
+	 */
+	@GetMapping(value = "/inner/mcp-stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	@Operation(summary = "DashScope MCP Stream Chat")
+	public Flux<ToolCallResp> mcpStreamChat(
+			@Validated @RequestParam("prompt") String prompt
+	) {
+
+		return mcpService.chatStream(prompt);
+	}
+
 	@GetMapping("/mcp-list")
 	@Operation(summary = "MCP List")
 	public Result<List<McpServer>> mcpList() {
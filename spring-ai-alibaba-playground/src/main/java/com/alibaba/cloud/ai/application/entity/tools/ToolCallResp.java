@@ -16,6 +16,7 @@
 
 package com.alibaba.cloud.ai.application.entity.tools;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 
 /**
@@ -66,7 +67,7 @@ public class ToolCallResp {
 	private String toolInput;
 
 	/**
-	 * 工具执行耗时
+	 * 工具执行耗时（毫秒）
 	 */
 	private Long toolCostTime;
 	/**
@@ -213,9 +214,7 @@ public class ToolCallResp {
 		res.setToolResult(toolResult);
 		res.setToolEndTime(LocalDateTime.now());
 		res.setStatus(status);
-		res.setToolCostTime(
-				(long) (res.getToolEndTime().getNano() - toolStartTime.getNano())
-		);
+		res.setToolCostTime(Duration.between(toolStartTime, res.getToolEndTime()).toMillis());
 
 		return res;
 	}
@@ -0,0 +1,432 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.mcp;
+
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.alibaba.cloud.ai.application.config.mcp.McpClientPoolProperties;
+import com.alibaba.cloud.ai.application.entity.mcp.McpServerConfig;
+import com.alibaba.cloud.ai.application.exception.SAAAppException;
+import io.modelcontextprotocol.client.McpClient;
+import io.modelcontextprotocol.client.McpSyncClient;
+import io.modelcontextprotocol.client.transport.ServerParameters;
+import io.modelcontextprotocol.client.transport.StdioClientTransport;
+import io.modelcontextprotocol.json.McpJsonMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.ai.mcp.SyncMcpToolCallbackProvider;
+import org.springframework.ai.mcp.client.common.autoconfigure.properties.McpStdioClientProperties;
+import org.springframework.ai.tool.ToolCallback;
+
+/**
+ * MCP stdio 客户端进程池
+ * <p>
+ * 按 (server name, env) 组合缓存已经完成 initialize 的 stdio server 进程（java/npx/uvx），
+ * 避免每次请求都冷启动一个 JVM 或 Node 进程：
+ * 1. mcp-config.yml 只在启动时读取一次，java 类型 server 的 jar 路径同时解析为绝对路径；
+ * 2. 开启预热时，使用配置文件默认 env 的 server 在启动时预热 minIdle 个进程，并在进程异常退出后自动重启，
+ *    默认不预热，进程在首次使用时才启动；
+ * 3. 后台线程定期 ping 空闲进程，失败的进程被关闭，空闲超时的进程被回收；
+ * 4. 使用自定义 env 的进程按需创建，空闲超时后全部回收。
+ *
+ * @author yuluo
+ * @author <a href="mailto:yuluo08290126@gmail.com">yuluo</a>
+ */
+public class McpClientPool implements AutoCloseable {
+
+	private static final Logger logger = LoggerFactory.getLogger(McpClientPool.class);
+
+	private final Map<String, McpStdioClientProperties.Parameters> servers;
+
+	private final McpClientPoolProperties properties;
+
+	private final Map<PoolKey, KeyedPool> pools = new ConcurrentHashMap<>();
+
+	private final ScheduledExecutorService maintenance;
+
+	private volatile boolean closed;
+
+	public McpClientPool(McpServerConfig mcpServerConfig, McpClientPoolProperties properties) {
+
+		this.servers = resolveServers(mcpServerConfig);
+		this.properties = properties;
+		this.maintenance = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "mcp-client-pool");
+			thread.setDaemon(true);
+			return thread;
+		});
+		long interval = properties.healthCheckInterval().toMillis();
+		this.maintenance.scheduleWithFixedDelay(this::maintain, interval, interval, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * 异步为每个 server 的默认 env 启动 minIdle 个进程
+	 */
+	public void prewarm() {
+
+		for (String serverName : servers.keySet()) {
+			KeyedPool pool = pools.computeIfAbsent(key(serverName, Map.of()), key -> new KeyedPool(key, true));
+			maintenance.execute(() -> topUp(pool));
+		}
+	}
+
+	/**
+	 * 租用一个已经初始化的 MCP 客户端，使用完毕后必须关闭 {@link Lease}
+	 * @param serverName mcp-config.yml 中的 server name
+	 * @param envs 覆盖配置文件默认值的环境变量
+	 */
+	public Lease lease(String serverName, Map<String, String> envs) {
+
+		if (closed) {
+			throw new SAAAppException("McpClientPool is closed");
+		}
+		if (!servers.containsKey(serverName)) {
+			throw new SAAAppException("McpServer not found in mcp-config.yml: " + serverName);
+		}
+
+		PoolKey key = key(serverName, envs);
+		KeyedPool pool = pools.computeIfAbsent(key, k -> new KeyedPool(k, false));
+		return pool.acquire();
+	}
+
+	@Override
+	public void close() {
+
+		closed = true;
+		maintenance.shutdownNow();
+		pools.values().forEach(KeyedPool::closeIdle);
+		pools.clear();
+	}
+
+	private PoolKey key(String serverName, Map<String, String> envs) {
+
+		Map<String, String> env = new HashMap<>();
+		Map<String, String> defaults = servers.get(serverName).env();
+		if (defaults != null) {
+			defaults.forEach((name, value) -> {
+				if (name != null && value != null) {
+					env.put(name, value);
+				}
+			});
+		}
+		if (envs != null) {
+			envs.forEach((name, value) -> {
+				if (name != null && value != null) {
+					env.put(name, value);
+				}
+			});
+		}
+		return new PoolKey(serverName, Map.copyOf(env));
+	}
+
+	private PooledClient create(PoolKey key) {
+
+		McpStdioClientProperties.Parameters parameters = servers.get(key.serverName());
+		ServerParameters serverParameters = ServerParameters.builder(parameters.command())
+				.args(parameters.args() != null ? parameters.args() : List.of())
+				.env(key.env())
+				.build();
+
+		McpSyncClient client = McpClient.sync(new StdioClientTransport(serverParameters, McpJsonMapper.getDefault()))
+				.requestTimeout(properties.requestTimeout())
+				.build();
+		try {
+			client.initialize();
+			ToolCallback[] toolCallbacks = new SyncMcpToolCallbackProvider(List.of(client)).getToolCallbacks();
+			logger.debug("Started MCP server process {} with {} tools.", key.serverName(), toolCallbacks.length);
+			return new PooledClient(client, toolCallbacks);
+		}
+		catch (RuntimeException e) {
+			client.close();
+			throw e;
+		}
+	}
+
+	private void maintain() {
+
+		for (KeyedPool pool : pools.values()) {
+			try {
+				pool.checkIdle();
+				if (pool.warm) {
+					topUp(pool);
+				}
+				else if (pool.isUnused()) {
+					pools.remove(pool.key, pool);
+				}
+			}
+			catch (RuntimeException e) {
+				logger.warn("Failed to maintain MCP client pool {}: {}", pool.key.serverName(), e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * 重启策略：常驻进程不足 minIdle 时补齐，连续失败 maxRestarts 次后停止补齐
+	 */
+	private void topUp(KeyedPool pool) {
+
+		while (!closed && pool.idle.size() < properties.minIdle() && pool.size() < properties.maxPerKey()) {
+			if (pool.failures.get() >= properties.maxRestarts()) {
+				logger.error("MCP server {} failed to start {} times in a row, stop restarting.",
+						pool.key.serverName(), pool.failures.get());
+				return;
+			}
+			// 创建期间占用一个许可，避免与 acquire() 并发创建时超过 maxPerKey
+			if (!pool.permits.tryAcquire()) {
+				return;
+			}
+			try {
+				if (pool.size() > properties.maxPerKey()) {
+					return;
+				}
+				pool.idle.offerLast(create(pool.key));
+				pool.failures.set(0);
+			}
+			catch (RuntimeException e) {
+				pool.failures.incrementAndGet();
+				logger.warn("Failed to start MCP server {}: {}", pool.key.serverName(), e.getMessage());
+			}
+			finally {
+				pool.permits.release();
+			}
+		}
+	}
+
+	/**
+	 * 读取配置时把 java 类型 server 的 jar 相对路径解析为绝对路径，请求时不再重复处理
+	 */
+	private static Map<String, McpStdioClientProperties.Parameters> resolveServers(McpServerConfig mcpServerConfig) {
+
+		Map<String, McpStdioClientProperties.Parameters> resolved = new HashMap<>();
+		mcpServerConfig.getMcpServers().forEach((name, parameters) -> {
+			if (parameters == null) {
+				return;
+			}
+			List<String> args = parameters.args() != null ? new ArrayList<>(parameters.args()) : new ArrayList<>();
+			if (parameters.command().startsWith("java") && !args.isEmpty()) {
+				String libsPath = McpServerUtils.getLibsPath(args);
+				args.set(args.size() - 1, McpServerUtils.getMcpLibsAbsPath(libsPath));
+			}
+			resolved.put(name, new McpStdioClientProperties.Parameters(parameters.command(), args, parameters.env()));
+		});
+		return Map.copyOf(resolved);
+	}
+
+	private record PoolKey(String serverName, Map<String, String> env) {
+	}
+
+	private static final class PooledClient {
+
+		private final McpSyncClient client;
+
+		private final ToolCallback[] toolCallbacks;
+
+		private volatile long lastUsedNanos = System.nanoTime();
+
+		private PooledClient(McpSyncClient client, ToolCallback[] toolCallbacks) {
+			this.client = client;
+			this.toolCallbacks = toolCallbacks;
+		}
+
+		private void destroy() {
+
+			try {
+				client.closeGracefully();
+			}
+			catch (RuntimeException e) {
+				client.close();
+			}
+		}
+	}
+
+	private final class KeyedPool {
+
+		private final PoolKey key;
+
+		/**
+		 * 是否为常驻池（配置文件默认 env），常驻池的进程不会因空闲而全部回收
+		 */
+		private final boolean warm;
+
+		private final Deque<PooledClient> idle = new ConcurrentLinkedDeque<>();
+
+		private final Semaphore permits;
+
+		private final AtomicInteger failures = new AtomicInteger();
+
+		private KeyedPool(PoolKey key, boolean warm) {
+			this.key = key;
+			this.warm = warm;
+			this.permits = new Semaphore(properties.maxPerKey(), true);
+		}
+
+		private Lease acquire() {
+
+			try {
+				if (!permits.tryAcquire(properties.acquireTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+					throw new SAAAppException("Timed out waiting for an idle MCP client of server: " + key.serverName());
+				}
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new SAAAppException("Interrupted while waiting for an MCP client of server: " + key.serverName());
+			}
+
+			try {
+				// 后进先出，优先复用最近使用过的进程
+				PooledClient pooled = idle.pollFirst();
+				if (pooled == null) {
+					pooled = create(key);
+					failures.set(0);
+				}
+				return new Lease(this, pooled);
+			}
+			catch (RuntimeException e) {
+				permits.release();
+				throw new SAAAppException("Failed to start MCP server " + key.serverName() + ": " + e.getMessage());
+			}
+		}
+
+		private void release(PooledClient pooled, boolean healthy) {
+
+			try {
+				// 池已经被回收或整体关闭时直接关闭进程，避免泄漏
+				if (healthy && !closed && pools.get(key) == this) {
+					pooled.lastUsedNanos = System.nanoTime();
+					idle.offerFirst(pooled);
+				}
+				else {
+					pooled.destroy();
+					if (warm && !closed) {
+						maintenance.execute(() -> topUp(this));
+					}
+				}
+			}
+			finally {
+				permits.release();
+			}
+		}
+
+		private void checkIdle() {
+
+			long idleTimeoutNanos = properties.idleTimeout().toNanos();
+			int keep = warm ? properties.minIdle() : 0;
+			for (PooledClient pooled : List.copyOf(idle)) {
+				// 检查期间像租用一样占用一个许可，size() 中仍计入该进程；没有空闲许可时说明池正忙，留到下一轮
+				if (!permits.tryAcquire()) {
+					return;
+				}
+				try {
+					// 先从空闲队列中摘下，避免与正在租用的线程竞争
+					if (!idle.remove(pooled)) {
+						continue;
+					}
+					if (System.nanoTime() - pooled.lastUsedNanos > idleTimeoutNanos && idle.size() >= keep) {
+						logger.debug("Evicting idle MCP server process {}.", key.serverName());
+						pooled.destroy();
+						continue;
+					}
+					try {
+						pooled.client.ping();
+						idle.offerLast(pooled);
+					}
+					catch (RuntimeException e) {
+						logger.warn("MCP server process {} failed health check, restarting: {}", key.serverName(), e.getMessage());
+						pooled.destroy();
+					}
+				}
+				finally {
+					permits.release();
+				}
+			}
+		}
+
+		/**
+		 * 空闲进程与正在租用（包括正在启动和健康检查）的进程总数
+		 */
+		private int size() {
+
+			return idle.size() + properties.maxPerKey() - permits.availablePermits();
+		}
+
+		private boolean isUnused() {
+
+			return idle.isEmpty() && permits.availablePermits() == properties.maxPerKey();
+		}
+
+		private void closeIdle() {
+
+			PooledClient pooled;
+			while ((pooled = idle.pollFirst()) != null) {
+				pooled.destroy();
+			}
+		}
+	}
+
+	/**
+	 * 一次租用，关闭时归还进程；调用过程中出现传输层异常时应先调用 {@link #invalidate()}
+	 */
+	public static final class Lease implements AutoCloseable {
+
+		private final KeyedPool pool;
+
+		private final PooledClient pooled;
+
+		private boolean healthy = true;
+
+		private boolean released;
+
+		private Lease(KeyedPool pool, PooledClient pooled) {
+			this.pool = pool;
+			this.pooled = pooled;
+		}
+
+		public McpSyncClient client() {
+			return pooled.client;
+		}
+
+		public ToolCallback[] toolCallbacks() {
+			return pooled.toolCallbacks;
+		}
+
+		public void invalidate() {
+			this.healthy = false;
+		}
+
+		@Override
+		public void close() {
+
+			if (!released) {
+				released = true;
+				pool.release(pooled, healthy);
+			}
+		}
+	}
+
+}
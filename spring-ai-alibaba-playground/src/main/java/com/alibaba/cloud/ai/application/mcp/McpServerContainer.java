@@ -19,31 +19,119 @@ package com.alibaba.cloud.ai.application.mcp;
 import com.alibaba.cloud.ai.application.entity.mcp.McpServer;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
+/**
+ * MCP Server 注册表
+ * <p>
+ * 读多写少：所有索引（id、name、tool name）放在同一个不可变快照中，写入时加锁重建快照，
+ * 读取只需要一次 volatile 读，不加锁且各索引之间始终一致，按 id/name/tool name 查找均为 O(1)。
+ * 同名 server 重复注册时替换旧的 server，支持运行时增删，不需要重启。
+ */
+
 public class McpServerContainer {
 
-	private static final List<McpServer> mcpServerContainer = new ArrayList<>();
+	private static final Object LOCK = new Object();
+
+	private static volatile Snapshot snapshot = Snapshot.EMPTY;
+
+	private McpServerContainer() {
+	}
 
 	public static List<McpServer> getAllServers() {
-		return new ArrayList<>(mcpServerContainer);
+		return snapshot.servers();
 	}
 
 	public static Optional<McpServer> getServerById(String id) {
 
-		return mcpServerContainer.stream()
-				.filter(server -> server.getId().equals(id))
-				.findFirst();
+		return Optional.ofNullable(snapshot.byId().get(id));
+	}
+
+	public static Optional<McpServer> getServerByName(String name) {
+
+		return Optional.ofNullable(snapshot.byName().get(name));
+	}
+
+	/**
+	 * 根据工具名查找提供该工具的 MCP Server
+	 */
+	public static Optional<McpServer> getServerByToolName(String toolName) {
+
+		return Optional.ofNullable(snapshot.byToolName().get(toolName));
 	}
 
 	public static void addServer(McpServer server) {
-		mcpServerContainer.add(server);
+
+		addServers(List.of(server));
+	}
+
+	/**
+	 * 批量注册，只重建一次快照；被替换的 server 保持原有位置，新 server 按传入顺序追加
+	 */
+	public static void addServers(Collection<McpServer> servers) {
+
+		synchronized (LOCK) {
+			Map<String, McpServer> byName = new LinkedHashMap<>();
+			List<McpServer> merged = new ArrayList<>();
+			for (McpServer server : servers) {
+				byName.put(server.getName(), server);
+			}
+			for (McpServer existing : snapshot.servers()) {
+				McpServer replacement = byName.remove(existing.getName());
+				merged.add(replacement != null ? replacement : existing);
+			}
+			merged.addAll(byName.values());
+			snapshot = Snapshot.of(merged);
+		}
 	}
 
 	public static boolean removeServerById(String id) {
 
-		return mcpServerContainer.removeIf(server -> server.getId().equals(id));
+		synchronized (LOCK) {
+			McpServer removed = snapshot.byId().get(id);
+			if (removed == null) {
+				return false;
+			}
+			List<McpServer> remaining = new ArrayList<>(snapshot.servers());
+			remaining.remove(removed);
+			snapshot = Snapshot.of(remaining);
+			return true;
+		}
+	}
+
+	public static boolean removeServerByName(String name) {
+
+		McpServer server = snapshot.byName().get(name);
+		return server != null && removeServerById(server.getId());
+	}
+
+	private record Snapshot(List<McpServer> servers, Map<String, McpServer> byId, Map<String, McpServer> byName,
+							Map<String, McpServer> byToolName) {
+
+		private static final Snapshot EMPTY = new Snapshot(List.of(), Map.of(), Map.of(), Map.of());
+
+		private static Snapshot of(List<McpServer> servers) {
+
+			Map<String, McpServer> byId = new HashMap<>(servers.size() * 2);
+			Map<String, McpServer> byName = new HashMap<>(servers.size() * 2);
+			Map<String, McpServer> byToolName = new HashMap<>();
+			for (McpServer server : servers) {
+				byId.put(server.getId(), server);
+				byName.put(server.getName(), server);
+				if (Objects.nonNull(server.getToolList())) {
+					for (McpServer.Tools tool : server.getToolList()) {
+						byToolName.putIfAbsent(tool.getName(), server);
+					}
+				}
+			}
+			return new Snapshot(List.copyOf(servers), Map.copyOf(byId), Map.copyOf(byName), Map.copyOf(byToolName));
+		}
 	}
 
 }
@@ -23,6 +23,7 @@ import com.alibaba.cloud.ai.application.exception.SAAAppException;
 import com.alibaba.cloud.ai.application.utils.ModelsUtils;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import io.modelcontextprotocol.client.McpSyncClient;
 import org.springframework.ai.mcp.SyncMcpToolCallback;
 import org.springframework.ai.tool.ToolCallback;
 import org.springframework.ai.tool.ToolCallbackProvider;
@@ -34,6 +35,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -126,37 +128,35 @@ public final class McpServerUtils {
 		McpServerConfig mcpServerConfig = McpServerUtils.getMcpServerConfig();
 		Map<String, String> mcpServerDescMap = initMcpServerDescMap();
 
-		mcpServerConfig.getMcpServers().forEach((key, parameters) -> {
-
-			List<McpServer.Tools> toolsList = new ArrayList<>();
-			for (ToolCallback toolCallback : toolCallbackProvider.getToolCallbacks()) {
-
-				// todo: 拿不到 mcp client, 先用包装器拿吧
-				SyncMcpToolCallback mcpToolCallback = (SyncMcpToolCallback) toolCallback;
-				SyncMcpToolCallbackWrapper syncMcpToolCallbackWrapper = new SyncMcpToolCallbackWrapper(mcpToolCallback);
-				String currentMcpServerName = syncMcpToolCallbackWrapper.getMcpClient().getServerInfo().name();
-
-				// 按照 mcp server name 聚合 mcp server tools
-				if (Objects.equals(key, currentMcpServerName)) {
-					McpServer.Tools tool = new McpServer.Tools();
-					tool.setDesc(toolCallback.getToolDefinition().description());
-					tool.setName(toolCallback.getToolDefinition().name());
-					tool.setParams(toolCallback.getToolDefinition().inputSchema());
+		// 一次遍历按 mcp server name 聚合 tools，同一个 mcp client 只查询一次 server info
+		Map<McpSyncClient, String> serverNames = new IdentityHashMap<>();
+		Map<String, List<McpServer.Tools>> toolsByServer = new HashMap<>();
+		for (ToolCallback toolCallback : toolCallbackProvider.getToolCallbacks()) {
 
-					toolsList.add(tool);
-				}
+			// todo: 拿不到 mcp client, 先用包装器拿吧
+			if (!(toolCallback instanceof SyncMcpToolCallback mcpToolCallback)) {
+				continue;
 			}
+			McpSyncClient mcpClient = new SyncMcpToolCallbackWrapper(mcpToolCallback).getMcpClient();
+			String currentMcpServerName = serverNames.computeIfAbsent(mcpClient, client -> client.getServerInfo().name());
+
+			McpServer.Tools tool = new McpServer.Tools();
+			tool.setDesc(toolCallback.getToolDefinition().description());
+			tool.setName(toolCallback.getToolDefinition().name());
+			tool.setParams(toolCallback.getToolDefinition().inputSchema());
+			toolsByServer.computeIfAbsent(currentMcpServerName, name -> new ArrayList<>()).add(tool);
+		}
 
-			McpServerContainer.addServer(McpServer.builder()
-					.id(getId())
-					.name(key)
-					.env(parameters.env())
-					.desc(mcpServerDescMap.get(key))
-					.toolList(toolsList)
-					.build()
-			);
-		});
-
+		List<McpServer> servers = new ArrayList<>(mcpServerConfig.getMcpServers().size());
+		mcpServerConfig.getMcpServers().forEach((key, parameters) -> servers.add(McpServer.builder()
+				.id(getId())
+				.name(key)
+				.env(parameters.env())
+				.desc(mcpServerDescMap.get(key))
+				.toolList(toolsByServer.getOrDefault(key, new ArrayList<>()))
+				.build()
+		));
+		McpServerContainer.addServers(servers);
 	}
 
 	private static Map<String, String> initMcpServerDescMap() {
@@ -16,11 +16,25 @@
 
 package com.alibaba.cloud.ai.application.modulerag;
 
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
 /**
  * iqs search properties
  *
+ * @param apiKey IQS api key
+ * @param timeout 单个查询的检索截止时间，超时的查询返回空结果，不阻塞其他扩展查询
+ * @param maxConcurrency 扩展查询并发检索的线程数上限
+ * @param cacheTtl 检索结果缓存的过期时间，为 0 时关闭缓存
+ * @param cacheMaximumSize 检索结果缓存的最大条目数，超出后按 LRU 淘汰
+ *
  * @author yuluo
  * @author <a href="mailto:yuluo08290126@gmail.com">yuluo</a>
  */
-public record IQSSearchProperties(String apiKey) {
+public record IQSSearchProperties(String apiKey,
+								  @DefaultValue("8s") Duration timeout,
+								  @DefaultValue("32") int maxConcurrency,
+								  @DefaultValue("1h") Duration cacheTtl,
+								  @DefaultValue("2000") long cacheMaximumSize) {
 }
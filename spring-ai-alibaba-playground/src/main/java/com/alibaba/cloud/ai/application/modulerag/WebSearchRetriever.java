@@ -28,9 +28,12 @@ import org.springframework.ai.document.Document;
 import org.springframework.ai.rag.Query;
 import org.springframework.ai.rag.retrieval.search.DocumentRetriever;
 import org.springframework.lang.Nullable;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
-import java.net.URISyntaxException;
+import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.TimeoutException;
 
 /**
  * spring-ai 从 0.8.0 版本开始不支持 DocumentRanker.
@@ -49,11 +52,15 @@ public class WebSearchRetriever implements DocumentRetriever {
 
 	private final IQSSearchEngine searchEngine;
 
+	@Nullable
+	private final Duration timeout;
+
 	private WebSearchRetriever(Builder builder) {
 
 		this.searchEngine = builder.searchEngine;
 		this.maxResults = builder.maxResults;
 		this.dataCleaner = builder.dataCleaner;
+		this.timeout = builder.timeout;
 	}
 
 	@NotNull
@@ -63,24 +70,17 @@ public class WebSearchRetriever implements DocumentRetriever {
 	) {
 
 		// 搜索
-		IQSSearchResponse searchResp;
-		try {
-			searchResp = searchEngine.search(query.text());
-		} catch (JsonProcessingException e) {
-			throw new SAAAppException("json process error" + e.getMessage());
+		IQSSearchResponse searchResp = search(query.text());
+		if (searchResp == null) {
+			return List.of();
 		}
 
 		// 清洗数据
-        List<Document> cleanerData;
-        try {
-            cleanerData = dataCleaner.getData(searchResp);
-        } catch (URISyntaxException e) {
-            throw new RuntimeException(e);
-        }
-        // logger.debug("cleaner data: {}", cleanerData);
+		DataClean.CleanedData cleanerData = dataCleaner.getData(searchResp);
+		// logger.debug("cleaner data: {}", cleanerData);
 
 		// 返回结果
-		List<Document> documents = dataCleaner.limitResults(cleanerData, maxResults);
+		List<Document> documents = dataCleaner.limitResults(cleanerData.documents(), maxResults);
 
 		logger.debug("WebSearchRetriever#retrieve() document size: {}, raw documents: {}",
 				documents.size(),
@@ -90,6 +90,29 @@ public class WebSearchRetriever implements DocumentRetriever {
 		return documents;
 	}
 
+	/**
+	 * 多个扩展查询由 RetrievalAugmentationAdvisor 并发调用本方法，
+	 * 每个查询有独立的截止时间，超时后返回 null，由调用方降级为空结果，避免单个慢查询拖慢整个请求。
+	 */
+	@Nullable
+	private IQSSearchResponse search(String text) {
+
+		Mono<IQSSearchResponse> search = Mono.fromCallable(() -> searchEngine.search(text))
+				.subscribeOn(Schedulers.boundedElastic())
+				.onErrorMap(JsonProcessingException.class, e -> new SAAAppException("json process error" + e.getMessage()));
+
+		if (timeout == null) {
+			return search.block();
+		}
+
+		return search.timeout(timeout)
+				.onErrorResume(TimeoutException.class, e -> {
+					logger.warn("Web search for query [{}] exceeded deadline {} ms, skipped.", text, timeout.toMillis());
+					return Mono.empty();
+				})
+				.block();
+	}
+
 	public static WebSearchRetriever.Builder builder() {
 		return new WebSearchRetriever.Builder();
 	}
@@ -103,6 +126,8 @@ public class WebSearchRetriever implements DocumentRetriever {
 
 		private DataClean dataCleaner;
 
+		private Duration timeout;
+
 		public WebSearchRetriever.Builder searchEngine(IQSSearchEngine searchEngine) {
 
 			this.searchEngine = searchEngine;
@@ -121,6 +146,12 @@ public class WebSearchRetriever implements DocumentRetriever {
 			return this;
 		}
 
+		public WebSearchRetriever.Builder timeout(Duration timeout) {
+
+			this.timeout = timeout;
+			return this;
+		}
+
 		public WebSearchRetriever build() {
 
 			return new WebSearchRetriever(this);
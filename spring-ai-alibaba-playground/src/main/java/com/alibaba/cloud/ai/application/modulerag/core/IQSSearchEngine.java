@@ -22,18 +22,29 @@ import com.alibaba.cloud.ai.application.entity.iqs.IQSSearchResponse;
 import com.alibaba.cloud.ai.application.exception.SAAAppException;
 import com.alibaba.cloud.ai.application.modulerag.IQSSearchProperties;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Component;
 import org.springframework.util.Assert;
 import org.springframework.web.client.ResponseErrorHandler;
 import org.springframework.web.client.RestClient;
 
+import java.time.Duration;
+import java.util.Locale;
 import java.util.Objects;
+import java.util.concurrent.ExecutionException;
 import java.util.function.Consumer;
+import java.util.regex.Pattern;
 
 /**
  * <a href="https://help.aliyun.com/document_detail/2883041.html">通晓搜索</a>
@@ -45,12 +56,23 @@ import java.util.function.Consumer;
 @Component
 public class IQSSearchEngine {
 
+	private static final Logger logger = LoggerFactory.getLogger(IQSSearchEngine.class);
+
 	private final RestClient restClient;
 	private final IQSSearchProperties iqsSearchProperties;
 	private static final String BASE_URL = "https://cloud-iqs.aliyuncs.com/";
 	private static final String API_PATH = "/search/unified";
 	private static final String DEFAULT_TIME_RANGE = "OneWeek";
 	private static final String DEFAULT_ENGINE_TYPE = "Generic";
+	private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+	/**
+	 * 以归一化后的查询、时间范围和引擎类型为 key 的检索结果缓存：
+	 * TTL 过期 + 最大容量 LRU 淘汰；同一 key 的并发请求只会触发一次上游调用（single-flight），其余请求等待同一结果。
+	 * 上游调用失败不会被缓存。
+	 */
+	@Nullable
+	private final Cache<SearchKey, IQSSearchResponse> searchCache;
 
 	public IQSSearchEngine(
 			RestClient.Builder restClientBuilder,
@@ -64,15 +86,60 @@ public class IQSSearchEngine {
 				.defaultHeaders(getHeaders())
 				.defaultStatusHandler(responseErrorHandler)
 				.build();
+
+		Duration cacheTtl = iqsSearchProperties.cacheTtl();
+		if (cacheTtl != null && !cacheTtl.isZero() && iqsSearchProperties.cacheMaximumSize() > 0) {
+			this.searchCache = CacheBuilder.newBuilder()
+					.expireAfterWrite(cacheTtl)
+					.maximumSize(iqsSearchProperties.cacheMaximumSize())
+					.recordStats()
+					.build();
+		}
+		else {
+			this.searchCache = null;
+		}
 	}
 
 	public IQSSearchResponse search(String query) throws JsonProcessingException {
 
+		if (searchCache == null) {
+			return doSearch(query, DEFAULT_TIME_RANGE, DEFAULT_ENGINE_TYPE);
+		}
+
+		SearchKey key = new SearchKey(normalize(query), DEFAULT_TIME_RANGE, DEFAULT_ENGINE_TYPE);
+		try {
+			return searchCache.get(key, () -> doSearch(query, key.timeRange(), key.engineType()));
+		}
+		catch (ExecutionException | UncheckedExecutionException e) {
+			if (e.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			throw new SAAAppException("Failed to search: " + e.getCause().getMessage());
+		}
+		finally {
+			if (logger.isDebugEnabled()) {
+				CacheStats stats = searchCache.stats();
+				logger.debug("IQS search cache hitCount: {}, missCount: {}, hitRate: {}, evictionCount: {}",
+						stats.hitCount(), stats.missCount(), stats.hitRate(), stats.evictionCount());
+			}
+		}
+	}
+
+	/**
+	 * 检索结果缓存的命中/未命中统计，关闭缓存时返回空统计
+	 */
+	public CacheStats cacheStats() {
+
+		return searchCache == null ? new CacheStats(0, 0, 0, 0, 0, 0) : searchCache.stats();
+	}
+
+	private IQSSearchResponse doSearch(String query, String timeRange, String engineType) {
+
 		// String encodeQ = URLEncoder.encode(query, StandardCharsets.UTF_8);
 		final IQSSearchRequest request = IQSSearchRequest.builder()
 				.query(query)
-				.timeRange(DEFAULT_TIME_RANGE)
-				.engineType(DEFAULT_ENGINE_TYPE)
+				.timeRange(timeRange)
+				.engineType(engineType)
 				.contents(IQSSearchRequest.Contents.builder()
 						.mainText(true)
 						// IQS 目前的 md 文档效果不好, 所以关闭.
@@ -91,6 +158,14 @@ public class IQSSearchEngine {
 		return genericSearchResult(response);
 	}
 
+	/**
+	 * 去除首尾空白并合并连续空白，大小写不敏感，使仅有空白/大小写差异的查询命中同一缓存
+	 */
+	private static String normalize(String query) {
+
+		return WHITESPACE.matcher(query.strip()).replaceAll(" ").toLowerCase(Locale.ROOT);
+	}
+
 	private IQSSearchResponse genericSearchResult(ResponseEntity<IQSSearchResponse> response) {
 
 		if ((Objects.equals(response.getStatusCode(), HttpStatus.OK)) && Objects.nonNull(response.getBody())) {
@@ -115,4 +190,7 @@ public class IQSSearchEngine {
 		return String.format("%s/%s; java/%s; platform/%s; processor/%s", "SpringAiAlibabaPlayground", "1.0.0", System.getProperty("java.version"), System.getProperty("os.name"), System.getProperty("os.arch"));
 	}
 
+	private record SearchKey(String query, String timeRange, String engineType) {
+	}
+
 }
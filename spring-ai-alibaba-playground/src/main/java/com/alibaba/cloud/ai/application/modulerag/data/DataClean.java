@@ -21,7 +21,6 @@ import org.springframework.ai.document.Document;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 
-import java.net.URISyntaxException;
 import java.util.*;
 
 /**
@@ -29,57 +28,56 @@ import java.util.*;
  * @author <a href="mailto:yuluo08290126@gmail.com">yuluo</a>
  *
  * Data Cleansing: Filters out useless data and converts it into Spring AI's Document objects
+ * <p>
+ * 无状态组件，可被多个请求并发调用：每次调用返回独立的 {@link CleanedData}，
+ * 文档之间不共享 metadata，网页正文只作为 Document 的 text 保存一份，不再重复写入 metadata。
  */
 
 @Component
 public class DataClean {
 
-	private static final Map<Integer, String> WebLink_MAP = new HashMap<>();
+	private static final int MIN_MAIN_TEXT_LENGTH = 10;
 
-	public List<Document> getData(IQSSearchResponse respData) throws URISyntaxException {
+	public CleanedData getData(IQSSearchResponse respData) {
 
-		List<Document> documents = new ArrayList<>();
-		Map<String, Object> metadata = getQueryMetadata(respData);
+		List<IQSSearchResponse.PageItem> pageItems = Objects.nonNull(respData.pageItems()) ? respData.pageItems() : List.of();
+		List<Document> documents = new ArrayList<>(pageItems.size());
+		Map<Integer, String> webLinks = new HashMap<>();
+		Map<String, Object> queryMetadata = getQueryMetadata(respData);
 
-		for (int i = 0; i < respData.pageItems().size(); i++) {
+		for (IQSSearchResponse.PageItem pageItem : pageItems) {
 
-			IQSSearchResponse.PageItem pageItem = respData.pageItems().get(i);
-			Map<String, Object> pageItemMetadata = getPageItemMetadata(pageItem);
-
-			metadata.putAll(pageItemMetadata);
-
-			if (!StringUtils.hasText(pageItem.mainText()) || pageItem.mainText().length() < 10) {
+			if (Objects.isNull(pageItem) || !StringUtils.hasText(pageItem.mainText()) || pageItem.mainText().length() < MIN_MAIN_TEXT_LENGTH) {
 				// Skip items with main text that is too short
 				continue;
 			}
 
+			Map<String, Object> metadata = new HashMap<>(queryMetadata.size() + 6);
+			metadata.putAll(queryMetadata);
+			putPageItemMetadata(pageItem, metadata);
+
 			Document document = Document.builder()
 					.metadata(metadata)
 					.text(pageItem.mainText())
 					.score(pageItem.rerankScore())
 					.build();
 
+			// 引用编号与文档在结果中的位置一致（从 1 开始）
 			if (Objects.nonNull(pageItem.link())) {
-				int index = i;
-				WebLink_MAP.put(index + 1, pageItem.link());
+				webLinks.put(documents.size() + 1, pageItem.link());
 			}
 
 			documents.add(document);
 		}
 
-		return documents;
-	}
-
-	public Map<Integer, String> getWebLink() {
-
-		return WebLink_MAP;
+		return new CleanedData(List.copyOf(documents), Map.copyOf(webLinks));
 	}
 
 	private Map<String, Object> getQueryMetadata(IQSSearchResponse respData) {
 
 		HashMap<String, Object> docsMetadata = new HashMap<>();
 
-		if (Objects.nonNull(respData.queryContext())) {
+		if (Objects.nonNull(respData.queryContext()) && Objects.nonNull(respData.queryContext().originalQuery())) {
 			docsMetadata.put("query", respData.queryContext().originalQuery().query());
 
 			if (Objects.nonNull(respData.queryContext().originalQuery().timeRange())) {
@@ -94,46 +92,32 @@ public class DataClean {
 		return docsMetadata;
 	}
 
-	private Map<String, Object> getPageItemMetadata(IQSSearchResponse.PageItem pageItem) {
-
-		HashMap<String, Object> pageItemMetadata = new HashMap<>();
-
-		if (Objects.nonNull(pageItem)) {
-
-			if (Objects.nonNull(pageItem.hostname())) {
-				pageItemMetadata.put("hostname", pageItem.hostname());
-			}
-
-			if (Objects.nonNull(pageItem.title())) {
-				pageItemMetadata.put("title", pageItem.title());
-			}
-
-			if (Objects.nonNull(pageItem.markdownText())) {
-				pageItemMetadata.put("markdownText", pageItem.markdownText());
-			}
+	/**
+	 * mainText 已作为 Document 的 text，markdownText 是同一正文的另一种格式，二者均不写入 metadata，避免每个文档持有多份正文
+	 */
+	private void putPageItemMetadata(IQSSearchResponse.PageItem pageItem, Map<String, Object> pageItemMetadata) {
 
-			if (Objects.nonNull(pageItem.link())) {
-				pageItemMetadata.put("link", pageItem.link());
-			}
+		if (Objects.nonNull(pageItem.hostname())) {
+			pageItemMetadata.put("hostname", pageItem.hostname());
+		}
 
-			if (Objects.nonNull(pageItem.mainText())) {
-				pageItemMetadata.put("mainText", pageItem.mainText());
-			}
+		if (Objects.nonNull(pageItem.title())) {
+			pageItemMetadata.put("title", pageItem.title());
+		}
 
-			if (Objects.nonNull(pageItem.rerankScore())) {
-				pageItemMetadata.put("rerankScore", pageItem.rerankScore());
-			}
+		if (Objects.nonNull(pageItem.link())) {
+			pageItemMetadata.put("link", pageItem.link());
+		}
 
-			if (Objects.nonNull(pageItem.publishedTime())) {
-				pageItemMetadata.put("publishedTime", pageItem.publishedTime());
-			}
+		pageItemMetadata.put("rerankScore", pageItem.rerankScore());
 
-			if (Objects.nonNull(pageItem.snippet())) {
-				pageItemMetadata.put("snippet", pageItem.snippet());
-			}
+		if (Objects.nonNull(pageItem.publishedTime())) {
+			pageItemMetadata.put("publishedTime", pageItem.publishedTime());
 		}
 
-		return pageItemMetadata;
+		if (Objects.nonNull(pageItem.snippet())) {
+			pageItemMetadata.put("snippet", pageItem.snippet());
+		}
 	}
 
 	public List<Document> limitResults(List<Document> documents, int minResults) {
@@ -143,4 +127,13 @@ public class DataClean {
 		return documents.subList(0, limit);
 	}
 
+	/**
+	 * 单次检索的清洗结果
+	 *
+	 * @param documents 过滤后的文档（不可变）
+	 * @param webLinks 引用编号到网页链接的索引（不可变），编号与 documents 中的位置一致，从 1 开始
+	 */
+	public record CleanedData(List<Document> documents, Map<Integer, String> webLinks) {
+	}
+
 }
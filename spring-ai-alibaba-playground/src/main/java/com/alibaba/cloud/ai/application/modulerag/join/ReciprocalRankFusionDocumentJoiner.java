@@ -0,0 +1,176 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.modulerag.join;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.rag.Query;
+import org.springframework.ai.rag.retrieval.join.DocumentJoiner;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * 基于 Reciprocal Rank Fusion（RRF）的文档合并器
+ * <p>
+ * 对每个扩展查询返回的文档列表，第 r 名（从 1 开始）的文档得分为 1 / (k + r)，同一文档在多个列表中出现时得分累加。
+ * 与 {@link ConcatenationDocumentJoiner} 相比：
+ * 1. 不复制中间列表，一次遍历完成去重和打分；
+ * 2. 去重使用文档的 link/source/file_name/id 作为 key，不再为每个文档拼接字符串；
+ * 3. 使用容量为 topK 的最小堆选出得分最高的文档，被多个查询同时召回的文档排名更靠前。
+ * 原始得分（Document#getScore）仅在 RRF 得分相同时作为次级排序依据。
+ *
+ * @author yuluo
+ * @author <a href="mailto:yuluo08290126@gmail.com">yuluo</a>
+ */
+public class ReciprocalRankFusionDocumentJoiner implements DocumentJoiner {
+
+	private static final Logger logger = LoggerFactory.getLogger(ReciprocalRankFusionDocumentJoiner.class);
+
+	private static final int DEFAULT_K = 60;
+
+	private static final int DEFAULT_TOP_K = 10;
+
+	private static final Comparator<Fused> ASCENDING = Comparator.comparingDouble(Fused::score)
+			.thenComparingDouble(Fused::originalScore);
+
+	private final int k;
+
+	private final int topK;
+
+	public ReciprocalRankFusionDocumentJoiner() {
+		this(DEFAULT_K, DEFAULT_TOP_K);
+	}
+
+	public ReciprocalRankFusionDocumentJoiner(int k, int topK) {
+
+		Assert.isTrue(k >= 0, "k must be greater than or equal to 0");
+		Assert.isTrue(topK > 0, "topK must be greater than 0");
+		this.k = k;
+		this.topK = topK;
+	}
+
+	@NotNull
+	@Override
+	public List<Document> join(
+			@Nullable Map<Query, List<List<Document>>> documentsForQuery
+	) {
+
+		Assert.notNull(documentsForQuery, "documentsForQuery cannot be null");
+		Assert.noNullElements(documentsForQuery.keySet(), "documentsForQuery cannot contain null keys");
+		Assert.noNullElements(documentsForQuery.values(), "documentsForQuery cannot contain null values");
+		logger.debug("Joining documents by reciprocal rank fusion");
+
+		Map<Object, Fused> fused = new HashMap<>();
+		for (List<List<Document>> documentLists : documentsForQuery.values()) {
+			for (List<Document> documents : documentLists) {
+				for (int rank = 0; rank < documents.size(); rank++) {
+					Document document = documents.get(rank);
+					double contribution = 1.0d / (k + rank + 1);
+					fused.computeIfAbsent(dedupKey(document), key -> new Fused(document)).add(contribution, document);
+				}
+			}
+		}
+
+		PriorityQueue<Fused> heap = new PriorityQueue<>(topK + 1, ASCENDING);
+		for (Fused candidate : fused.values()) {
+			if (heap.size() < topK) {
+				heap.add(candidate);
+			}
+			else if (ASCENDING.compare(candidate, heap.peek()) > 0) {
+				heap.poll();
+				heap.add(candidate);
+			}
+		}
+
+		List<Document> joined = new ArrayList<>(heap.size());
+		while (!heap.isEmpty()) {
+			Fused top = heap.poll();
+			joined.add(top.document.mutate().score(top.score).build());
+		}
+		Collections.reverse(joined);
+
+		logger.debug("Joined {} unique documents into top {}", fused.size(), joined.size());
+		return joined;
+	}
+
+	/**
+	 * 网页文档优先按 link 去重，本地文档按 source/file_name 去重，其余按 id 去重
+	 */
+	private static Object dedupKey(Document document) {
+
+		Map<String, Object> metadata = document.getMetadata();
+		if (metadata != null) {
+			Object link = metadata.get("link");
+			if (link != null) {
+				return link;
+			}
+			Object source = metadata.get("source");
+			if (source != null) {
+				return source;
+			}
+			Object fileName = metadata.get("file_name");
+			if (fileName != null) {
+				return fileName;
+			}
+		}
+		return document.getId();
+	}
+
+	private static final class Fused {
+
+		private Document document;
+
+		private double score;
+
+		private double originalScore = Double.NEGATIVE_INFINITY;
+
+		private Fused(Document document) {
+			this.document = document;
+		}
+
+		private void add(double contribution, Document candidate) {
+
+			score += contribution;
+			// 保留原始得分最高的副本
+			double candidateScore = candidate.getScore() != null ? candidate.getScore() : Double.NEGATIVE_INFINITY;
+			if (candidateScore > originalScore) {
+				originalScore = candidateScore;
+				document = candidate;
+			}
+		}
+
+		private double score() {
+			return score;
+		}
+
+		private double originalScore() {
+			return originalScore;
+		}
+	}
+
+}
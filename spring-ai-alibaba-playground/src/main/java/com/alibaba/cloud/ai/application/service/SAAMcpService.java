@@ -17,38 +17,47 @@
 package com.alibaba.cloud.ai.application.service;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
+import com.alibaba.cloud.ai.application.config.mcp.McpClientPoolProperties;
 import com.alibaba.cloud.ai.application.entity.mcp.McpServer;
 import com.alibaba.cloud.ai.application.entity.tools.ToolCallResp;
+import com.alibaba.cloud.ai.application.mcp.McpClientPool;
 import com.alibaba.cloud.ai.application.mcp.McpServerContainer;
 import com.alibaba.cloud.ai.application.mcp.McpServerUtils;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.client.advisor.SimpleLoggerAdvisor;
 import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
 import org.springframework.ai.chat.messages.ToolResponseMessage;
 import org.springframework.ai.chat.model.ChatModel;
 import org.springframework.ai.chat.model.ChatResponse;
 import org.springframework.ai.chat.prompt.ChatOptions;
 import org.springframework.ai.chat.prompt.Prompt;
-import org.springframework.ai.mcp.client.common.autoconfigure.properties.McpStdioClientProperties;
 import org.springframework.ai.model.tool.ToolCallingChatOptions;
 import org.springframework.ai.model.tool.ToolCallingManager;
 import org.springframework.ai.model.tool.ToolExecutionResult;
+import org.springframework.ai.tool.ToolCallback;
 import org.springframework.ai.tool.ToolCallbackProvider;
 import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.core.io.ByteArrayResource;
 import org.springframework.stereotype.Service;
-
-import static com.alibaba.cloud.ai.application.mcp.McpServerUtils.getMcpLibsAbsPath;
+import org.springframework.util.StringUtils;
 
 /**
  * @author brianxiadong
@@ -59,27 +68,40 @@ public class SAAMcpService {
 
 	private final ChatClient chatClient;
 
-	private final ObjectMapper objectMapper;
+	/**
+	 * 不带默认工具的 ChatClient，{@link #run} 只使用租用的 MCP server 提供的工具
+	 */
+	private final ChatClient runChatClient;
 
 	private final ToolCallbackProvider tools;
 
 	private final ToolCallingManager toolCallingManager;
 
-	private final McpStdioClientProperties mcpStdioClientProperties;
+	private final McpClientPool mcpClientPool;
+
+	/**
+	 * {@link #chatStream} 中单个工具的执行超时时间，与 MCP 请求超时保持一致
+	 */
+	private final Duration toolTimeout;
 
 	private static final Logger logger = LoggerFactory.getLogger(SAAMcpService.class);
 
+	/**
+	 * {@link #chatStream} 中模型连续请求工具调用的最大轮数
+	 */
+	private static final int MAX_TOOL_ROUNDS = 5;
+
 	public SAAMcpService(
-			ObjectMapper objectMapper,
 			ToolCallbackProvider tools,
 			SimpleLoggerAdvisor simpleLoggerAdvisor,
 			ToolCallingManager toolCallingManager,
-			McpStdioClientProperties mcpStdioClientProperties,
+			McpClientPool mcpClientPool,
+			McpClientPoolProperties mcpClientPoolProperties,
 			@Qualifier("openAiChatModel") ChatModel chatModel
 	) throws IOException {
 
-		this.objectMapper = objectMapper;
-		this.mcpStdioClientProperties = mcpStdioClientProperties;
+		this.mcpClientPool = mcpClientPool;
+		this.toolTimeout = mcpClientPoolProperties.requestTimeout();
 
 		// Initialize chat client with non-blocking configuration
 		this.chatClient = ChatClient.builder(chatModel)
@@ -87,6 +109,10 @@ public class SAAMcpService {
 						simpleLoggerAdvisor
 				).defaultToolCallbacks(tools)
 				.build();
+		this.runChatClient = ChatClient.builder(chatModel)
+				.defaultAdvisors(
+						simpleLoggerAdvisor
+				).build();
 		this.tools = tools;
 		this.toolCallingManager = toolCallingManager;
 
@@ -95,9 +121,14 @@ public class SAAMcpService {
 
 	public ToolCallResp chat(String prompt) {
 
+		return chat(chatClient, prompt, tools.getToolCallbacks());
+	}
+
+	private ToolCallResp chat(ChatClient chatClient, String prompt, ToolCallback[] toolCallbacks) {
+
 		// manual run tools flag
 		ChatOptions chatOptions = ToolCallingChatOptions.builder()
-				.toolCallbacks(tools.getToolCallbacks())
+				.toolCallbacks(toolCallbacks)
 				.internalToolExecutionEnabled(false)
 				.build();
 
@@ -123,18 +154,20 @@ public class SAAMcpService {
 			tcr.setToolParameters(toolCalls.get(0).arguments());
 			logger.debug("Start ToolCallResp: {}", tcr);
 			ToolExecutionResult toolExecutionResult = null;
+			long toolStartNanos = System.nanoTime();
 
 			try {
 				toolExecutionResult = toolCallingManager.executeToolCalls(new Prompt(prompt, chatOptions), response);
 
 				tcr.setToolEndTime(LocalDateTime.now());
+				tcr.setToolCostTime(elapsedMillis(toolStartNanos));
 			}
 			catch (Exception e) {
 
 				tcr.setStatus(ToolCallResp.ToolState.FAILURE);
 				tcr.setErrorMessage(e.getMessage());
 				tcr.setToolEndTime(LocalDateTime.now());
-				tcr.setToolCostTime((long) (tcr.getToolEndTime().getNano() - tcr.getToolStartTime().getNano()));
+				tcr.setToolCostTime(elapsedMillis(toolStartNanos));
 				logger.error("Error ToolCallResp: {}, msg: {}", tcr, e.getMessage());
 				// throw new RuntimeException("Tool execution failed, please check the logs for details.");
 			}
@@ -162,9 +195,10 @@ public class SAAMcpService {
 				tcr.setToolResponse(sb.toString());
 			}
 
-			tcr.setStatus(ToolCallResp.ToolState.SUCCESS);
+			if (Objects.nonNull(toolExecutionResult)) {
+				tcr.setStatus(ToolCallResp.ToolState.SUCCESS);
+			}
 			tcr.setToolResult(llmCallResponse);
-			tcr.setToolCostTime((long) (tcr.getToolEndTime().getNano() - tcr.getToolStartTime().getNano()));
 			logger.debug("End ToolCallResp: {}", tcr);
 		}
 		else {
@@ -175,6 +209,163 @@ public class SAAMcpService {
 		return tcr;
 	}
 
+	/**
+	 * 并行执行模型返回的全部工具调用，并以流的形式返回结果：
+	 * 每个工具执行完成后立即推送一个 ToolCallResp 事件（toolName 不为空），
+	 * 全部工具完成后基于工具结果流式生成最终回答，回答片段以 toolName 为空、toolResult 为文本片段的事件推送。
+	 * 单个工具的执行时间受 toolTimeout 限制，超时或失败的工具以 FAILURE 事件返回，不影响其他工具。
+	 * 最终回答中模型再次请求工具时，同样交给并行执行器处理，最多 {@link #MAX_TOOL_ROUNDS} 轮；
+	 * 最后一轮不再提供工具，模型直接基于已有的工具结果回答。
+	 */
+	public Flux<ToolCallResp> chatStream(String prompt) {
+
+		ChatOptions chatOptions = ToolCallingChatOptions.builder()
+				.toolCallbacks(tools.getToolCallbacks())
+				.internalToolExecutionEnabled(false)
+				.build();
+		Prompt request = new Prompt(prompt, chatOptions);
+
+		return Mono.fromCallable(() -> chatClient.prompt(request).call().chatResponse())
+				.subscribeOn(Schedulers.boundedElastic())
+				.flatMapMany(response -> {
+					AssistantMessage output = response.getResult().getOutput();
+					if (!output.hasToolCalls()) {
+						logger.debug("ToolCalls is empty, no tool execution needed.");
+						var tcr = ToolCallResp.TCR();
+						tcr.setToolResult(output.getText());
+						return Flux.just(tcr);
+					}
+
+					Map<String, ToolCallback> callbacks = new HashMap<>();
+					for (ToolCallback callback : tools.getToolCallbacks()) {
+						callbacks.putIfAbsent(callback.getToolDefinition().name(), callback);
+					}
+					return executeRound(request.getOptions(), request.getInstructions(), output, callbacks, 1);
+				});
+	}
+
+	/**
+	 * 并行执行一轮工具调用，完成后基于工具结果继续流式生成回答
+	 */
+	private Flux<ToolCallResp> executeRound(
+			ChatOptions chatOptions,
+			List<Message> history,
+			AssistantMessage output,
+			Map<String, ToolCallback> callbacks,
+			int round
+	) {
+
+		List<AssistantMessage.ToolCall> toolCalls = output.getToolCalls();
+		List<Mono<ExecutedTool>> executions = new ArrayList<>(toolCalls.size());
+		for (int i = 0; i < toolCalls.size(); i++) {
+			executions.add(executeTool(i, toolCalls.get(i), callbacks, output.getText()));
+		}
+
+		// 工具只执行一次：完成事件和最终回答共享同一份结果
+		Flux<ExecutedTool> executed = Flux.merge(executions).cache();
+		Flux<ToolCallResp> answer = executed.collectList()
+				.flatMapMany(results -> streamAnswer(chatOptions, history, output, results, callbacks, round));
+		return Flux.concat(executed.map(ExecutedTool::event), answer);
+	}
+
+	private Mono<ExecutedTool> executeTool(
+			int index,
+			AssistantMessage.ToolCall toolCall,
+			Map<String, ToolCallback> callbacks,
+			String responseByLLm
+	) {
+
+		return Mono.defer(() -> {
+			ToolCallResp tcr = ToolCallResp.startExecute(responseByLLm, toolCall.name(), toolCall.arguments());
+			long toolStartNanos = System.nanoTime();
+			ToolCallback callback = callbacks.get(toolCall.name());
+
+			Mono<String> call = callback == null
+					? Mono.error(new IllegalStateException("Tool not found: " + toolCall.name()))
+					: Mono.fromCallable(() -> callback.call(toolCall.arguments()))
+							.subscribeOn(Schedulers.boundedElastic())
+							.timeout(toolTimeout);
+
+			return call.map(result -> {
+						tcr.setStatus(ToolCallResp.ToolState.SUCCESS);
+						tcr.setToolResponse(result);
+						return result;
+					})
+					.onErrorResume(e -> {
+						String message = e instanceof TimeoutException
+								? "Tool execution timed out after " + toolTimeout.toMillis() + " ms" : e.getMessage();
+						tcr.setStatus(ToolCallResp.ToolState.FAILURE);
+						tcr.setErrorMessage(message);
+						logger.error("Error ToolCallResp: {}, msg: {}", tcr, message);
+						return Mono.just("Tool execution failed: " + message);
+					})
+					.map(result -> {
+						tcr.setToolEndTime(LocalDateTime.now());
+						tcr.setToolCostTime(elapsedMillis(toolStartNanos));
+						return new ExecutedTool(index, toolCall, result, tcr);
+					});
+		});
+	}
+
+	private Flux<ToolCallResp> streamAnswer(
+			ChatOptions chatOptions,
+			List<Message> history,
+			AssistantMessage output,
+			List<ExecutedTool> results,
+			Map<String, ToolCallback> callbacks,
+			int round
+	) {
+
+		List<ToolResponseMessage.ToolResponse> responses = results.stream()
+				.sorted(Comparator.comparingInt(ExecutedTool::index))
+				.map(executed -> new ToolResponseMessage.ToolResponse(
+						executed.toolCall().id(), executed.toolCall().name(), executed.result()))
+				.toList();
+
+		List<Message> messages = new ArrayList<>(history);
+		messages.add(output);
+		messages.add(ToolResponseMessage.builder().responses(responses).build());
+
+		// 沿用关闭了内部工具执行的 options，工具调用统一由并行执行器处理，不会在 ChatModel 内部串行执行；
+		// 达到最大轮数后改用不带默认工具的 ChatClient 且不传工具，模型只能直接回答
+		boolean lastRound = round >= MAX_TOOL_ROUNDS;
+		Prompt prompt = lastRound
+				? new Prompt(messages, ToolCallingChatOptions.builder().internalToolExecutionEnabled(false).build())
+				: new Prompt(messages, chatOptions);
+		return (lastRound ? runChatClient : chatClient).prompt(prompt)
+				.stream().chatResponse()
+				.concatMap(chunk -> {
+					if (chunk.getResult() == null) {
+						return Flux.empty();
+					}
+					AssistantMessage chunkOutput = chunk.getResult().getOutput();
+					if (chunkOutput.hasToolCalls()) {
+						if (lastRound) {
+							logger.warn("Tool calling exceeded {} rounds, stop executing tools.", MAX_TOOL_ROUNDS);
+							var tcr = ToolCallResp.TCR();
+							tcr.setStatus(ToolCallResp.ToolState.FAILURE);
+							tcr.setErrorMessage("Tool calling exceeded " + MAX_TOOL_ROUNDS + " rounds, no final answer was generated.");
+							return Flux.just(tcr);
+						}
+						return executeRound(chatOptions, messages, chunkOutput, callbacks, round + 1);
+					}
+					if (!StringUtils.hasLength(chunkOutput.getText())) {
+						return Flux.empty();
+					}
+					var tcr = ToolCallResp.TCR();
+					tcr.setToolResult(chunkOutput.getText());
+					return Flux.just(tcr);
+				});
+	}
+
+	private static long elapsedMillis(long startNanos) {
+
+		return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+	}
+
+	private record ExecutedTool(int index, AssistantMessage.ToolCall toolCall, String result, ToolCallResp event) {
+	}
+
 	public ToolCallResp run(String id, Map<String, String> envs, String prompt) throws IOException {
 
 		Optional<McpServer> runMcpServer = McpServerContainer.getServerById(id);
@@ -184,25 +375,30 @@ public class SAAMcpService {
 		}
 
 		String runMcpServerName = runMcpServer.get().getName();
-		var mcpServerConfig = McpServerUtils.getMcpServerConfig();
-		McpStdioClientProperties.Parameters parameters = new McpStdioClientProperties.Parameters(
-				mcpServerConfig.getMcpServers().get(runMcpServerName).command(),
-				mcpServerConfig.getMcpServers().get(runMcpServerName).args(),
-				envs
-		);
-
-		if (parameters.command().startsWith("java")) {
-			String oldMcpLibsPath = McpServerUtils.getLibsPath(parameters.args());
-			String rewriteMcpLibsAbsPath = getMcpLibsAbsPath(McpServerUtils.getLibsPath(parameters.args()));
-
-			parameters.args().remove(oldMcpLibsPath);
-			parameters.args().add(rewriteMcpLibsAbsPath);
+		// 从进程池租用已经初始化的 server 进程，不再每次请求重新读取配置并冷启动
+		try (McpClientPool.Lease lease = mcpClientPool.lease(runMcpServerName, envs)) {
+			try {
+				return chat(runChatClient, prompt, lease.toolCallbacks());
+			}
+			catch (RuntimeException e) {
+				if (!isAlive(lease)) {
+					lease.invalidate();
+				}
+				throw e;
+			}
 		}
+	}
 
-		String mcpServerConfigJSON = objectMapper.writeValueAsString(mcpServerConfig);
-		mcpStdioClientProperties.setServersConfiguration(new ByteArrayResource(mcpServerConfigJSON.getBytes()));
+	private boolean isAlive(McpClientPool.Lease lease) {
 
-		return chat(prompt);
+		try {
+			lease.client().ping();
+			return true;
+		}
+		catch (RuntimeException e) {
+			logger.warn("MCP server process is not responding, it will be restarted: {}", e.getMessage());
+			return false;
+		}
 	}
 
 }
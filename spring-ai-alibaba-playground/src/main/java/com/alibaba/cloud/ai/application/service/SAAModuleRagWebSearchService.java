@@ -17,15 +17,18 @@
 package com.alibaba.cloud.ai.application.service;
 
 import com.alibaba.cloud.ai.application.advisor.ReasoningContentAdvisor;
+import com.alibaba.cloud.ai.application.config.WebSearchProperties;
 import com.alibaba.cloud.ai.application.entity.dashscope.ChatResponseDTO;
 import com.alibaba.cloud.ai.application.enums.WebSearchEnum;
+import com.alibaba.cloud.ai.application.modulerag.IQSSearchProperties;
 import com.alibaba.cloud.ai.application.modulerag.WebSearchRetriever;
 import com.alibaba.cloud.ai.application.modulerag.core.IQSSearchEngine;
 import com.alibaba.cloud.ai.application.modulerag.data.DataClean;
-import com.alibaba.cloud.ai.application.modulerag.join.ConcatenationDocumentJoiner;
+import com.alibaba.cloud.ai.application.modulerag.join.ReciprocalRankFusionDocumentJoiner;
 import com.alibaba.cloud.ai.application.modulerag.prompt.CustomContextQueryAugmenter;
 import com.alibaba.cloud.ai.dashscope.chat.DashScopeChatOptions;
 import com.alibaba.cloud.ai.dashscope.spec.DashScopeModel;
+import jakarta.annotation.PreDestroy;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.client.advisor.SimpleLoggerAdvisor;
 import org.springframework.ai.chat.model.ChatModel;
@@ -34,6 +37,7 @@ import org.springframework.ai.rag.advisor.RetrievalAugmentationAdvisor;
 import org.springframework.ai.rag.preretrieval.query.expansion.QueryExpander;
 import org.springframework.ai.rag.preretrieval.query.transformation.QueryTransformer;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 
@@ -61,12 +65,15 @@ public class SAAModuleRagWebSearchService implements ISAAWebSearchService {
 
     private final ReasoningContentAdvisor reasoningContentAdvisor;
 
+    private final ThreadPoolTaskExecutor retrievalExecutor;
+
     public SAAModuleRagWebSearchService(
             DataClean dataCleaner,
             QueryExpander queryExpander,
             IQSSearchEngine searchEngine,
             QueryTransformer queryTransformer,
             SimpleLoggerAdvisor simpleLoggerAdvisor,
+            WebSearchProperties webSearchProperties,
             @Qualifier("dashScopeChatModel") ChatModel chatModel,
             @Qualifier("queryArgumentPromptTemplate") PromptTemplate queryArgumentPromptTemplate
     ) {
@@ -91,11 +98,28 @@ public class SAAModuleRagWebSearchService implements ISAAWebSearchService {
 
         this.simpleLoggerAdvisor = simpleLoggerAdvisor;
 
+        IQSSearchProperties iqsSearchProperties = webSearchProperties.iqs();
+
         this.webSearchRetriever = WebSearchRetriever.builder()
                 .searchEngine(searchEngine)
                 .dataCleaner(dataCleaner)
                 .maxResults(2)
+                .timeout(iqsSearchProperties.timeout())
                 .build();
+
+        // MultiQueryExpander 扩展出的 N+1 个查询在该线程池上并发检索，延迟约为单次检索耗时而非 N 次之和
+        // 不注册为 Spring Bean，避免覆盖 Spring Boot 默认的 applicationTaskExecutor
+        this.retrievalExecutor = new ThreadPoolTaskExecutor();
+        this.retrievalExecutor.setCorePoolSize(iqsSearchProperties.maxConcurrency());
+        this.retrievalExecutor.setMaxPoolSize(iqsSearchProperties.maxConcurrency());
+        this.retrievalExecutor.setAllowCoreThreadTimeOut(true);
+        this.retrievalExecutor.setThreadNamePrefix("web-search-retrieval-");
+        this.retrievalExecutor.initialize();
+    }
+
+    @PreDestroy
+    public void destroy() {
+        this.retrievalExecutor.shutdown();
     }
 
 
@@ -129,7 +153,8 @@ public class SAAModuleRagWebSearchService implements ISAAWebSearchService {
                                 null,
                                 true)
                 ).queryExpander(queryExpander)
-                .documentJoiner(new ConcatenationDocumentJoiner())
+                .taskExecutor(retrievalExecutor)
+                .documentJoiner(new ReciprocalRankFusionDocumentJoiner())
                 .build();
     }
 
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.utils;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+import com.alibaba.cloud.ai.application.exception.SAAAppException;
+import org.bytedeco.javacv.FFmpegFrameGrabber;
+import org.bytedeco.javacv.Frame;
+import org.bytedeco.javacv.Java2DFrameConverter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 视频抽帧工具
+ * <p>
+ * 直接从内存中的视频数据解码，只解码关键帧并顺序扫描一遍，不再逐帧 seek；
+ * 抽出的帧在多个线程中并行编码为 JPEG 字节数组，整个过程不写磁盘。
+ *
+ * @author yuluo
+ * @author <a href="mailto:yuluo08290126@gmail.com">yuluo</a>
+ */
+
+public final class VideoFrameUtils {
+
+	private static final Logger logger = LoggerFactory.getLogger(VideoFrameUtils.class);
+
+	private static final String FORMAT = "jpg";
+
+	private VideoFrameUtils() {
+	}
+
+	/**
+	 * 在视频时长内均匀取 frameCount 个时间点，每个时间点取其后的第一个关键帧
+	 * @param video 视频数据
+	 * @param frameCount 要提取的帧数
+	 * @return JPEG 编码的帧，按时间顺序排列；关键帧稀疏时数量可能少于 frameCount
+	 */
+	public static List<byte[]> extractKeyFrames(byte[] video, int frameCount) {
+
+		List<Frame> frames = grabKeyFrames(video, frameCount);
+		try {
+			return frames.parallelStream()
+					.map(VideoFrameUtils::encode)
+					.toList();
+		}
+		finally {
+			frames.forEach(Frame::close);
+		}
+	}
+
+	private static List<Frame> grabKeyFrames(byte[] video, int frameCount) {
+
+		List<Frame> frames = new ArrayList<>(frameCount);
+		// ByteArrayInputStream 支持任意 mark/reset，moov 位于文件末尾的 mp4 也可以正常 seek
+		try (FFmpegFrameGrabber grabber = new FFmpegFrameGrabber(new ByteArrayInputStream(video), Integer.MAX_VALUE - 8)) {
+			grabber.start();
+
+			long duration = Math.max(grabber.getLengthInTime(), 0L);
+			int next = 0;
+			Frame frame;
+			while (next < frameCount && (frame = grabber.grabKeyFrame()) != null) {
+				if (frame.image == null || frame.timestamp < target(duration, next, frameCount)) {
+					continue;
+				}
+				// grabber 会复用 Frame 缓冲区，需要复制后再交给编码线程
+				frames.add(frame.clone());
+				next++;
+				// 关键帧间隔大于采样间隔时，跳过已经越过的时间点，避免重复取同一帧
+				while (duration > 0 && next < frameCount && frame.timestamp >= target(duration, next, frameCount)) {
+					next++;
+				}
+			}
+			grabber.stop();
+		}
+		catch (IOException e) {
+			frames.forEach(Frame::close);
+			throw new SAAAppException("Failed to extract frames from video: " + e.getMessage());
+		}
+
+		logger.debug("Extracted {} key frames from video.", frames.size());
+		return frames;
+	}
+
+	private static long target(long duration, int index, int frameCount) {
+
+		return duration * index / frameCount;
+	}
+
+	private static byte[] encode(Frame frame) {
+
+		// Java2DFrameConverter 不是线程安全的，每个编码任务使用独立实例
+		try {
+			BufferedImage image = new Java2DFrameConverter().convert(frame);
+			ByteArrayOutputStream out = new ByteArrayOutputStream(64 * 1024);
+			ImageIO.write(image, FORMAT, out);
+			return out.toByteArray();
+		}
+		catch (IOException e) {
+			throw new SAAAppException("Failed to encode video frame: " + e.getMessage());
+		}
+	}
+
+}
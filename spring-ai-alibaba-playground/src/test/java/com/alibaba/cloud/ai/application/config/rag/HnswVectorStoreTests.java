@@ -0,0 +1,233 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.application.config.rag;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.vectorstore.SearchRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * HnswVectorStore 检索测试：以精确扫描的结果为基准检查召回率，包括带 metadata 过滤的检索。
+ */
+class HnswVectorStoreTests {
+
+	private static final int DOCUMENTS = 2000;
+
+	private static final int DIMENSIONS = 16;
+
+	private static final int GROUPS = 50;
+
+	private static final int QUERIES = 50;
+
+	private static final int TOP_K = 10;
+
+	private final Random random = new Random(42);
+
+	private final VectorEmbeddingModel embeddingModel = new VectorEmbeddingModel();
+
+	private final HnswVectorStore store = new HnswVectorStore(embeddingModel, 16, 200, 100);
+
+	@BeforeEach
+	void setUp() {
+
+		List<Document> documents = new ArrayList<>(DOCUMENTS);
+		for (int i = 0; i < DOCUMENTS; i++) {
+			String text = "doc-" + i;
+			embeddingModel.register(text, randomVector());
+			documents.add(new Document(String.valueOf(i), text, Map.of("group", "g" + (i % GROUPS))));
+		}
+		store.add(documents);
+	}
+
+	@Test
+	void recallMatchesExactScan() {
+
+		assertThat(recall(null, metadata -> true)).isGreaterThanOrEqualTo(0.9);
+	}
+
+	@Test
+	void filteredRecallMatchesExactScan() {
+
+		// 每个分组只有 2% 的文档
+		assertThat(recall("group == 'g7'", metadata -> metadata.get("group").equals("g7")))
+				.isGreaterThanOrEqualTo(0.9);
+	}
+
+	@Test
+	void selectiveFilterReturnsEveryMatch() {
+
+		float[] query = randomVector();
+		embeddingModel.register("query", query);
+		List<Document> rare = IntStream.range(0, 3)
+				.mapToObj(i -> {
+					String text = "rare-" + i;
+					// 随机方向，只保证相似度不低于默认阈值 0
+					float[] vector = randomVector();
+					if (cosine(query, vector) < 0) {
+						for (int d = 0; d < DIMENSIONS; d++) {
+							vector[d] = -vector[d];
+						}
+					}
+					embeddingModel.register(text, vector);
+					return new Document("rare-" + i, text, Map.of("group", "rare"));
+				})
+				.toList();
+		store.add(rare);
+
+		List<Document> results = store.similaritySearch(SearchRequest.builder()
+				.query("query")
+				.topK(TOP_K)
+				.similarityThreshold(SearchRequest.SIMILARITY_THRESHOLD_ACCEPT_ALL)
+				.filterExpression("group == 'rare'")
+				.build());
+
+		assertThat(results).extracting(Document::getId).containsExactlyInAnyOrder("rare-0", "rare-1", "rare-2");
+	}
+
+	@Test
+	void deletedDocumentsAreNotReturned() {
+
+		store.delete("group == 'g7'");
+
+		embeddingModel.register("query", randomVector());
+		List<Document> results = store.similaritySearch(SearchRequest.builder()
+				.query("query")
+				.topK(TOP_K)
+				.similarityThreshold(SearchRequest.SIMILARITY_THRESHOLD_ACCEPT_ALL)
+				.filterExpression("group == 'g7'")
+				.build());
+
+		assertThat(results).isEmpty();
+	}
+
+	/**
+	 * 多个随机查询下，HNSW 结果与精确扫描 topK 的平均重合比例
+	 */
+	private double recall(String filterExpression, Predicate<Map<String, Object>> filter) {
+
+		int hits = 0;
+		int expectedTotal = 0;
+		for (int q = 0; q < QUERIES; q++) {
+			String text = "query-" + q;
+			float[] query = randomVector();
+			embeddingModel.register(text, query);
+
+			SearchRequest.Builder builder = SearchRequest.builder()
+					.query(text)
+					.topK(TOP_K)
+					.similarityThreshold(SearchRequest.SIMILARITY_THRESHOLD_ACCEPT_ALL);
+			if (filterExpression != null) {
+				builder.filterExpression(filterExpression);
+			}
+			Set<String> actual = new HashSet<>();
+			store.similaritySearch(builder.build()).forEach(document -> actual.add(document.getId()));
+
+			List<String> expected = exactTopK(query, filter);
+			expectedTotal += expected.size();
+			hits += (int) expected.stream().filter(actual::contains).count();
+		}
+		return (double) hits / expectedTotal;
+	}
+
+	private List<String> exactTopK(float[] query, Predicate<Map<String, Object>> filter) {
+
+		return IntStream.range(0, DOCUMENTS)
+				.filter(i -> filter.test(Map.of("group", "g" + (i % GROUPS))))
+				.filter(i -> cosine(query, embeddingModel.vector("doc-" + i)) >= 0)
+				.boxed()
+				.sorted(Comparator.comparingDouble(i -> -cosine(query, embeddingModel.vector("doc-" + i))))
+				.limit(TOP_K)
+				.map(String::valueOf)
+				.toList();
+	}
+
+	private float[] randomVector() {
+
+		float[] vector = new float[DIMENSIONS];
+		for (int i = 0; i < DIMENSIONS; i++) {
+			vector[i] = (float) random.nextGaussian();
+		}
+		return vector;
+	}
+
+	private static double cosine(float[] a, float[] b) {
+
+		double dot = 0d;
+		double normA = 0d;
+		double normB = 0d;
+		for (int i = 0; i < a.length; i++) {
+			dot += a[i] * b[i];
+			normA += a[i] * a[i];
+			normB += b[i] * b[i];
+		}
+		return dot / Math.sqrt(normA * normB);
+	}
+
+	/**
+	 * 按文本返回预先登记的向量，每次返回副本，避免向量库归一化时修改登记的向量
+	 */
+	private static final class VectorEmbeddingModel implements EmbeddingModel {
+
+		private final Map<String, float[]> vectors = new HashMap<>();
+
+		void register(String text, float[] vector) {
+
+			vectors.put(text, vector);
+		}
+
+		float[] vector(String text) {
+
+			return vectors.get(text);
+		}
+
+		@Override
+		public EmbeddingResponse call(EmbeddingRequest request) {
+
+			List<Embedding> embeddings = new ArrayList<>();
+			for (int i = 0; i < request.getInstructions().size(); i++) {
+				embeddings.add(new Embedding(vectors.get(request.getInstructions().get(i)).clone(), i));
+			}
+			return new EmbeddingResponse(embeddings);
+		}
+
+		@Override
+		public float[] embed(Document document) {
+
+			return vectors.get(document.getText()).clone();
+		}
+
+	}
+
+}
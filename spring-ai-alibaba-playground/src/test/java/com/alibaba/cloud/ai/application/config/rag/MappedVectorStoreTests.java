@@ -0,0 +1,136 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.cloud.ai.application.config.rag;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.vectorstore.SearchRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * MappedVectorStore 重启恢复测试：不调用 flush，直接用同一个快照重新创建向量库，模拟进程崩溃后重启。
+ */
+class MappedVectorStoreTests {
+
+	private final EmbeddingModel embeddingModel = new FixedEmbeddingModel();
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void reAddedDocumentSurvivesRestart() {
+
+		MappedVectorStore store = new MappedVectorStore(embeddingModel, dir.resolve("store"));
+		store.add(List.of(new Document("a", "old text", Map.of())));
+		store.delete(List.of("a"));
+		store.add(List.of(new Document("a", "new text", Map.of())));
+
+		MappedVectorStore restarted = new MappedVectorStore(embeddingModel, dir.resolve("store"));
+
+		assertThat(restarted.isEmpty()).isFalse();
+		assertThat(search(restarted, null)).singleElement()
+				.satisfies(document -> {
+					assertThat(document.getId()).isEqualTo("a");
+					assertThat(document.getText()).isEqualTo("new text");
+				});
+	}
+
+	@Test
+	void deletedDocumentStaysDeletedAfterRestart() {
+
+		MappedVectorStore store = new MappedVectorStore(embeddingModel, dir.resolve("store"));
+		store.add(List.of(new Document("a", "text a", Map.of()), new Document("b", "text b", Map.of())));
+		store.delete(List.of("a"));
+
+		MappedVectorStore restarted = new MappedVectorStore(embeddingModel, dir.resolve("store"));
+
+		assertThat(search(restarted, null)).extracting(Document::getId).containsExactly("b");
+	}
+
+	@Test
+	void tombstonesAfterCompactionSurviveRestart() {
+
+		MappedVectorStore store = new MappedVectorStore(embeddingModel, dir.resolve("store"));
+		store.add(List.of(new Document("a", "text a", Map.of()), new Document("b", "text b", Map.of())));
+		store.delete(List.of("a"));
+		store.flush();
+		// 压缩后序号重新编号，新的删除记录只能作用在新一代快照上
+		store.add(List.of(new Document("c", "text c", Map.of())));
+		store.delete(List.of("b"));
+
+		MappedVectorStore restarted = new MappedVectorStore(embeddingModel, dir.resolve("store"));
+
+		assertThat(search(restarted, null)).extracting(Document::getId).containsExactly("c");
+	}
+
+	@Test
+	void filtersByMetadata() {
+
+		MappedVectorStore store = new MappedVectorStore(embeddingModel, dir.resolve("store"));
+		store.add(List.of(new Document("a", "text a", Map.of("source", "x")),
+				new Document("b", "text b", Map.of("source", "y"))));
+
+		assertThat(search(store, "source == 'y'")).extracting(Document::getId).containsExactly("b");
+
+		store.delete("source == 'y'");
+		assertThat(search(store, null)).extracting(Document::getId).containsExactly("a");
+	}
+
+	private static List<Document> search(MappedVectorStore store, String filterExpression) {
+
+		SearchRequest.Builder builder = SearchRequest.builder().query("query").topK(10).similarityThreshold(0d);
+		if (filterExpression != null) {
+			builder.filterExpression(filterExpression);
+		}
+		return store.similaritySearch(builder.build());
+	}
+
+	/**
+	 * 所有文本都映射到同一个向量，测试只关心增删和过滤
+	 */
+	private static final class FixedEmbeddingModel implements EmbeddingModel {
+
+		@Override
+		public EmbeddingResponse call(EmbeddingRequest request) {
+
+			List<Embedding> embeddings = new ArrayList<>();
+			for (int i = 0; i < request.getInstructions().size(); i++) {
+				embeddings.add(new Embedding(new float[] { 1f, 0f, 0f, 0f }, i));
+			}
+			return new EmbeddingResponse(embeddings);
+		}
+
+		@Override
+		public float[] embed(Document document) {
+
+			return new float[] { 1f, 0f, 0f, 0f };
+		}
+
+	}
+
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.cloud.ai.application.modulerag.data;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.cloud.ai.application.entity.iqs.IQSSearchResponse;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.ai.document.Document;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * DataClean 并发正确性测试：多个请求同时清洗时，链接索引和 metadata 不能在请求之间串用。
+ */
+class DataCleanTests {
+
+	private static final int THREADS = 32;
+
+	private static final int ITERATIONS = 500;
+
+	private static final int PAGE_ITEMS = 5;
+
+	private final DataClean dataClean = new DataClean();
+
+	@Test
+	void skipsShortTextAndKeepsBodyOutOfMetadata() {
+
+		IQSSearchResponse response = new IQSSearchResponse("req", List.of(
+				pageItem("https://a.example/1", "short"),
+				pageItem("https://a.example/2", "a long enough main text")
+		), null, null, queryContext("q"), null);
+
+		DataClean.CleanedData data = dataClean.getData(response);
+
+		assertThat(data.documents()).hasSize(1);
+		Document document = data.documents().get(0);
+		assertThat(document.getText()).isEqualTo("a long enough main text");
+		assertThat(document.getMetadata()).doesNotContainKeys("mainText", "markdownText");
+		assertThat(document.getMetadata()).containsEntry("link", "https://a.example/2").containsEntry("query", "q");
+		// 引用编号与文档位置一致
+		assertThat(data.webLinks()).containsOnly(Map.entry(1, "https://a.example/2"));
+
+		assertThatThrownBy(() -> data.documents().add(document)).isInstanceOf(UnsupportedOperationException.class);
+		assertThatThrownBy(() -> data.webLinks().put(2, "x")).isInstanceOf(UnsupportedOperationException.class);
+	}
+
+	@Test
+	void concurrentRequestsDoNotShareState() throws Exception {
+
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<Integer>> futures = new ArrayList<>();
+
+		try {
+			for (int t = 0; t < THREADS; t++) {
+				int thread = t;
+				futures.add(executor.submit(() -> {
+					start.await();
+					int checked = 0;
+					for (int i = 0; i < ITERATIONS; i++) {
+						String requestId = thread + "-" + i;
+						DataClean.CleanedData data = dataClean.getData(response(requestId));
+
+						assertThat(data.documents()).hasSize(PAGE_ITEMS);
+						assertThat(data.webLinks()).hasSize(PAGE_ITEMS);
+
+						Set<Map<String, Object>> metadataMaps = Collections.newSetFromMap(new IdentityHashMap<>());
+						for (int p = 0; p < PAGE_ITEMS; p++) {
+							String expectedLink = link(requestId, p);
+							Document document = data.documents().get(p);
+							assertThat(document.getMetadata()).containsEntry("link", expectedLink)
+									.containsEntry("query", requestId);
+							assertThat(data.webLinks()).containsEntry(p + 1, expectedLink);
+							metadataMaps.add(document.getMetadata());
+						}
+						// 每个文档持有独立的 metadata
+						assertThat(metadataMaps).hasSize(PAGE_ITEMS);
+						checked++;
+					}
+					return checked;
+				}));
+			}
+
+			start.countDown();
+			int total = 0;
+			for (Future<Integer> future : futures) {
+				total += future.get(60, TimeUnit.SECONDS);
+			}
+			assertThat(total).isEqualTo(THREADS * ITERATIONS);
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static IQSSearchResponse response(String requestId) {
+
+		List<IQSSearchResponse.PageItem> items = new ArrayList<>(PAGE_ITEMS);
+		for (int p = 0; p < PAGE_ITEMS; p++) {
+			items.add(pageItem(link(requestId, p), "main text of " + requestId + " page " + p));
+		}
+		return new IQSSearchResponse(requestId, items, null, null, queryContext(requestId), null);
+	}
+
+	private static String link(String requestId, int page) {
+
+		return "https://example.com/" + requestId + "/" + page;
+	}
+
+	private static IQSSearchResponse.QueryContext queryContext(String query) {
+
+		return new IQSSearchResponse.QueryContext("Generic", new IQSSearchResponse.OriginalQuery(query, "OneWeek"), null);
+	}
+
+	private static IQSSearchResponse.PageItem pageItem(String link, String mainText) {
+
+		return new IQSSearchResponse.PageItem("title", link, "snippet", null, mainText, null,
+				null, "example.com", null, null, 0.5d);
+	}
+
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.touhouqing.chatAiDemo.component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * 增量爬取的本地状态，保存在 stateDir 目录下：
+ * 1. visited.txt：已抓取的详情页 URL，只追加；
+ * 2. frontier.txt：待抓取队列的日志，"+url" 表示入队，"-url" 表示完成，进程崩溃后据此恢复；
+ * 3. checkpoints.properties：每个列表页上次见到的最新发布日期，整次爬取成功结束后才更新。
+ * 详情页由 {@link ProcurementDataPipeline} 在异步分析并写入图数据库成功后才记为已访问，
+ * 在此之前一直保留在待抓取日志中，进程崩溃或写入失败时下次爬取会重新抓取。
+ */
+@Slf4j
+@Component
+public class CrawlStateStore {
+
+    private static final String VISITED_FILE = "visited.txt";
+    private static final String FRONTIER_FILE = "frontier.txt";
+    private static final String CHECKPOINT_FILE = "checkpoints.properties";
+
+    @Value("${procurement.crawler.state-dir:crawl-state}")
+    private Path stateDir;
+
+    private final Set<String> visited = new HashSet<>();
+    private final Set<String> frontier = new LinkedHashSet<>();
+    private final Properties checkpoints = new Properties();
+    private final Map<String, String> pendingCheckpoints = new HashMap<>();
+
+    private BufferedWriter visitedWriter;
+    private BufferedWriter frontierWriter;
+
+    @PostConstruct
+    public synchronized void load() throws IOException {
+        Files.createDirectories(stateDir);
+
+        Path visitedFile = stateDir.resolve(VISITED_FILE);
+        if (Files.exists(visitedFile)) {
+            try (BufferedReader reader = Files.newBufferedReader(visitedFile, StandardCharsets.UTF_8)) {
+                reader.lines().filter(line -> !line.isBlank()).forEach(visited::add);
+            }
+        }
+
+        Path frontierFile = stateDir.resolve(FRONTIER_FILE);
+        if (Files.exists(frontierFile)) {
+            try (BufferedReader reader = Files.newBufferedReader(frontierFile, StandardCharsets.UTF_8)) {
+                reader.lines().filter(line -> line.length() > 1).forEach(line -> {
+                    if (line.charAt(0) == '+') {
+                        frontier.add(line.substring(1));
+                    } else if (line.charAt(0) == '-') {
+                        frontier.remove(line.substring(1));
+                    }
+                });
+            }
+        }
+
+        Path checkpointFile = stateDir.resolve(CHECKPOINT_FILE);
+        if (Files.exists(checkpointFile)) {
+            try (BufferedReader reader = Files.newBufferedReader(checkpointFile, StandardCharsets.UTF_8)) {
+                checkpoints.load(reader);
+            }
+        }
+
+        visitedWriter = Files.newBufferedWriter(visitedFile, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        // 压缩日志，只保留未完成的 URL
+        rewriteFrontier();
+        log.info("已加载爬虫状态: {} 个已抓取详情页, {} 个待恢复URL, {} 个列表页检查点",
+                visited.size(), frontier.size(), checkpoints.size());
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (visitedWriter != null) {
+            visitedWriter.close();
+        }
+        if (frontierWriter != null) {
+            frontierWriter.close();
+        }
+    }
+
+    public synchronized boolean isVisited(String url) {
+        return visited.contains(url);
+    }
+
+    /**
+     * 上次崩溃或中断时尚未完成的 URL
+     */
+    public synchronized List<String> pendingUrls() {
+        return new ArrayList<>(frontier);
+    }
+
+    public synchronized void enqueued(String url) {
+        if (frontier.add(url)) {
+            append(frontierWriter, "+" + url);
+        }
+    }
+
+    /**
+     * 页面处理完成：列表页在抓取成功后调用，详情页在数据写入成功（或确认无需写入）后调用
+     * @param detail 是否为详情页，详情页以后不再抓取
+     */
+    public synchronized void completed(String url, boolean detail) {
+        if (detail && visited.add(url)) {
+            append(visitedWriter, url);
+        }
+        if (frontier.remove(url)) {
+            append(frontierWriter, "-" + url);
+        }
+    }
+
+    public synchronized String lastSeenDate(String listKey) {
+        return checkpoints.getProperty(listKey);
+    }
+
+    /**
+     * 记录列表页本次见到的最新发布日期，{@link #commitCheckpoints()} 之后才生效
+     */
+    public synchronized void recordSeenDate(String listKey, String publishDate) {
+        pendingCheckpoints.merge(listKey, publishDate, (a, b) -> a.compareTo(b) >= 0 ? a : b);
+    }
+
+    /**
+     * 一次爬取完整结束后调用：更新列表页检查点并压缩待抓取日志，
+     * 重试后仍失败的 URL 留在日志中，下次爬取时重新抓取
+     */
+    public synchronized void commitCheckpoints() {
+        pendingCheckpoints.forEach((key, date) -> {
+            String last = checkpoints.getProperty(key);
+            if (last == null || date.compareTo(last) > 0) {
+                checkpoints.setProperty(key, date);
+            }
+        });
+        pendingCheckpoints.clear();
+        try {
+            Path tmp = stateDir.resolve(CHECKPOINT_FILE + ".tmp");
+            try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                checkpoints.store(writer, null);
+            }
+            Files.move(tmp, stateDir.resolve(CHECKPOINT_FILE), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            rewriteFrontier();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 放弃本次爬取记录的检查点，例如爬取中途失败
+     */
+    public synchronized void discardCheckpoints() {
+        pendingCheckpoints.clear();
+    }
+
+    private void rewriteFrontier() throws IOException {
+        if (frontierWriter != null) {
+            frontierWriter.close();
+        }
+        Path frontierFile = stateDir.resolve(FRONTIER_FILE);
+        Path tmp = stateDir.resolve(FRONTIER_FILE + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            for (String url : frontier) {
+                writer.write("+" + url);
+                writer.newLine();
+            }
+        }
+        Files.move(tmp, frontierFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        frontierWriter = Files.newBufferedWriter(frontierFile, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private void append(BufferedWriter writer, String line) {
+        try {
+            writer.write(line);
+            writer.newLine();
+            // 每条记录立即落盘，进程崩溃时最多丢失正在写的一行
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.touhouqing.chatAiDemo.component;
+
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.nodes.TextNode;
+import org.jsoup.select.NodeTraversor;
+import org.jsoup.select.NodeVisitor;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 采购公告详情页的单遍提取器
+ * 只遍历一次 DOM，同时收集标题、发布日期、发布来源、正文和表格行，
+ * 取值规则与 {@link GovProcurementPageProcessor} 中的 XPath 方式一致：
+ * 标题依次取 h1、包含"公告"的 strong、title、第一个包含"政府采购"或"公告"的文本；
+ * 表格只取 td 的直接文本，每行的单元格以 "|" 分隔。
+ */
+public final class DetailPageExtractor {
+
+    private static final Pattern PUBLISH_DATE_PATTERN = Pattern.compile("发布日期：(.+?)\\s");
+    private static final Pattern PUBLISH_DATE_CN_PATTERN = Pattern.compile("(\\d{4}年\\d{1,2}月\\d{1,2}日)");
+    private static final Pattern PUBLISH_SOURCE_PATTERN = Pattern.compile("发布来源：(.+?)\\s");
+    private static final Pattern PUBLISH_SOURCE_EOL_PATTERN = Pattern.compile("发布来源：(.+?)$");
+
+    private DetailPageExtractor() {
+    }
+
+    public record DetailPage(String title, String publishDate, String publishSource, String content,
+                             String tableData) {
+    }
+
+    public static DetailPage extract(Element root) {
+        Visitor visitor = new Visitor();
+        NodeTraversor.traverse(visitor, root);
+        return visitor.result();
+    }
+
+    private static final class Visitor implements NodeVisitor {
+
+        private String h1Title;
+        private String strongTitle;
+        private String documentTitle;
+        private String keywordTitle;
+        private String publishDate;
+        private String publishSource;
+
+        private final StringBuilder content = new StringBuilder();
+        private final StringBuilder tableData = new StringBuilder();
+        // 嵌套表格时每层 tr 各自收集单元格
+        private final Deque<StringBuilder> rows = new ArrayDeque<>();
+
+        private int bodyDepth;
+        private int ignoredDepth;
+
+        @Override
+        public void head(Node node, int depth) {
+            if (node instanceof Element element) {
+                switch (element.normalName()) {
+                    case "body" -> bodyDepth++;
+                    case "script", "style" -> ignoredDepth++;
+                    case "tr" -> rows.push(new StringBuilder());
+                    default -> {
+                    }
+                }
+            } else if (node instanceof TextNode textNode && ignoredDepth == 0) {
+                text(textNode);
+            }
+        }
+
+        @Override
+        public void tail(Node node, int depth) {
+            if (node instanceof Element element) {
+                switch (element.normalName()) {
+                    case "body" -> bodyDepth--;
+                    case "script", "style" -> ignoredDepth--;
+                    case "tr" -> {
+                        StringBuilder row = rows.pop();
+                        if (row.length() > 0) {
+                            tableData.append(row).append("\n");
+                        }
+                    }
+                    default -> {
+                    }
+                }
+            }
+        }
+
+        private void text(TextNode textNode) {
+            String text = textNode.getWholeText();
+            String trimmed = text.trim();
+            if (trimmed.isEmpty()) {
+                return;
+            }
+
+            Node parent = textNode.parent();
+            String parentName = parent instanceof Element element ? element.normalName() : "";
+            switch (parentName) {
+                case "h1" -> h1Title = h1Title == null ? trimmed : h1Title;
+                case "strong" -> {
+                    if (strongTitle == null && trimmed.contains("公告")) {
+                        strongTitle = trimmed;
+                    }
+                }
+                case "title" -> documentTitle = documentTitle == null ? trimmed : documentTitle;
+                case "td" -> {
+                    if (!rows.isEmpty()) {
+                        rows.peek().append(trimmed).append("|");
+                    }
+                }
+                default -> {
+                }
+            }
+            if (keywordTitle == null && (trimmed.contains("政府采购") || trimmed.contains("公告"))) {
+                keywordTitle = text;
+            }
+
+            if (publishDate == null && text.contains("发布日期")) {
+                publishDate = firstGroup(text, PUBLISH_DATE_PATTERN, PUBLISH_DATE_CN_PATTERN);
+            }
+            if (publishSource == null && text.contains("发布来源")) {
+                publishSource = firstGroup(text, PUBLISH_SOURCE_PATTERN, PUBLISH_SOURCE_EOL_PATTERN);
+            }
+
+            if (bodyDepth > 0) {
+                if (content.length() > 0) {
+                    content.append('\n');
+                }
+                content.append(trimmed);
+            }
+        }
+
+        private DetailPage result() {
+            String title = h1Title != null ? h1Title
+                    : strongTitle != null ? strongTitle
+                    : documentTitle != null ? documentTitle
+                    : keywordTitle;
+            return new DetailPage(title, publishDate, publishSource, content.toString(), tableData.toString());
+        }
+
+        private static String firstGroup(String text, Pattern... patterns) {
+            for (Pattern pattern : patterns) {
+                Matcher matcher = pattern.matcher(text);
+                if (matcher.find()) {
+                    return matcher.group(1);
+                }
+            }
+            return null;
+        }
+    }
+}
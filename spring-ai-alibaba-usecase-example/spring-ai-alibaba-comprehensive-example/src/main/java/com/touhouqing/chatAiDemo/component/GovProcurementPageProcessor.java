@@ -16,11 +16,15 @@
 
 package com.touhouqing.chatAiDemo.component;
 
+import org.springframework.web.util.UriComponentsBuilder;
 import us.codecraft.webmagic.Page;
 import us.codecraft.webmagic.Site;
 import us.codecraft.webmagic.processor.PageProcessor;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
 @Slf4j
 public class GovProcurementPageProcessor implements PageProcessor {
 
@@ -31,13 +35,57 @@ public class GovProcurementPageProcessor implements PageProcessor {
             .setCharset("UTF-8")
             .setUserAgent("Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36");
 
+    private static final Pattern LIST_DATE_PATTERN = Pattern.compile("(20\\d{2})-(\\d{1,2})-(\\d{1,2})");
+
+    // 列表页的分页参数，不同页共用一个检查点
+    private static final String[] PAGING_PARAMS = {"page", "pageNo", "pageNum", "pageIndex", "curPage"};
+
+    /**
+     * 详情页的提取方式
+     */
+    public enum ExtractionMode {
+        /** 对整个 DOM 分别执行多个 XPath 表达式 */
+        XPATH,
+        /** 只遍历一次 DOM，见 {@link DetailPageExtractor} */
+        SINGLE_PASS
+    }
+
+    // 增量模式下记录列表页检查点，为 null 时全量爬取
+    private final CrawlStateStore stateStore;
+
+    private final ExtractionMode extractionMode;
+
+    public GovProcurementPageProcessor() {
+        this(null);
+    }
+
+    /**
+     * 增量模式：列表页翻到上次爬取过的发布日期后不再继续翻页。
+     * 增量模式配合 {@link PoliteDownloader} 按站点限速，这里不再额外等待。
+     */
+    public GovProcurementPageProcessor(CrawlStateStore stateStore) {
+        this(stateStore, ExtractionMode.SINGLE_PASS);
+    }
+
+    public GovProcurementPageProcessor(CrawlStateStore stateStore, ExtractionMode extractionMode) {
+        this.stateStore = stateStore;
+        this.extractionMode = extractionMode;
+        if (stateStore != null) {
+            site.setSleepTime(0);
+        }
+    }
+
+    public static boolean isDetailPage(String url) {
+        return url.contains("documentView.do");
+    }
+
     @Override
     public void process(Page page) {
         String url = page.getUrl().toString();
         log.info("正在处理页面: {}", url);
         
         // 判断是否为详情页面
-        if (url.contains("documentView.do")) {
+        if (isDetailPage(url)) {
             processDetailPage(page);
         } else if (url.contains("topicView.do") || url.contains("portal")) {
             processListPage(page);
@@ -49,44 +97,14 @@ public class GovProcurementPageProcessor implements PageProcessor {
      */
     private void processDetailPage(Page page) {
         try {
-            // 尝试多种方式提取标题
-            String title = null;
-
-            // 方法1: 查找h1标签
-            title = page.getHtml().xpath("//h1/text()").toString();
-
-            // 方法2: 查找包含"公告"的强调文本
-            if (title == null || title.trim().isEmpty()) {
-                title = page.getHtml().xpath("//strong[contains(text(), '公告')]/text()").toString();
-            }
-
-            // 方法3: 查找页面标题
-            if (title == null || title.trim().isEmpty()) {
-                title = page.getHtml().xpath("//title/text()").toString();
-            }
-
-            // 方法4: 查找任何包含"政府采购"或"公告"的文本
-            if (title == null || title.trim().isEmpty()) {
-                title = page.getHtml().xpath("//text()[contains(., '政府采购') or contains(., '公告')]").toString();
-            }
-
-            // 提取发布日期
-            String publishDate = page.getHtml().xpath("//text()[contains(., '发布日期')]").regex("发布日期：(.+?)\\s").toString();
-            if (publishDate == null || publishDate.trim().isEmpty()) {
-                publishDate = page.getHtml().xpath("//text()[contains(., '发布日期')]").regex("(\\d{4}年\\d{1,2}月\\d{1,2}日)").toString();
-            }
-
-            // 提取发布来源
-            String publishSource = page.getHtml().xpath("//text()[contains(., '发布来源')]").regex("发布来源：(.+?)\\s").toString();
-            if (publishSource == null || publishSource.trim().isEmpty()) {
-                publishSource = page.getHtml().xpath("//text()[contains(., '发布来源')]").regex("发布来源：(.+?)$").toString();
-            }
-
-            // 提取正文内容
-            String content = page.getHtml().xpath("//body//text()").all().toString();
-
-            // 提取表格数据（采购意向表格）
-            String tableData = extractTableData(page);
+            DetailPageExtractor.DetailPage detail = extractionMode == ExtractionMode.SINGLE_PASS
+                    ? DetailPageExtractor.extract(page.getHtml().getDocument())
+                    : extractWithXPath(page);
+            String title = detail.title();
+            String publishDate = detail.publishDate();
+            String publishSource = detail.publishSource();
+            String content = detail.content();
+            String tableData = detail.tableData();
 
             // 记录调试信息
             log.debug("页面URL: {}", page.getUrl());
@@ -128,6 +146,10 @@ public class GovProcurementPageProcessor implements PageProcessor {
             } else {
                 page.setSkip(true);
                 log.warn("跳过页面，内容不足: {}", page.getUrl());
+                // 内容不足的页面不会进入数据管道，重新抓取也没有意义，直接标记完成
+                if (stateStore != null) {
+                    stateStore.completed(page.getUrl().toString(), true);
+                }
             }
 
         } catch (Exception e) {
@@ -136,6 +158,52 @@ public class GovProcurementPageProcessor implements PageProcessor {
         }
     }
     
+    /**
+     * 使用 XPath 提取详情页数据
+     */
+    private DetailPageExtractor.DetailPage extractWithXPath(Page page) {
+        // 尝试多种方式提取标题
+        String title = null;
+
+        // 方法1: 查找h1标签
+        title = page.getHtml().xpath("//h1/text()").toString();
+
+        // 方法2: 查找包含"公告"的强调文本
+        if (title == null || title.trim().isEmpty()) {
+            title = page.getHtml().xpath("//strong[contains(text(), '公告')]/text()").toString();
+        }
+
+        // 方法3: 查找页面标题
+        if (title == null || title.trim().isEmpty()) {
+            title = page.getHtml().xpath("//title/text()").toString();
+        }
+
+        // 方法4: 查找任何包含"政府采购"或"公告"的文本
+        if (title == null || title.trim().isEmpty()) {
+            title = page.getHtml().xpath("//text()[contains(., '政府采购') or contains(., '公告')]").toString();
+        }
+
+        // 提取发布日期
+        String publishDate = page.getHtml().xpath("//text()[contains(., '发布日期')]").regex("发布日期：(.+?)\\s").toString();
+        if (publishDate == null || publishDate.trim().isEmpty()) {
+            publishDate = page.getHtml().xpath("//text()[contains(., '发布日期')]").regex("(\\d{4}年\\d{1,2}月\\d{1,2}日)").toString();
+        }
+
+        // 提取发布来源
+        String publishSource = page.getHtml().xpath("//text()[contains(., '发布来源')]").regex("发布来源：(.+?)\\s").toString();
+        if (publishSource == null || publishSource.trim().isEmpty()) {
+            publishSource = page.getHtml().xpath("//text()[contains(., '发布来源')]").regex("发布来源：(.+?)$").toString();
+        }
+
+        // 提取正文内容
+        String content = page.getHtml().xpath("//body//text()").all().toString();
+
+        // 提取表格数据（采购意向表格）
+        String tableData = extractTableData(page);
+
+        return new DetailPageExtractor.DetailPage(title, publishDate, publishSource, content, tableData);
+    }
+
     /**
      * 处理列表页面
      */
@@ -146,8 +214,10 @@ public class GovProcurementPageProcessor implements PageProcessor {
                     .regex(".*documentView\\.do\\?method=view&id=\\d+.*").all());
             
             // 查找分页链接
-            page.addTargetRequests(page.getHtml().links()
-                    .regex(".*topicView\\.do.*").all());
+            if (shouldFollowPaging(page)) {
+                page.addTargetRequests(page.getHtml().links()
+                        .regex(".*topicView\\.do.*").all());
+            }
                     
             log.info("从列表页面发现新链接: {}", page.getTargetRequests().size());
             
@@ -156,6 +226,48 @@ public class GovProcurementPageProcessor implements PageProcessor {
         }
     }
     
+    /**
+     * 增量模式下，列表页中最早的发布日期不晚于上次爬取见到的最新日期时，说明更早的内容都已爬取过
+     */
+    private boolean shouldFollowPaging(Page page) {
+        if (stateStore == null || page.getRawText() == null) {
+            return true;
+        }
+        String newest = null;
+        String oldest = null;
+        Matcher matcher = LIST_DATE_PATTERN.matcher(page.getRawText());
+        while (matcher.find()) {
+            String date = String.format("%s-%02d-%02d", matcher.group(1),
+                    Integer.parseInt(matcher.group(2)), Integer.parseInt(matcher.group(3)));
+            if (newest == null || date.compareTo(newest) > 0) {
+                newest = date;
+            }
+            if (oldest == null || date.compareTo(oldest) < 0) {
+                oldest = date;
+            }
+        }
+        if (newest == null) {
+            return true;
+        }
+
+        String listKey = listKey(page.getUrl().toString());
+        String lastSeen = stateStore.lastSeenDate(listKey);
+        stateStore.recordSeenDate(listKey, newest);
+        if (lastSeen != null && oldest.compareTo(lastSeen) <= 0) {
+            log.info("列表页已翻到上次爬取的位置({})，停止翻页: {}", lastSeen, page.getUrl());
+            return false;
+        }
+        return true;
+    }
+
+    private static String listKey(String url) {
+        UriComponentsBuilder builder = UriComponentsBuilder.fromUriString(url);
+        for (String param : PAGING_PARAMS) {
+            builder.replaceQueryParam(param);
+        }
+        return builder.build().toUriString();
+    }
+
     /**
      * 提取表格数据
      */
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.touhouqing.chatAiDemo.component;
+
+import lombok.extern.slf4j.Slf4j;
+import us.codecraft.webmagic.Request;
+import us.codecraft.webmagic.SpiderListener;
+import us.codecraft.webmagic.Task;
+import us.codecraft.webmagic.scheduler.MonitorableScheduler;
+import us.codecraft.webmagic.scheduler.Scheduler;
+
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * 增量爬取调度器
+ * 1. 已抓取过的详情页直接丢弃，不再下载；列表页每次都重新抓取，同一次爬取内去重；
+ * 2. 入队和完成都记录到 {@link CrawlStateStore}，进程崩溃后下一次爬取从未完成的 URL 继续。
+ * 需要同时注册为 Spider 的监听器，列表页处理成功后才标记完成；
+ * 详情页要等 {@link ProcurementDataPipeline} 写入成功后才标记完成，见 {@link CrawlStateStore#completed}。
+ */
+@Slf4j
+public class IncrementalCrawlScheduler implements Scheduler, MonitorableScheduler, SpiderListener {
+
+    private final CrawlStateStore stateStore;
+
+    private final Queue<Request> queue = new ConcurrentLinkedQueue<>();
+
+    private final Set<String> seen = ConcurrentHashMap.newKeySet();
+
+    public IncrementalCrawlScheduler(CrawlStateStore stateStore) {
+        this.stateStore = stateStore;
+        for (String url : stateStore.pendingUrls()) {
+            seen.add(url);
+            queue.add(new Request(url));
+        }
+        if (!queue.isEmpty()) {
+            log.info("从上次中断的位置恢复 {} 个待抓取URL", queue.size());
+        }
+    }
+
+    @Override
+    public void push(Request request, Task task) {
+        String url = request.getUrl();
+        // 下载失败后的重试请求需要重新入队
+        boolean retry = request.getExtra(Request.CYCLE_TRIED_TIMES) != null;
+        if (!retry) {
+            if (!seen.add(url)) {
+                return;
+            }
+            if (GovProcurementPageProcessor.isDetailPage(url) && stateStore.isVisited(url)) {
+                return;
+            }
+            stateStore.enqueued(url);
+        }
+        queue.add(request);
+    }
+
+    @Override
+    public Request poll(Task task) {
+        return queue.poll();
+    }
+
+    @Override
+    public int getLeftRequestsCount(Task task) {
+        return queue.size();
+    }
+
+    @Override
+    public int getTotalRequestsCount(Task task) {
+        return seen.size();
+    }
+
+    @Override
+    public void onSuccess(Request request) {
+        String url = request.getUrl();
+        if (!GovProcurementPageProcessor.isDetailPage(url)) {
+            stateStore.completed(url, false);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.touhouqing.chatAiDemo.component;
+
+import lombok.extern.slf4j.Slf4j;
+import us.codecraft.webmagic.Page;
+import us.codecraft.webmagic.Request;
+import us.codecraft.webmagic.Task;
+import us.codecraft.webmagic.downloader.Downloader;
+import us.codecraft.webmagic.utils.UrlUtils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按站点自适应限速的下载器
+ * 同一站点的请求之间至少间隔 delay 毫秒，初始为 initialDelay：下载失败、429 或 5xx 时间隔翻倍，成功时逐步缩短，
+ * 间隔限制在 [minDelay, maxDelay] 之间。使用时应把 Site 的 sleepTime 设为 0，避免重复等待。
+ */
+@Slf4j
+public class PoliteDownloader implements Downloader {
+
+    private final Downloader delegate;
+    private final long initialDelay;
+    private final long minDelay;
+    private final long maxDelay;
+    private final Map<String, HostState> hosts = new ConcurrentHashMap<>();
+
+    public PoliteDownloader(Downloader delegate, long initialDelay, long minDelay, long maxDelay) {
+        this.delegate = delegate;
+        this.initialDelay = initialDelay;
+        this.minDelay = minDelay;
+        this.maxDelay = maxDelay;
+    }
+
+    @Override
+    public Page download(Request request, Task task) {
+        String host = UrlUtils.getDomain(request.getUrl());
+        HostState state = hosts.computeIfAbsent(host, key -> new HostState(initialDelay));
+        try {
+            state.acquire();
+        } catch (InterruptedException e) {
+            // 停止爬虫时会中断工作线程，保留中断标记，继续完成本次下载
+            Thread.currentThread().interrupt();
+        }
+
+        Page page = delegate.download(request, task);
+        int status = page.getStatusCode();
+        if (!page.isDownloadSuccess() || status == 429 || status >= 500) {
+            long delay = state.backOff(maxDelay);
+            log.warn("站点 {} 响应异常(状态码 {})，请求间隔调整为 {} ms", host, status, delay);
+        } else {
+            state.recover(minDelay);
+        }
+        return page;
+    }
+
+    @Override
+    public void setThread(int threadNum) {
+        delegate.setThread(threadNum);
+    }
+
+    private static final class HostState {
+
+        private long delay;
+        private long nextSlot;
+
+        HostState(long delay) {
+            this.delay = delay;
+        }
+
+        /**
+         * 预约下一个请求时间片并等待到该时间
+         */
+        void acquire() throws InterruptedException {
+            long wait;
+            synchronized (this) {
+                long now = System.currentTimeMillis();
+                long slot = Math.max(now, nextSlot);
+                nextSlot = slot + delay;
+                wait = slot - now;
+            }
+            if (wait > 0) {
+                Thread.sleep(wait);
+            }
+        }
+
+        synchronized long backOff(long maxDelay) {
+            delay = Math.min(maxDelay, delay * 2);
+            return delay;
+        }
+
+        synchronized void recover(long minDelay) {
+            delay = Math.max(minDelay, delay * 9 / 10);
+        }
+    }
+}
@@ -16,91 +16,309 @@
 
 package com.touhouqing.chatAiDemo.component;
 
-import com.touhouqing.chatAiDemo.entity.ProcurementProject;
-import com.touhouqing.chatAiDemo.entity.ProcurementOrganization;
-import com.touhouqing.chatAiDemo.repository.ProcurementProjectRepository;
-import com.touhouqing.chatAiDemo.repository.ProcurementOrganizationRepository;
 import com.touhouqing.chatAiDemo.service.ProcurementAIService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.neo4j.core.Neo4jClient;
 import org.springframework.stereotype.Component;
 import us.codecraft.webmagic.ResultItems;
 import us.codecraft.webmagic.Task;
 import us.codecraft.webmagic.pipeline.Pipeline;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.Optional;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+/**
+ * 采购数据处理管道，分为三个阶段：
+ * 1. 爬虫线程只做去重判断并把页面放入分析队列，队列满时由爬虫线程自己执行分析，形成背压；
+ * 2. 固定大小的分析线程池并发调用大模型分析页面；
+ * 3. 单个写入线程把分析结果攒批，用 UNWIND ... MERGE 一次写入多个项目和采购单位。
+ * 已处理的 URL 记录在布隆过滤器中，启动时从图数据库加载；过滤器判定"可能见过"时再查库确认。
+ * 页面写入成功或确认已存在后，才在 {@link CrawlStateStore} 中标记为已访问。
+ */
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class ProcurementDataPipeline implements Pipeline {
-    
-    private final ProcurementProjectRepository projectRepository;
-    private final ProcurementOrganizationRepository organizationRepository;
+
+    private static final Pattern BUDGET_PATTERN = Pattern.compile("(\\d+(?:\\.\\d+)?)\\s*万元");
+    private static final Pattern PROCUREMENT_TIME_PATTERN = Pattern.compile("(\\d{4}-\\d{2})");
+    private static final Pattern DESCRIPTION_PATTERN = Pattern.compile("采购标的需实现的主要目标：([^。]+)");
+
+    private static final String UPSERT_CYPHER = """
+            UNWIND $rows AS row
+            MERGE (o:ProcurementOrganization {name: row.organizationName})
+              ON CREATE SET o.type = row.organizationType, o.level = row.organizationLevel,
+                            o.createdAt = row.now, o.updatedAt = row.now
+            MERGE (p:ProcurementProject {sourceUrl: row.sourceUrl})
+              ON CREATE SET p.createdAt = row.now
+            SET p.projectName = row.projectName, p.description = row.description, p.budget = row.budget,
+                p.budgetUnit = row.budgetUnit, p.procurementTime = row.procurementTime,
+                p.publishDate = row.publishDate, p.procurementPolicy = row.procurementPolicy,
+                p.remarks = row.remarks, p.rawContent = row.rawContent, p.aiAnalysis = row.aiAnalysis,
+                p.updatedAt = row.now
+            MERGE (p)-[:PROCURED_BY]->(o)
+            """;
+
+    private final Neo4jClient neo4jClient;
     private final ProcurementAIService aiService;
-    
+    private final CrawlStateStore stateStore;
+
+    @Value("${procurement.pipeline.analysis-threads:4}")
+    private int analysisThreads;
+
+    @Value("${procurement.pipeline.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${procurement.pipeline.batch-size:50}")
+    private int batchSize;
+
+    @Value("${procurement.pipeline.expected-urls:100000}")
+    private long expectedUrls;
+
+    private final BlockingQueue<Map<String, Object>> writeQueue = new LinkedBlockingQueue<>();
+    private final AtomicLong pending = new AtomicLong();
+
+    private UrlBloomFilter seenUrls;
+    private ThreadPoolExecutor analysisExecutor;
+    private Thread writer;
+    private volatile boolean warmedUp;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        seenUrls = new UrlBloomFilter(expectedUrls, 0.01);
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        analysisExecutor = new ThreadPoolExecutor(analysisThreads, analysisThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "procurement-analysis-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+
+        running = true;
+        writer = new Thread(() -> {
+            warmUp();
+            writeLoop();
+        }, "procurement-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        analysisExecutor.shutdown();
+        try {
+            analysisExecutor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // 写入线程会把队列中剩余的结果写完再退出
+        running = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     @Override
     public void process(ResultItems resultItems, Task task) {
+        String type = resultItems.get("type");
+        if (!"procurement_detail".equals(type)) {
+            return;
+        }
+
+        ProcurementPage page = new ProcurementPage(
+                resultItems.get("url"),
+                resultItems.get("title"),
+                resultItems.get("publishDate"),
+                resultItems.get("publishSource"),
+                resultItems.get("content"),
+                resultItems.get("tableData"));
+
+        if (analysisExecutor.isShutdown()) {
+            log.warn("采购数据管道已关闭，丢弃页面: {}", page.title());
+            return;
+        }
+
+        // 过滤器未加载完成之前，所有页面都要查库确认
+        boolean maybeSeen = seenUrls.put(page.url()) || !warmedUp;
+        pending.incrementAndGet();
         try {
-            String type = resultItems.get("type");
-            if (!"procurement_detail".equals(type)) {
-                return;
+            analysisExecutor.execute(() -> analyze(page, maybeSeen));
+        } catch (RuntimeException e) {
+            pending.decrementAndGet();
+            log.error("提交采购数据分析任务失败: {}", page.title(), e);
+        }
+    }
+
+    /**
+     * 等待已提交的页面全部分析并写入完成
+     * @return 超时前是否全部完成
+     */
+    public boolean awaitCompletion(Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (pending.get() > 0) {
+            if (System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
             }
-            
-            String title = resultItems.get("title");
-            String publishDate = resultItems.get("publishDate");
-            String publishSource = resultItems.get("publishSource");
-            String content = resultItems.get("content");
-            String tableData = resultItems.get("tableData");
-            String url = resultItems.get("url");
-            
-            log.info("开始处理采购数据: {}", title);
-            
-            // 检查是否已存在
-            Optional<ProcurementProject> existingProject = projectRepository.findBySourceUrl(url);
-            if (existingProject.isPresent()) {
-                log.info("项目已存在，跳过: {}", title);
+        }
+        return true;
+    }
+
+    private void analyze(ProcurementPage page, boolean maybeSeen) {
+        boolean queued = false;
+        try {
+            if (maybeSeen && exists(page.url())) {
+                log.info("项目已存在，跳过: {}", page.title());
+                markCompleted(page.url());
                 return;
             }
-            
+
+            log.info("开始处理采购数据: {}", page.title());
+
             // 使用AI分析数据
-            String aiAnalysis = aiService.analyzeProcurementData(title, content, tableData);
-            
-            // 解析表格数据提取项目信息
-            ProcurementProjectInfo projectInfo = parseProjectInfo(title, content, tableData, aiAnalysis);
-            
-            // 创建或获取采购单位
-            ProcurementOrganization organization = createOrGetOrganization(publishSource, aiAnalysis);
-            
-            // 创建采购项目
-            ProcurementProject project = new ProcurementProject();
-            project.setProjectName(projectInfo.getProjectName());
-            project.setDescription(projectInfo.getDescription());
-            project.setBudget(projectInfo.getBudget());
-            project.setBudgetUnit(projectInfo.getBudgetUnit());
-            project.setProcurementTime(projectInfo.getProcurementTime());
-            project.setPublishDate(publishDate);
-            project.setSourceUrl(url);
-            project.setProcurementPolicy(projectInfo.getProcurementPolicy());
-            project.setRemarks(projectInfo.getRemarks());
-            project.setRawContent(content);
-            project.setAiAnalysis(aiAnalysis);
-            project.setCreatedAt(LocalDateTime.now());
-            project.setUpdatedAt(LocalDateTime.now());
-            project.setOrganization(organization);
-            
-            // 保存到图数据库
-            projectRepository.save(project);
-            
-            log.info("成功保存采购项目: {}", title);
-            
+            String aiAnalysis = aiService.analyzeProcurementData(page.title(), page.content(), page.tableData());
+
+            writeQueue.put(toRow(page, aiAnalysis));
+            queued = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("处理采购数据出错: {}", page.title(), e);
+        } finally {
+            if (!queued) {
+                pending.decrementAndGet();
+            }
+        }
+    }
+
+    private boolean exists(String url) {
+        return neo4jClient.query("MATCH (p:ProcurementProject {sourceUrl: $url}) RETURN count(p) > 0")
+                .bind(url).to("url")
+                .fetchAs(Boolean.class)
+                .one()
+                .orElse(false);
+    }
+
+    private void warmUp() {
+        try {
+            // MERGE 依赖这两个索引，否则每一行都是全标签扫描
+            neo4jClient.query("CREATE INDEX procurement_project_source_url IF NOT EXISTS "
+                    + "FOR (p:ProcurementProject) ON (p.sourceUrl)").run();
+            neo4jClient.query("CREATE INDEX procurement_organization_name IF NOT EXISTS "
+                    + "FOR (o:ProcurementOrganization) ON (o.name)").run();
+
+            Collection<String> urls = neo4jClient
+                    .query("MATCH (p:ProcurementProject) WHERE p.sourceUrl IS NOT NULL RETURN p.sourceUrl")
+                    .fetchAs(String.class)
+                    .all();
+            urls.forEach(seenUrls::put);
+            warmedUp = true;
+            log.info("已加载 {} 个已处理的采购公告URL", urls.size());
         } catch (Exception e) {
-            log.error("处理采购数据出错", e);
+            log.warn("加载已处理的采购公告URL失败，将逐个查库去重: {}", e.getMessage());
+        }
+    }
+
+    private void writeLoop() {
+        List<Map<String, Object>> batch = new ArrayList<>(batchSize);
+        while (running || !writeQueue.isEmpty()) {
+            try {
+                Map<String, Object> row = writeQueue.poll(500, TimeUnit.MILLISECONDS);
+                if (row == null) {
+                    continue;
+                }
+                batch.add(row);
+                writeQueue.drainTo(batch, batchSize - 1);
+                if (write(batch)) {
+                    batch.forEach(written -> markCompleted((String) written.get("sourceUrl")));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                pending.addAndGet(-batch.size());
+                batch.clear();
+            }
         }
     }
+
+    /**
+     * @return 是否写入成功，失败的页面留在待抓取日志中，下次爬取时重新处理
+     */
+    private boolean write(List<Map<String, Object>> batch) {
+        try {
+            neo4jClient.query(UPSERT_CYPHER).bind(batch).to("rows").run();
+            log.info("成功保存 {} 个采购项目", batch.size());
+            return true;
+        } catch (Exception e) {
+            log.error("批量保存采购项目出错，本批共 {} 条", batch.size(), e);
+            return false;
+        }
+    }
+
+    private void markCompleted(String url) {
+        try {
+            stateStore.completed(url, true);
+        } catch (RuntimeException e) {
+            log.warn("记录已处理的采购公告失败，下次爬取时会重新抓取: {}", url, e);
+        }
+    }
+
+    private Map<String, Object> toRow(ProcurementPage page, String aiAnalysis) {
+        // 解析表格数据提取项目信息
+        ProcurementProjectInfo projectInfo = parseProjectInfo(page.title(), page.content(), page.tableData(), aiAnalysis);
+
+        String organizationName = page.publishSource();
+        if (organizationName == null || organizationName.trim().isEmpty()) {
+            organizationName = "未知单位";
+        }
+
+        // 属性值可能为 null，不能使用 Map.of
+        Map<String, Object> row = new HashMap<>();
+        row.put("organizationName", organizationName);
+        row.put("organizationType", determineOrganizationType(organizationName, aiAnalysis));
+        row.put("organizationLevel", determineOrganizationLevel(organizationName, aiAnalysis));
+        row.put("sourceUrl", page.url());
+        row.put("projectName", projectInfo.getProjectName());
+        row.put("description", projectInfo.getDescription());
+        row.put("budget", projectInfo.getBudget());
+        row.put("budgetUnit", projectInfo.getBudgetUnit());
+        row.put("procurementTime", projectInfo.getProcurementTime());
+        row.put("publishDate", page.publishDate());
+        row.put("procurementPolicy", projectInfo.getProcurementPolicy());
+        row.put("remarks", projectInfo.getRemarks());
+        row.put("rawContent", page.content());
+        row.put("aiAnalysis", aiAnalysis);
+        row.put("now", LocalDateTime.now());
+        return row;
+    }
     
     /**
      * 解析项目信息
@@ -129,29 +347,12 @@ public class ProcurementDataPipeline implements Pipeline {
         
         return info;
     }
-    
+
     /**
-     * 创建或获取采购单位
+     * 爬虫线程提取出的详情页数据
      */
-    private ProcurementOrganization createOrGetOrganization(String publishSource, String aiAnalysis) {
-        if (publishSource == null || publishSource.trim().isEmpty()) {
-            publishSource = "未知单位";
-        }
-        
-        Optional<ProcurementOrganization> existing = organizationRepository.findByName(publishSource);
-        if (existing.isPresent()) {
-            return existing.get();
-        }
-        
-        // 创建新的采购单位
-        ProcurementOrganization organization = new ProcurementOrganization();
-        organization.setName(publishSource);
-        organization.setType(determineOrganizationType(publishSource, aiAnalysis));
-        organization.setLevel(determineOrganizationLevel(publishSource, aiAnalysis));
-        organization.setCreatedAt(LocalDateTime.now());
-        organization.setUpdatedAt(LocalDateTime.now());
-        
-        return organizationRepository.save(organization);
+    private record ProcurementPage(String url, String title, String publishDate, String publishSource,
+                                   String content, String tableData) {
     }
     
     // 辅助方法
@@ -165,8 +366,7 @@ public class ProcurementDataPipeline implements Pipeline {
     private Double extractBudget(String tableData) {
         if (tableData == null) return null;
         
-        Pattern pattern = Pattern.compile("(\\d+(?:\\.\\d+)?)\\s*万元");
-        Matcher matcher = pattern.matcher(tableData);
+        Matcher matcher = BUDGET_PATTERN.matcher(tableData);
         if (matcher.find()) {
             return Double.parseDouble(matcher.group(1));
         }
@@ -176,8 +376,7 @@ public class ProcurementDataPipeline implements Pipeline {
     private String extractProcurementTime(String tableData) {
         if (tableData == null) return null;
         
-        Pattern pattern = Pattern.compile("(\\d{4}-\\d{2})");
-        Matcher matcher = pattern.matcher(tableData);
+        Matcher matcher = PROCUREMENT_TIME_PATTERN.matcher(tableData);
         if (matcher.find()) {
             return matcher.group(1);
         }
@@ -199,8 +398,7 @@ public class ProcurementDataPipeline implements Pipeline {
         if (content == null) return null;
         
         // 提取主要目标描述
-        Pattern pattern = Pattern.compile("采购标的需实现的主要目标：([^。]+)");
-        Matcher matcher = pattern.matcher(content);
+        Matcher matcher = DESCRIPTION_PATTERN.matcher(content);
         if (matcher.find()) {
             return matcher.group(1).trim();
         }
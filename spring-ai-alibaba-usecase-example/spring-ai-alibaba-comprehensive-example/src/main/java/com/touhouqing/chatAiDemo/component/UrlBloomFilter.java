@@ -0,0 +1,105 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.touhouqing.chatAiDemo.component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 线程安全的 URL 布隆过滤器
+ * 返回 false 表示一定没有见过该 URL，返回 true 表示可能见过（存在误判，需要再确认）
+ */
+public class UrlBloomFilter {
+
+    private final AtomicLongArray bits;
+
+    private final long bitCount;
+
+    private final int hashCount;
+
+    /**
+     * @param expectedInsertions 预计的 URL 数量
+     * @param falsePositiveRate 期望的误判率
+     */
+    public UrlBloomFilter(long expectedInsertions, double falsePositiveRate) {
+        long n = Math.max(expectedInsertions, 1);
+        long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.bitCount = Math.max(64, (m + 63) / 64 * 64);
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+        this.bits = new AtomicLongArray((int) (bitCount / 64));
+    }
+
+    public boolean mightContain(String url) {
+        long hash = hash(url);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long index = index(h1 + i * h2);
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 记录 URL
+     * @return 之前是否可能见过该 URL
+     */
+    public boolean put(String url) {
+        long hash = hash(url);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        boolean seen = true;
+        for (int i = 1; i <= hashCount; i++) {
+            long index = index(h1 + i * h2);
+            int word = (int) (index >>> 6);
+            long mask = 1L << index;
+            long old;
+            do {
+                old = bits.get(word);
+                if ((old & mask) != 0) {
+                    break;
+                }
+                seen = false;
+            } while (!bits.compareAndSet(word, old, old | mask));
+        }
+        return seen;
+    }
+
+    private long index(int combinedHash) {
+        // 保证下标非负
+        return (combinedHash & Integer.MAX_VALUE) % bitCount;
+    }
+
+    /**
+     * 64 位 FNV-1a 哈希，再做一次 murmur3 的 fmix64 打散
+     */
+    private static long hash(String url) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : url.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
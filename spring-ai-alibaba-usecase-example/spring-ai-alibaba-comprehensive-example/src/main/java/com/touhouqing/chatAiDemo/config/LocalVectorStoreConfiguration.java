@@ -0,0 +1,42 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.touhouqing.chatAiDemo.config;
+
+import com.touhouqing.chatAiDemo.repository.ChatSegmentVectorStore;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Paths;
+
+/**
+ * 本地向量库配置
+ * spring.ai.vectorstore.type=local 时不再连接 Milvus，PDF 向量按会话分段保存在本地磁盘
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.ai.vectorstore.type", havingValue = "local")
+public class LocalVectorStoreConfiguration {
+
+    @Bean
+    public ChatSegmentVectorStore chatSegmentVectorStore(EmbeddingModel embeddingModel,
+                                                         @Value("${chat-pdf.storage-dir:chat-pdf}") String storageDir,
+                                                         @Value("${chat-pdf.max-loaded-segments:256}") int maxLoadedSegments) {
+        return new ChatSegmentVectorStore(embeddingModel, Paths.get(storageDir).resolve("vectors"), maxLoadedSegments);
+    }
+}
@@ -18,6 +18,7 @@ package com.touhouqing.chatAiDemo.controller;
 
 import com.touhouqing.chatAiDemo.entity.vo.Result;
 import com.touhouqing.chatAiDemo.repository.ChatHistoryRepository;
+import com.touhouqing.chatAiDemo.repository.ChatSegmentVectorStore;
 import com.touhouqing.chatAiDemo.repository.FileRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -67,8 +68,11 @@ public class PdfController {
         }
         // 2.保存会话id
         chatHistoryRepository.save("pdf", chatId);
-        // 3.构造过滤表达式
-        String filterExpression = "file_name == '" + file.getFilename() + "'";
+        // 3.构造过滤表达式，按会话过滤，同时兼容只有file_name元数据的旧数据；
+        // 本地分段向量库中的文档都带有chat_id，只按chat_id过滤，检索时只需加载该会话的分段
+        String filterExpression = vectorStore instanceof ChatSegmentVectorStore
+                ? "chat_id == '" + chatId + "'"
+                : "chat_id == '" + chatId + "' || file_name == '" + file.getFilename() + "'";
         log.info("查询聊天ID: {}, 文件名: {}, 过滤表达式: {}", chatId, file.getFilename(), filterExpression);
         // 4.请求模型
         return pdfChatClient.prompt()
@@ -97,7 +101,7 @@ public class PdfController {
             // 3.获取保存后的文件，确保文件名一致
             Resource savedFile = fileRepository.getFile(chatId);
             // 4.写入向量库
-            this.writeToVectorStore(savedFile);
+            this.writeToVectorStore(chatId, savedFile);
             return Result.ok();
         } catch (Exception e) {
             log.error("Failed to upload PDF.", e);
@@ -124,7 +128,7 @@ public class PdfController {
                 .body(resource);
     }
 
-    private void writeToVectorStore(Resource resource) {
+    private void writeToVectorStore(String chatId, Resource resource) {
         // 1.创建PDF的读取器
         PagePdfDocumentReader reader = new PagePdfDocumentReader(
                 resource, // 文件源
@@ -135,10 +139,11 @@ public class PdfController {
         );
         // 2.读取PDF文档，拆分为Document
         List<Document> documents = reader.read();
-        // 3.为每个Document设置file_name元数据
+        // 3.为每个Document设置file_name和chat_id元数据
         String fileName = resource.getFilename();
         documents.forEach(document -> {
             document.getMetadata().put("file_name", fileName);
+            document.getMetadata().put(ChatSegmentVectorStore.CHAT_ID_KEY, chatId);
         });
         // 4.写入向量库
         vectorStore.add(documents);
@@ -43,16 +43,17 @@ public class ProcurementController {
     private final ProcurementOrganizationRepository organizationRepository;
     
     /**
-     * 启动爬虫任务
+     * 启动爬虫任务，incremental 为 true 时只爬取上次之后的新内容
      */
     @PostMapping("/crawl/start")
-    public ApiResponse<String> startCrawling(@RequestParam(required = false) String url) {
+    public ApiResponse<String> startCrawling(@RequestParam(required = false) String url,
+                                             @RequestParam(defaultValue = "false") boolean incremental) {
         try {
             CompletableFuture<String> future;
             if (url != null && !url.trim().isEmpty()) {
-                future = crawlerService.startCrawling(url);
+                future = incremental ? crawlerService.startIncrementalCrawling(url) : crawlerService.startCrawling(url);
             } else {
-                future = crawlerService.crawlTianjinProcurement();
+                future = incremental ? crawlerService.crawlTianjinProcurementIncremental() : crawlerService.crawlTianjinProcurement();
             }
 
             // 异步执行，立即返回
@@ -69,7 +69,7 @@ public class ProcurementTestController {
         info.append("3. 存储到Neo4j图数据库\n");
         info.append("4. 提供RESTful API查询\n");
         info.append("\n可用的API接口:\n");
-        info.append("- POST /procurement/crawl/start - 启动爬虫\n");
+        info.append("- POST /procurement/crawl/start - 启动爬虫（incremental=true 为增量爬取）\n");
         info.append("- POST /procurement/crawl/single - 爬取单页\n");
         info.append("- GET /procurement/projects - 查询所有项目\n");
         info.append("- GET /procurement/projects/search - 搜索项目\n");
@@ -0,0 +1,436 @@
+/*
+ * Copyright 2024-2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.touhouqing.chatAiDemo.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.ai.vectorstore.filter.converter.SimpleVectorStoreFilterExpressionConverter;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * 按会话分段、本地持久化的向量库
+ * 1. 每个会话的向量保存在一个二进制分段文件中，文档入库时追加写入，进程崩溃最多丢失最后一条未写完的记录；
+ * 2. 分段在该会话第一次检索时才加载，内存中最多保留 maxLoadedSegments 个分段，超出后淘汰最久未使用的；
+ * 3. 文档通过 chat_id 元数据归属到会话，过滤条件中与其余条件以 AND 连接的 chat_id 等值条件用于定位分段，
+ *    完整的过滤条件再按 SimpleVectorStore 的方式（转换为 SpEL）对每个文档的元数据求值；
+ *    过滤条件无法定位到单个会话时逐个扫描磁盘上的全部分段。
+ * 分段记录格式：[记录长度 int][id][文本][元数据个数 short]{[键][类型][值]}[维度 int][float...]
+ */
+@Slf4j
+public class ChatSegmentVectorStore implements VectorStore {
+
+    public static final String CHAT_ID_KEY = "chat_id";
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private static final SpelExpressionParser FILTER_PARSER = new SpelExpressionParser();
+
+    private final EmbeddingModel embeddingModel;
+
+    private final Path segmentDir;
+
+    private final Map<String, List<Entry>> loaded;
+
+    private record Entry(String id, String text, Map<String, Object> metadata, float[] embedding, float norm) {
+    }
+
+    public ChatSegmentVectorStore(EmbeddingModel embeddingModel, Path segmentDir, int maxLoadedSegments) {
+        this.embeddingModel = embeddingModel;
+        this.segmentDir = segmentDir;
+        this.loaded = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, List<Entry>> eldest) {
+                return size() > maxLoadedSegments;
+            }
+        };
+    }
+
+    @Override
+    public void add(List<Document> documents) {
+        if (documents.isEmpty()) {
+            return;
+        }
+        List<float[]> embeddings = embeddingModel.embed(documents.stream().map(Document::getText).toList());
+
+        Map<String, List<Entry>> byChat = new HashMap<>();
+        for (int i = 0; i < documents.size(); i++) {
+            Document document = documents.get(i);
+            String chatId = String.valueOf(document.getMetadata().getOrDefault(CHAT_ID_KEY, ""));
+            byChat.computeIfAbsent(chatId, key -> new ArrayList<>()).add(entry(document.getId(),
+                    document.getText(), document.getMetadata(), embeddings.get(i)));
+        }
+
+        synchronized (this) {
+            byChat.forEach((chatId, entries) -> {
+                append(chatId, entries);
+                List<Entry> segment = loaded.get(chatId);
+                if (segment != null) {
+                    segment.addAll(entries);
+                }
+            });
+        }
+    }
+
+    @Override
+    public synchronized void delete(List<String> idList) {
+        Set<String> ids = new HashSet<>(idList);
+        for (String chatId : segmentChatIds()) {
+            List<Entry> segment = segment(chatId);
+            if (segment.removeIf(entry -> ids.contains(entry.id()))) {
+                rewrite(chatId, segment);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void delete(Filter.Expression filterExpression) {
+        String chatId = chatId(filterExpression);
+        if (chatId != null && isChatIdCondition(filterExpression)) {
+            // 只有 chat_id 条件时整段删除，不需要读取分段
+            loaded.remove(chatId);
+            try {
+                Files.deleteIfExists(segmentFile(chatId));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return;
+        }
+
+        Predicate<Map<String, Object>> filter = metadataFilter(filterExpression);
+        for (String segmentChatId : chatId != null ? List.of(chatId) : segmentChatIds()) {
+            List<Entry> segment = segment(segmentChatId);
+            if (segment.removeIf(entry -> filter.test(entry.metadata()))) {
+                rewrite(segmentChatId, segment);
+            }
+        }
+    }
+
+    @Override
+    public List<Document> similaritySearch(SearchRequest request) {
+        Filter.Expression filterExpression = request.getFilterExpression();
+        String chatId = filterExpression != null ? chatId(filterExpression) : null;
+        Predicate<Map<String, Object>> filter = filterExpression != null ? metadataFilter(filterExpression) : null;
+        List<Entry> candidates = new ArrayList<>();
+        synchronized (this) {
+            if (chatId != null) {
+                candidates.addAll(segment(chatId));
+            } else {
+                // 无法定位到单个会话时扫描全部分段，未加载的分段只读取不放入缓存，避免挤掉常用的分段
+                for (String segmentChatId : segmentChatIds()) {
+                    List<Entry> segment = loaded.get(segmentChatId);
+                    candidates.addAll(segment != null ? segment : read(segmentChatId));
+                }
+            }
+        }
+        if (filter != null) {
+            candidates.removeIf(entry -> !filter.test(entry.metadata()));
+        }
+        if (candidates.isEmpty()) {
+            return List.of();
+        }
+
+        float[] query = embeddingModel.embed(request.getQuery());
+        float queryNorm = norm(query);
+        return candidates.stream()
+                .map(entry -> Map.entry(entry, cosine(query, queryNorm, entry)))
+                .filter(scored -> scored.getValue() >= request.getSimilarityThreshold())
+                .sorted(Map.Entry.<Entry, Double>comparingByValue().reversed())
+                .limit(request.getTopK())
+                .map(scored -> Document.builder()
+                        .id(scored.getKey().id())
+                        .text(scored.getKey().text())
+                        .metadata(new HashMap<>(scored.getKey().metadata()))
+                        .score(scored.getValue())
+                        .build())
+                .toList();
+    }
+
+    /**
+     * 返回会话的分段，未加载时从磁盘读取
+     */
+    private List<Entry> segment(String chatId) {
+        List<Entry> segment = loaded.get(chatId);
+        if (segment == null) {
+            segment = read(chatId);
+            loaded.put(chatId, segment);
+            log.debug("加载会话 {} 的向量分段，共 {} 条", chatId, segment.size());
+        }
+        return segment;
+    }
+
+    private List<Entry> read(String chatId) {
+        Path file = segmentFile(chatId);
+        List<Entry> entries = new ArrayList<>();
+        if (!Files.exists(file)) {
+            return entries;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                byte[] record = new byte[length];
+                try {
+                    in.readFully(record);
+                } catch (EOFException e) {
+                    // 崩溃时没有写完的最后一条记录
+                    log.warn("会话 {} 的向量分段末尾有不完整的记录，已忽略", chatId);
+                    break;
+                }
+                entries.add(decode(record));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return entries;
+    }
+
+    private void append(String chatId, List<Entry> entries) {
+        Path file = segmentFile(chatId);
+        try {
+            Files.createDirectories(file.getParent());
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND))) {
+                write(out, entries);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void rewrite(String chatId, List<Entry> entries) {
+        Path file = segmentFile(chatId);
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp))) {
+            write(out, entries);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        try {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void write(OutputStream out, List<Entry> entries) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        for (Entry entry : entries) {
+            byte[] record = encode(entry);
+            data.writeInt(record.length);
+            data.write(record);
+        }
+        data.flush();
+    }
+
+    private static byte[] encode(Entry entry) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(entry.embedding().length * 4 + entry.text().length() * 3 + 256);
+        DataOutputStream out = new DataOutputStream(bytes);
+        writeString(out, entry.id());
+        writeString(out, entry.text());
+        out.writeShort(entry.metadata().size());
+        for (Map.Entry<String, Object> metadata : entry.metadata().entrySet()) {
+            writeString(out, metadata.getKey());
+            Object value = metadata.getValue();
+            if (value instanceof Integer number) {
+                out.writeByte('I');
+                out.writeInt(number);
+            } else if (value instanceof Long number) {
+                out.writeByte('L');
+                out.writeLong(number);
+            } else if (value instanceof Double number) {
+                out.writeByte('D');
+                out.writeDouble(number);
+            } else if (value instanceof Boolean bool) {
+                out.writeByte('B');
+                out.writeBoolean(bool);
+            } else {
+                out.writeByte('S');
+                writeString(out, String.valueOf(value));
+            }
+        }
+        out.writeInt(entry.embedding().length);
+        for (float value : entry.embedding()) {
+            out.writeFloat(value);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Entry decode(byte[] record) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+        String id = readString(in);
+        String text = readString(in);
+        int metadataCount = in.readUnsignedShort();
+        Map<String, Object> metadata = new HashMap<>(metadataCount * 2);
+        for (int i = 0; i < metadataCount; i++) {
+            String key = readString(in);
+            Object value = switch (in.readByte()) {
+                case 'I' -> in.readInt();
+                case 'L' -> in.readLong();
+                case 'D' -> in.readDouble();
+                case 'B' -> in.readBoolean();
+                default -> readString(in);
+            };
+            metadata.put(key, value);
+        }
+        float[] embedding = new float[in.readInt()];
+        for (int i = 0; i < embedding.length; i++) {
+            embedding[i] = in.readFloat();
+        }
+        return new Entry(id, text, metadata, embedding, norm(embedding));
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static Entry entry(String id, String text, Map<String, Object> metadata, float[] embedding) {
+        return new Entry(id, text != null ? text : "", new HashMap<>(metadata), embedding, norm(embedding));
+    }
+
+    private static float norm(float[] vector) {
+        double sum = 0;
+        for (float value : vector) {
+            sum += value * value;
+        }
+        return (float) Math.sqrt(sum);
+    }
+
+    private static double cosine(float[] query, float queryNorm, Entry entry) {
+        float[] embedding = entry.embedding();
+        if (embedding.length != query.length || queryNorm == 0 || entry.norm() == 0) {
+            return 0;
+        }
+        double dot = 0;
+        for (int i = 0; i < query.length; i++) {
+            dot += query[i] * embedding[i];
+        }
+        return dot / (queryNorm * entry.norm());
+    }
+
+    private Collection<String> segmentChatIds() {
+        if (!Files.isDirectory(segmentDir)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.walk(segmentDir)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> LocalPdfFileRepository.decode(name.substring(0, name.length() - SEGMENT_SUFFIX.length())))
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Path segmentFile(String chatId) {
+        return segmentDir.resolve(LocalPdfFileRepository.shard(chatId))
+                .resolve(LocalPdfFileRepository.encode(chatId) + SEGMENT_SUFFIX);
+    }
+
+    /**
+     * 查找必须满足的 chat_id == 'xxx' 条件，只沿 AND 向下查找，OR / NOT 之下的条件不能用来缩小范围
+     */
+    private static String chatId(Filter.Expression expression) {
+        if (isChatIdCondition(expression)) {
+            return String.valueOf(((Filter.Value) expression.right()).value());
+        }
+        if (expression.type() != Filter.ExpressionType.AND) {
+            return null;
+        }
+        for (Filter.Operand operand : new Filter.Operand[] {expression.left(), expression.right()}) {
+            Filter.Expression nested = operand instanceof Filter.Group group ? group.content()
+                    : operand instanceof Filter.Expression inner ? inner : null;
+            if (nested != null) {
+                String chatId = chatId(nested);
+                if (chatId != null) {
+                    return chatId;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static boolean isChatIdCondition(Filter.Expression expression) {
+        return expression.type() == Filter.ExpressionType.EQ
+                && expression.left() instanceof Filter.Key key
+                && CHAT_ID_KEY.equals(unquote(key.key()))
+                && expression.right() instanceof Filter.Value;
+    }
+
+    /**
+     * 与 SimpleVectorStore 相同，把过滤条件转换为 SpEL 后对文档元数据求值
+     */
+    private static Predicate<Map<String, Object>> metadataFilter(Filter.Expression filterExpression) {
+        Expression expression = FILTER_PARSER.parseExpression(
+                new SimpleVectorStoreFilterExpressionConverter().convertExpression(filterExpression));
+        return metadata -> {
+            StandardEvaluationContext context = new StandardEvaluationContext();
+            context.setVariable("metadata", metadata);
+            return Boolean.TRUE.equals(expression.getValue(context, Boolean.class));
+        };
+    }
+
+    private static String unquote(String key) {
+        if (key.length() > 1 && (key.startsWith("'") || key.startsWith("\"")) && key.endsWith(key.substring(0, 1))) {
+            return key.substring(1, key.length() - 1);
+        }
+        return key;
+    }
+}
@@ -17,83 +17,127 @@
 package com.touhouqing.chatAiDemo.repository;
 
 import jakarta.annotation.PostConstruct;
-import jakarta.annotation.PreDestroy;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.ai.vectorstore.SimpleVectorStore;
-import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Component;
-import java.io.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
-import java.time.LocalDateTime;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * 本地PDF文件存储
+ * 文件按会话保存在 {baseDir}/files/{分片}/{会话id}/ 目录下，目录中的 .file 记录当前文件名；
+ * 分片由会话id的哈希决定，避免单个目录下文件过多，也避免不同会话的同名文件互相覆盖。
+ * 会话与文件的对应关系在第一次访问时从磁盘读取，不再在启动时整体加载、关闭时整体写回。
+ */
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class LocalPdfFileRepository implements FileRepository {
 
-    private final VectorStore vectorStore;
+    private static final String CURRENT_FILE = ".file";
+
+    private final Path fileDir;
+
+    // 会话id 与 文件路径的对应关系缓存
+    private final Map<String, Path> chatFiles = new ConcurrentHashMap<>();
 
-    // 会话id 与 文件名的对应关系，方便查询会话历史时重新加载文件
-    private final Properties chatFiles = new Properties();
+    // 旧版本保存在工作目录下的映射关系，只读
+    private final Properties legacyChatFiles = new Properties();
+
+    public LocalPdfFileRepository(@Value("${chat-pdf.storage-dir:chat-pdf}") String storageDir) {
+        this.fileDir = Paths.get(storageDir).resolve("files");
+    }
 
     @Override
     public boolean save(String chatId, Resource resource) {
-        // 1.保存到本地磁盘
-        String filename = resource.getFilename();
-        File target = new File(Objects.requireNonNull(filename));
-        if (!target.exists()) {
-            try {
-                Files.copy(resource.getInputStream(), target.toPath());
-            } catch (IOException e) {
-                log.error("Failed to save PDF resource.", e);
-                return false;
+        String filename = Paths.get(Objects.requireNonNull(resource.getFilename())).getFileName().toString();
+        Path chatDir = chatDir(chatId);
+        Path target = chatDir.resolve(filename);
+        try {
+            // 1.保存到本地磁盘
+            Files.createDirectories(chatDir);
+            try (InputStream in = resource.getInputStream()) {
+                Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
             }
+            // 2.保存映射关系
+            Files.writeString(chatDir.resolve(CURRENT_FILE), filename, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            log.error("Failed to save PDF resource.", e);
+            return false;
         }
-        // 2.保存映射关系
-        chatFiles.put(chatId, filename);
+        chatFiles.put(chatId, target);
         return true;
     }
 
     @Override
     public Resource getFile(String chatId) {
-        return new FileSystemResource(chatFiles.getProperty(chatId));
+        Path file = chatFiles.computeIfAbsent(chatId, id -> resolve(id).orElse(null));
+        if (file == null) {
+            // 返回一个不存在的文件，由调用方判断
+            return new FileSystemResource(chatDir(chatId).resolve(CURRENT_FILE + ".pdf"));
+        }
+        return new FileSystemResource(file);
     }
 
     @PostConstruct
     private void init() {
         FileSystemResource pdfResource = new FileSystemResource("chat-pdf.properties");
         if (pdfResource.exists()) {
-            try {
-                chatFiles.load(new BufferedReader(new InputStreamReader(pdfResource.getInputStream(), StandardCharsets.UTF_8)));
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(pdfResource.getInputStream(), StandardCharsets.UTF_8))) {
+                legacyChatFiles.load(reader);
             } catch (IOException e) {
                 throw new RuntimeException(e);
             }
         }
-        // 只有当使用SimpleVectorStore时才加载本地向量数据
-        if (vectorStore instanceof SimpleVectorStore simpleVectorStore) {
-            FileSystemResource vectorResource = new FileSystemResource("chat-pdf.json");
-            if (vectorResource.exists()) {
-                simpleVectorStore.load(vectorResource);
-            }
-        }
     }
 
-    @PreDestroy
-    private void persistent() {
-        try {
-            chatFiles.store(new FileWriter("chat-pdf.properties"), LocalDateTime.now().toString());
-            // 只有当使用SimpleVectorStore时才保存本地向量数据
-            if (vectorStore instanceof SimpleVectorStore simpleVectorStore) {
-                simpleVectorStore.save(new File("chat-pdf.json"));
+    private Optional<Path> resolve(String chatId) {
+        Path current = chatDir(chatId).resolve(CURRENT_FILE);
+        if (Files.exists(current)) {
+            try {
+                return Optional.of(current.resolveSibling(Files.readString(current, StandardCharsets.UTF_8).trim()));
+            } catch (IOException e) {
+                log.warn("Failed to read PDF mapping of chat {}.", chatId, e);
             }
-        } catch (IOException e) {
-            throw new RuntimeException(e);
         }
+        return Optional.ofNullable(legacyChatFiles.getProperty(chatId)).map(Paths::get);
+    }
+
+    private Path chatDir(String chatId) {
+        return fileDir.resolve(shard(chatId)).resolve(encode(chatId));
+    }
+
+    /**
+     * 会话id 对应的分片目录名，取哈希的低 8 位，共 256 个分片
+     */
+    static String shard(String chatId) {
+        return String.format("%02x", chatId.hashCode() & 0xff);
+    }
+
+    /**
+     * 把会话id 编码为可以安全用作文件名的字符串，点号也要编码，避免出现 ".."
+     */
+    static String encode(String chatId) {
+        return URLEncoder.encode(chatId, StandardCharsets.UTF_8).replace(".", "%2E");
+    }
+
+    static String decode(String name) {
+        return URLDecoder.decode(name, StandardCharsets.UTF_8);
     }
 }
@@ -16,21 +16,53 @@
 
 package com.touhouqing.chatAiDemo.service;
 
+import com.touhouqing.chatAiDemo.component.CrawlStateStore;
 import com.touhouqing.chatAiDemo.component.GovProcurementPageProcessor;
+import com.touhouqing.chatAiDemo.component.IncrementalCrawlScheduler;
+import com.touhouqing.chatAiDemo.component.PoliteDownloader;
 import com.touhouqing.chatAiDemo.component.ProcurementDataPipeline;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import us.codecraft.webmagic.Spider;
+import us.codecraft.webmagic.downloader.HttpClientDownloader;
 
+import java.time.Duration;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class ProcurementCrawlerService {
     
+    // 管道异步分析和写入，爬虫结束后最多再等待这么久
+    private static final Duration PIPELINE_TIMEOUT = Duration.ofMinutes(30);
+
+    private static final String TIANJIN_URL = "http://www.ccgp-tianjin.gov.cn/portal/topicView.do?method=view&view=Infor&id=1665&ver=2&st=1";
+
     private final ProcurementDataPipeline dataPipeline;
+    private final CrawlStateStore stateStore;
+
+    // 增量爬取共用一份本地状态，同一时间只允许一个增量任务
+    private final AtomicBoolean incrementalRunning = new AtomicBoolean();
+
+    @Value("${procurement.crawler.extraction-mode:SINGLE_PASS}")
+    private GovProcurementPageProcessor.ExtractionMode extractionMode;
+
+    @Value("${procurement.crawler.threads:3}")
+    private int crawlerThreads;
+
+    @Value("${procurement.crawler.politeness.initial-delay:2000}")
+    private long initialDelay;
+
+    @Value("${procurement.crawler.politeness.min-delay:500}")
+    private long minDelay;
+
+    @Value("${procurement.crawler.politeness.max-delay:30000}")
+    private long maxDelay;
     
     /**
      * 启动爬虫任务
@@ -40,12 +72,13 @@ public class ProcurementCrawlerService {
             try {
                 log.info("开始爬取政府采购数据，起始URL: {}", startUrl);
                 
-                Spider spider = Spider.create(new GovProcurementPageProcessor())
+                Spider spider = Spider.create(new GovProcurementPageProcessor(null, extractionMode))
                         .addUrl(startUrl)
                         .addPipeline(dataPipeline)
                         .thread(3); // 使用3个线程
                 
                 spider.run();
+                awaitPipeline();
                 
                 String result = "爬虫任务完成，共处理 " + spider.getPageCount() + " 个页面";
                 log.info(result);
@@ -58,6 +91,44 @@ public class ProcurementCrawlerService {
         });
     }
     
+    /**
+     * 增量爬取：跳过已抓取过的详情页，列表页翻到上次的位置即停止，中断后下次从未完成的URL继续
+     */
+    public CompletableFuture<String> startIncrementalCrawling(String startUrl) {
+        if (!incrementalRunning.compareAndSet(false, true)) {
+            return CompletableFuture.completedFuture("已有增量爬虫任务正在执行");
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                log.info("开始增量爬取政府采购数据，起始URL: {}", startUrl);
+
+                IncrementalCrawlScheduler scheduler = new IncrementalCrawlScheduler(stateStore);
+                Spider spider = Spider.create(new GovProcurementPageProcessor(stateStore, extractionMode))
+                        .setScheduler(scheduler)
+                        .setDownloader(new PoliteDownloader(new HttpClientDownloader(), initialDelay, minDelay, maxDelay))
+                        .addPipeline(dataPipeline)
+                        .thread(crawlerThreads);
+                spider.setSpiderListeners(List.of(scheduler));
+                spider.addUrl(startUrl);
+
+                spider.run();
+                awaitPipeline();
+                stateStore.commitCheckpoints();
+
+                String result = "增量爬虫任务完成，共处理 " + spider.getPageCount() + " 个页面";
+                log.info(result);
+                return result;
+
+            } catch (Exception e) {
+                stateStore.discardCheckpoints();
+                log.error("增量爬虫任务执行失败", e);
+                return "增量爬虫任务失败: " + e.getMessage();
+            } finally {
+                incrementalRunning.set(false);
+            }
+        });
+    }
+
     /**
      * 爬取单个页面
      */
@@ -66,12 +137,13 @@ public class ProcurementCrawlerService {
             try {
                 log.info("开始爬取单个页面: {}", url);
                 
-                Spider spider = Spider.create(new GovProcurementPageProcessor())
+                Spider spider = Spider.create(new GovProcurementPageProcessor(null, extractionMode))
                         .addUrl(url)
                         .addPipeline(dataPipeline)
                         .thread(1);
                 
                 spider.run();
+                awaitPipeline();
                 
                 String result = "单页面爬取完成: " + url;
                 log.info(result);
@@ -88,8 +160,14 @@ public class ProcurementCrawlerService {
      * 爬取天津政府采购网的采购意向
      */
     public CompletableFuture<String> crawlTianjinProcurement() {
-        String baseUrl = "http://www.ccgp-tianjin.gov.cn/portal/topicView.do?method=view&view=Infor&id=1665&ver=2&st=1";
-        return startCrawling(baseUrl);
+        return startCrawling(TIANJIN_URL);
+    }
+    
+    /**
+     * 增量爬取天津政府采购网的采购意向
+     */
+    public CompletableFuture<String> crawlTianjinProcurementIncremental() {
+        return startIncrementalCrawling(TIANJIN_URL);
     }
     
     /**
@@ -98,4 +176,10 @@ public class ProcurementCrawlerService {
     public CompletableFuture<String> crawlProcurementDetail(String detailUrl) {
         return crawlSinglePage(detailUrl);
     }
+    
+    private void awaitPipeline() {
+        if (!dataPipeline.awaitCompletion(PIPELINE_TIMEOUT)) {
+            log.warn("等待采购数据分析和写入超时，剩余数据将在后台继续处理");
+        }
+    }
 }